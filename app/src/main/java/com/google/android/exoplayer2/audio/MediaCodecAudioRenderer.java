@@ -336,6 +336,15 @@ public class MediaCodecAudioRenderer extends MediaCodecRenderer implements Media
     //     : KEEP_CODEC_RESULT_NO;
   }
 
+  @Override
+  protected boolean canKeepRetainedCodec(
+      MediaCodecInfo codecInfo, Format oldFormat, Format newFormat) {
+    // A retained codec has been flushed, so the new stream starts from a clean decoder state.
+    return !passthroughEnabled
+        && getCodecMaxInputSize(codecInfo, newFormat) <= codecMaxInputSize
+        && areAdaptationCompatible(oldFormat, newFormat);
+  }
+
   @Override
   public MediaClock getMediaClock() {
     return this;
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.extractor;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.util.ParsableByteArray;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Finds the next candidate sync word in an {@link ExtractorInput}.
+ *
+ * <p>Extractors joining a stream at an arbitrary position used to peek a header-sized chunk for
+ * every candidate offset, resetting the peek position each time. This scanner peeks the input in
+ * blocks and slides a 32-bit big-endian word over them one byte at a time, so testing a candidate
+ * offset costs a shift and a {@link Matcher} call. Confirmation of a candidate (e.g. checking that
+ * further frames follow it) is left to the caller.
+ */
+public final class SyncWordScanner {
+
+  /**
+   * Decides whether a word is a plausible sync word.
+   */
+  public interface Matcher {
+
+    /**
+     * Returns whether {@code word} may be the start of a frame.
+     *
+     * @param word Four bytes of the input read as a big-endian integer.
+     * @return Whether the word is a candidate sync word.
+     */
+    boolean matches(int word);
+
+  }
+
+  private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  private final ParsableByteArray block;
+
+  /** Creates a scanner that peeks the input in blocks of the default size. */
+  public SyncWordScanner() {
+    this(DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * @param blockSize The number of bytes to peek at a time.
+   */
+  public SyncWordScanner(int blockSize) {
+    block = new ParsableByteArray(blockSize);
+  }
+
+  /**
+   * Scans {@code input} from its current peek position for a word accepted by {@code matcher}.
+   * The peek position is undefined after this method returns, so callers should reposition it.
+   *
+   * @param input The {@link ExtractorInput} to scan.
+   * @param maxOffset The maximum offset from the current peek position at which a word may start.
+   * @param matcher The {@link Matcher} that accepts sync words.
+   * @return The offset of the first matching word from the peek position at which the scan
+   *     started, or {@link C#POSITION_UNSET} if no word matched up to {@code maxOffset}.
+   * @throws EOFException If the end of the input was reached before a word matched.
+   * @throws IOException If an error occurred reading from the input.
+   * @throws InterruptedException If the thread was interrupted.
+   */
+  public int find(ExtractorInput input, int maxOffset, Matcher matcher)
+      throws IOException, InterruptedException {
+    byte[] data = block.data;
+    int limit = maxOffset + 4;
+    int scanned = 0;
+    int word = 0;
+    while (scanned < limit) {
+      int blockLength = Math.min(data.length, limit - scanned);
+      long inputLength = input.getLength();
+      if (inputLength != C.LENGTH_UNSET) {
+        blockLength = (int) Math.min(blockLength, inputLength - input.getPeekPosition());
+      }
+      if (blockLength <= 0) {
+        throw new EOFException();
+      }
+      input.peekFully(data, 0, blockLength);
+      for (int i = 0; i < blockLength; i++) {
+        word = (word << 8) | (data[i] & 0xFF);
+        if (++scanned >= 4 && matcher.matches(word)) {
+          return scanned - 4;
+        }
+      }
+    }
+    return C.POSITION_UNSET;
+  }
+
+}
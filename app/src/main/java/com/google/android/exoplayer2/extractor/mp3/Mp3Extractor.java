@@ -59,7 +59,10 @@ public final class Mp3Extractor implements Extractor {
    * Flags controlling the behavior of the extractor.
    */
   @Retention(RetentionPolicy.SOURCE)
-  @IntDef(flag = true, value = {FLAG_ENABLE_CONSTANT_BITRATE_SEEKING, FLAG_DISABLE_ID3_METADATA})
+  @IntDef(
+    flag = true,
+    value = {FLAG_ENABLE_CONSTANT_BITRATE_SEEKING, FLAG_DISABLE_ID3_METADATA, FLAG_FAST_SYNC}
+  )
   public @interface Flags {}
   /**
    * Flag to force enable seeking using a constant bitrate assumption in cases where seeking would
@@ -71,6 +74,12 @@ public final class Mp3Extractor implements Extractor {
    * required.
    */
   public static final int FLAG_DISABLE_ID3_METADATA = 2;
+  /**
+   * Flag to confirm synchronization outside of sniffing with {@link #FAST_SYNC_CONFIRMATION_FRAMES}
+   * rather than {@link #CONFIRMATION_FRAMES} consecutive frames. Can be set to reduce the latency
+   * of joining a live stream, where the stream has usually already been sniffed.
+   */
+  public static final int FLAG_FAST_SYNC = 4;
 
   /**
    * The maximum number of bytes to search when synchronizing, before giving up.
@@ -80,6 +89,26 @@ public final class Mp3Extractor implements Extractor {
    * The maximum number of bytes to peek when sniffing, excluding the ID3 header, before giving up.
    */
   private static final int MAX_SNIFF_BYTES = 16 * 1024;
+  /**
+   * The number of consecutive valid frames that confirm synchronization.
+   */
+  private static final int CONFIRMATION_FRAMES = 4;
+  /**
+   * The number of consecutive valid frames that confirm synchronization outside of sniffing when
+   * {@link #FLAG_FAST_SYNC} is set.
+   */
+  private static final int FAST_SYNC_CONFIRMATION_FRAMES = 2;
+  /**
+   * Matches words that are valid MPEG audio headers.
+   */
+  private static final SyncWordScanner.Matcher HEADER_MATCHER =
+      new SyncWordScanner.Matcher() {
+        @Override
+        public boolean matches(int word) {
+          return MpegAudioHeader.getFrameSize(word) != C.LENGTH_UNSET;
+        }
+      };
+
   /**
    * Maximum length of data read into {@link #scratch}.
    */
@@ -101,6 +130,7 @@ public final class Mp3Extractor implements Extractor {
   private final MpegAudioHeader synchronizedHeader;
   private final GaplessInfoHolder gaplessInfoHolder;
   private final Id3Peeker id3Peeker;
+  private final SyncWordScanner syncWordScanner;
 
   // Extractor outputs.
   private ExtractorOutput extractorOutput;
@@ -138,6 +168,7 @@ public final class Mp3Extractor implements Extractor {
     gaplessInfoHolder = new GaplessInfoHolder();
     basisTimeUs = C.TIME_UNSET;
     id3Peeker = new Id3Peeker();
+    syncWordScanner = new SyncWordScanner();
   }
 
   // Extractor implementation.
@@ -255,6 +286,10 @@ public final class Mp3Extractor implements Extractor {
     int peekedId3Bytes = 0;
     int searchedBytes = 0;
     int searchLimitBytes = sniffing ? MAX_SNIFF_BYTES : MAX_SYNC_BYTES;
+    int confirmationFrames =
+        !sniffing && (flags & FLAG_FAST_SYNC) != 0
+            ? FAST_SYNC_CONFIRMATION_FRAMES
+            : CONFIRMATION_FRAMES;
     input.resetPeekPosition();
     if (input.getPosition() == 0) {
       // We need to parse enough ID3 metadata to retrieve any gapless playback information even
@@ -272,6 +307,24 @@ public final class Mp3Extractor implements Extractor {
       }
     }
     while (true) {
+      if (validFrameCount == 0) {
+        // Skip straight to the next valid header instead of testing every byte offset below.
+        int headerOffset =
+            syncWordScanner.find(input, searchLimitBytes - searchedBytes, HEADER_MATCHER);
+        if (headerOffset == C.POSITION_UNSET) {
+          if (!sniffing) {
+            throw new ParserException("Searched too many bytes.");
+          }
+          return false;
+        }
+        searchedBytes += headerOffset;
+        input.resetPeekPosition();
+        if (sniffing) {
+          input.advancePeekPosition(peekedId3Bytes + searchedBytes);
+        } else {
+          input.skipFully(headerOffset);
+        }
+      }
       if (!input.peekFully(scratch.data, 0, 4, validFrameCount > 0)) {
         // We reached the end of the stream but found at least one valid frame.
         break;
@@ -303,7 +356,7 @@ public final class Mp3Extractor implements Extractor {
         if (validFrameCount == 1) {
           MpegAudioHeader.populateHeader(headerData, synchronizedHeader);
           candidateSynchronizedHeaderData = headerData;
-        } else if (validFrameCount == 4) {
+        } else if (validFrameCount == confirmationFrames) {
           break;
         }
         input.advancePeekPosition(frameSize - 4);
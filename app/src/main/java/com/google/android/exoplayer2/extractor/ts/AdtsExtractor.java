@@ -22,6 +22,7 @@ import com.google.android.exoplayer2.extractor.ExtractorOutput;
 import com.google.android.exoplayer2.extractor.ExtractorsFactory;
 import com.google.android.exoplayer2.extractor.PositionHolder;
 import com.google.android.exoplayer2.extractor.SeekMap;
+import com.google.android.exoplayer2.extractor.SyncWordScanner;
 import com.google.android.exoplayer2.extractor.ts.TsPayloadReader.TrackIdGenerator;
 import com.google.android.exoplayer2.util.ParsableBitArray;
 import com.google.android.exoplayer2.util.ParsableByteArray;
@@ -53,9 +54,21 @@ public final class AdtsExtractor implements Extractor {
    */
   private static final int MAX_SNIFF_BYTES = 8 * 1024;
 
+  /**
+   * Matches words that start with an ADTS sync word.
+   */
+  private static final SyncWordScanner.Matcher SYNC_WORD_MATCHER =
+      new SyncWordScanner.Matcher() {
+        @Override
+        public boolean matches(int word) {
+          return ((word >>> 16) & 0xFFF6) == 0xFFF0;
+        }
+      };
+
   private final long firstSampleTimestampUs;
   private final AdtsReader reader;
   private final ParsableByteArray packetBuffer;
+  private final SyncWordScanner syncWordScanner;
 
   private boolean startedPacket;
 
@@ -67,6 +80,7 @@ public final class AdtsExtractor implements Extractor {
     this.firstSampleTimestampUs = firstSampleTimestampUs;
     reader = new AdtsReader(true);
     packetBuffer = new ParsableByteArray(MAX_PACKET_SIZE);
+    syncWordScanner = new SyncWordScanner();
   }
 
   // Extractor implementation.
@@ -96,6 +110,17 @@ public final class AdtsExtractor implements Extractor {
     int validFramesSize = 0;
     int validFramesCount = 0;
     while (true) {
+      if (validFramesCount == 0) {
+        // Skip straight to the next sync word instead of testing every byte position below.
+        int syncOffset = syncWordScanner.find(
+            input, startPosition + MAX_SNIFF_BYTES - 1 - headerPosition, SYNC_WORD_MATCHER);
+        if (syncOffset == C.POSITION_UNSET) {
+          return false;
+        }
+        headerPosition += syncOffset;
+        input.resetPeekPosition();
+        input.advancePeekPosition(headerPosition);
+      }
       input.peekFully(scratch.data, 0, 2);
       scratch.setPosition(0);
       int syncBytes = scratch.readUnsignedShort();
@@ -230,6 +230,17 @@ public final class AdtsReader implements ElementaryStreamReader {
     int position = pesBuffer.getPosition();
     int endOffset = pesBuffer.limit();
     while (position < endOffset) {
+      if (matchState == MATCH_STATE_START) {
+        // Skip bytes that can start neither a sync word nor an ID3 tag in a tight loop.
+        while (position < endOffset
+            && adtsData[position] != (byte) 0xFF
+            && adtsData[position] != 'I') {
+          position++;
+        }
+        if (position == endOffset) {
+          break;
+        }
+      }
       int data = adtsData[position++] & 0xFF;
       if (matchState == MATCH_STATE_FF && data >= 0xF0 && data != 0xFF) {
         hasCrc = (data & 0x1) == 0;
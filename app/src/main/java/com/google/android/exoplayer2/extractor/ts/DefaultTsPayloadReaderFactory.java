@@ -38,7 +38,7 @@ public final class DefaultTsPayloadReaderFactory implements TsPayloadReader.Fact
   @Retention(RetentionPolicy.SOURCE)
   @IntDef(flag = true, value = {FLAG_ALLOW_NON_IDR_KEYFRAMES, FLAG_IGNORE_AAC_STREAM,
       FLAG_IGNORE_H264_STREAM, FLAG_DETECT_ACCESS_UNITS, FLAG_IGNORE_SPLICE_INFO_STREAM,
-      FLAG_OVERRIDE_CAPTION_DESCRIPTORS})
+      FLAG_OVERRIDE_CAPTION_DESCRIPTORS, FLAG_IGNORE_NON_AUDIO_STREAMS})
   public @interface Flags {}
   public static final int FLAG_ALLOW_NON_IDR_KEYFRAMES = 1;
   public static final int FLAG_IGNORE_AAC_STREAM = 1 << 1;
@@ -46,6 +46,12 @@ public final class DefaultTsPayloadReaderFactory implements TsPayloadReader.Fact
   public static final int FLAG_DETECT_ACCESS_UNITS = 1 << 3;
   public static final int FLAG_IGNORE_SPLICE_INFO_STREAM = 1 << 4;
   public static final int FLAG_OVERRIDE_CAPTION_DESCRIPTORS = 1 << 5;
+  /**
+   * Creates readers only for audio and ID3 streams. Packets of every other PID declared in the PMT
+   * (video, SEI, subtitles, splice info) are then skipped by {@link TsExtractor} without being
+   * copied into a reader.
+   */
+  public static final int FLAG_IGNORE_NON_AUDIO_STREAMS = 1 << 6;
 
   private static final int DESCRIPTOR_TAG_CAPTION_SERVICE = 0x86;
 
@@ -90,6 +96,9 @@ public final class DefaultTsPayloadReaderFactory implements TsPayloadReader.Fact
 
   @Override
   public TsPayloadReader createPayloadReader(int streamType, EsInfo esInfo) {
+    if (isSet(FLAG_IGNORE_NON_AUDIO_STREAMS) && !isAudioOrId3StreamType(streamType)) {
+      return null;
+    }
     switch (streamType) {
       case TsExtractor.TS_STREAM_TYPE_MPA:
       case TsExtractor.TS_STREAM_TYPE_MPA_LSF:
@@ -127,6 +136,23 @@ public final class DefaultTsPayloadReaderFactory implements TsPayloadReader.Fact
     }
   }
 
+  private static boolean isAudioOrId3StreamType(int streamType) {
+    switch (streamType) {
+      case TsExtractor.TS_STREAM_TYPE_MPA:
+      case TsExtractor.TS_STREAM_TYPE_MPA_LSF:
+      case TsExtractor.TS_STREAM_TYPE_AAC_ADTS:
+      case TsExtractor.TS_STREAM_TYPE_AAC_LATM:
+      case TsExtractor.TS_STREAM_TYPE_AC3:
+      case TsExtractor.TS_STREAM_TYPE_E_AC3:
+      case TsExtractor.TS_STREAM_TYPE_DTS:
+      case TsExtractor.TS_STREAM_TYPE_HDMV_DTS:
+      case TsExtractor.TS_STREAM_TYPE_ID3:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   /**
    * If {@link #FLAG_OVERRIDE_CAPTION_DESCRIPTORS} is set, returns a {@link SeiReader} for
    * {@link #closedCaptionFormats}. If unset, parses the PMT descriptor information and returns a
@@ -257,6 +257,9 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
   private boolean outputStreamEnded;
   private boolean waitingForKeys;
   private boolean waitingForFirstSyncFrame;
+  private boolean retainCodecOnDisable;
+  private Format retainedCodecFormat;
+  private MediaFormat codecOutputMediaFormat;
 
   protected DecoderCounters decoderCounters;
 
@@ -469,9 +472,12 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
 
   @Override
   protected void onDisabled() {
+    Format lastFormat = format;
     format = null;
     try {
-      releaseCodec();
+      if (!maybeRetainCodec(lastFormat)) {
+        releaseCodec();
+      }
     } finally {
       try {
         if (drmSession != null) {
@@ -490,7 +496,49 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     }
   }
 
+  /**
+   * Sets whether the {@link MediaCodec} should be flushed and kept, rather than released, when the
+   * renderer is disabled. A retained codec is reused for the next stream if
+   * {@link #canKeepRetainedCodec(MediaCodecInfo, Format, Format)} allows it. Passing {@code false}
+   * releases any codec that is currently retained.
+   *
+   * <p>Must only be called from the playback thread.
+   *
+   * @param retainCodecOnDisable Whether the codec should be retained when the renderer is disabled.
+   */
+  protected final void setRetainCodecOnDisable(boolean retainCodecOnDisable) {
+    this.retainCodecOnDisable = retainCodecOnDisable;
+    if (!retainCodecOnDisable && retainedCodecFormat != null) {
+      releaseCodec();
+    }
+  }
+
+  /**
+   * Flushes and keeps the codec when the renderer is being disabled, if retaining is enabled.
+   *
+   * @param lastFormat The format for which the codec is configured.
+   * @return Whether the codec has been retained.
+   */
+  private boolean maybeRetainCodec(Format lastFormat) {
+    if (!retainCodecOnDisable || codec == null || lastFormat == null || drmSession != null) {
+      return false;
+    }
+    try {
+      flushCodec();
+    } catch (ExoPlaybackException e) {
+      return false;
+    }
+    if (codec == null) {
+      // The flush required the codec to be released.
+      return false;
+    }
+    retainedCodecFormat = lastFormat;
+    return true;
+  }
+
   protected void releaseCodec() {
+    retainedCodecFormat = null;
+    codecOutputMediaFormat = null;
     codecHotswapDeadlineMs = C.TIME_UNSET;
     resetInputBuffer();
     resetOutputBuffer();
@@ -867,6 +915,8 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
    */
   protected void onInputFormatChanged(Format newFormat) throws ExoPlaybackException {
     Format oldFormat = format;
+    Format retainedFormat = retainedCodecFormat;
+    retainedCodecFormat = null;
     format = newFormat;
 
     boolean drmInitDataChanged =
@@ -887,7 +937,17 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     }
 
     boolean keepingCodec = false;
-    if (pendingDrmSession == drmSession && codec != null) {
+    if (retainedFormat != null) {
+      // The codec has been flushed and retained while the renderer was disabled.
+      if (pendingDrmSession == null && codec != null
+          && canKeepRetainedCodec(codecInfo, retainedFormat, format)) {
+        keepingCodec = true;
+        if (codecOutputMediaFormat != null) {
+          // The codec will not report its output format again, so replay the last one.
+          onOutputFormatChanged(codec, codecOutputMediaFormat);
+        }
+      }
+    } else if (pendingDrmSession == drmSession && codec != null) {
       switch (canKeepCodec(codec, codecInfo, oldFormat, format)) {
         case KEEP_CODEC_RESULT_NO:
           // Do nothing.
@@ -975,6 +1035,23 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     return KEEP_CODEC_RESULT_NO;
   }
 
+  /**
+   * Determines whether a {@link MediaCodec} retained while the renderer was disabled can be reused,
+   * without reconfiguration, for the first format of the next stream. The codec has been flushed
+   * before this is called.
+   *
+   * <p>The default implementation returns {@code false}.
+   *
+   * @param codecInfo A {@link MediaCodecInfo} describing the decoder.
+   * @param oldFormat The format for which the retained instance is configured.
+   * @param newFormat The new format.
+   * @return Whether the retained instance can be kept.
+   */
+  protected boolean canKeepRetainedCodec(
+      MediaCodecInfo codecInfo, Format oldFormat, Format newFormat) {
+    return false;
+  }
+
   @Override
   public boolean isEnded() {
     return outputStreamEnded;
@@ -1124,6 +1201,7 @@ public abstract class MediaCodecRenderer extends BaseRenderer {
     if (codecNeedsMonoChannelCountWorkaround) {
       format.setInteger(MediaFormat.KEY_CHANNEL_COUNT, 1);
     }
+    codecOutputMediaFormat = format;
     onOutputFormatChanged(codec, format);
   }
 
@@ -569,7 +569,8 @@ import java.util.Arrays;
         return sampleQueues[i];
       }
     }
-    SampleQueue trackOutput = new SampleQueue(allocator);
+    // Samples are written by the loading thread only and never spliced.
+    SampleQueue trackOutput = new SampleQueue(allocator, /* singleProducerSingleConsumer= */ true);
     trackOutput.setUpstreamFormatChangeListener(this);
     sampleQueueTrackIds = Arrays.copyOf(sampleQueueTrackIds, trackCount + 1);
     sampleQueueTrackIds[trackCount] = id;
@@ -25,8 +25,16 @@ import com.google.android.exoplayer2.util.Util;
 
 /**
  * A queue of metadata describing the contents of a media buffer.
+ *
+ * <p>The queue is a ring buffer indexed by absolute sample indices. The loading thread writes
+ * sample metadata and then publishes it by advancing the volatile write index, the consuming thread
+ * reads and discards samples and publishes the discards by advancing the volatile first index. This
+ * makes the queue safe without locking for a single loading thread and a single consuming thread,
+ * as long as samples are never discarded from the write side while the consuming thread reads (see
+ * {@link #attemptSplice(long)}). {@link SynchronizedSampleMetadataQueue} adds locking for sources
+ * that splice.
  */
-/* package */ final class SampleMetadataQueue {
+/* package */ class SampleMetadataQueue {
 
   /**
    * A holder for sample metadata not held by {@link DecoderInputBuffer}.
@@ -39,38 +47,58 @@ import com.google.android.exoplayer2.util.Util;
 
   }
 
-  private static final int SAMPLE_CAPACITY_INCREMENT = 1000;
+  /**
+   * Sample metadata arrays. Replaced as a whole when the capacity grows, so that the consuming
+   * thread always sees arrays holding every published sample.
+   */
+  private static final class Storage {
+
+    public final int mask;
+    public final int[] sourceIds;
+    public final long[] offsets;
+    public final int[] sizes;
+    public final int[] flags;
+    public final long[] timesUs;
+    public final CryptoData[] cryptoDatas;
+    public final Format[] formats;
+
+    public Storage(int capacity) {
+      mask = capacity - 1;
+      sourceIds = new int[capacity];
+      offsets = new long[capacity];
+      sizes = new int[capacity];
+      flags = new int[capacity];
+      timesUs = new long[capacity];
+      cryptoDatas = new CryptoData[capacity];
+      formats = new Format[capacity];
+    }
+
+    public int getCapacity() {
+      return mask + 1;
+    }
+
+  }
+
+  // Must be a power of two.
+  private static final int INITIAL_SAMPLE_CAPACITY = 1024;
 
-  private int capacity;
-  private int[] sourceIds;
-  private long[] offsets;
-  private int[] sizes;
-  private int[] flags;
-  private long[] timesUs;
-  private CryptoData[] cryptoDatas;
-  private Format[] formats;
+  private volatile Storage storage;
 
-  private int length;
-  private int absoluteFirstIndex;
-  private int relativeFirstIndex;
-  private int readPosition;
+  // Written by the consuming thread, read by the loading thread.
+  private volatile int firstIndex;
+  // Written by the loading thread, read by the consuming thread.
+  private volatile int writeIndex;
+  private int readIndex;
 
   private long largestDiscardedTimestampUs;
-  private long largestQueuedTimestampUs;
+  private volatile long largestQueuedTimestampUs;
   private boolean upstreamKeyframeRequired;
-  private boolean upstreamFormatRequired;
-  private Format upstreamFormat;
-  private int upstreamSourceId;
+  private volatile boolean upstreamFormatRequired;
+  private volatile Format upstreamFormat;
+  private volatile int upstreamSourceId;
 
   public SampleMetadataQueue() {
-    capacity = SAMPLE_CAPACITY_INCREMENT;
-    sourceIds = new int[capacity];
-    offsets = new long[capacity];
-    timesUs = new long[capacity];
-    flags = new int[capacity];
-    sizes = new int[capacity];
-    cryptoDatas = new CryptoData[capacity];
-    formats = new Format[capacity];
+    storage = new Storage(INITIAL_SAMPLE_CAPACITY);
     largestDiscardedTimestampUs = Long.MIN_VALUE;
     largestQueuedTimestampUs = Long.MIN_VALUE;
     upstreamFormatRequired = true;
@@ -86,10 +114,9 @@ import com.google.android.exoplayer2.util.Util;
    *     must be called after the reset before any more samples can be queued.
    */
   public void reset(boolean resetUpstreamFormat) {
-    length = 0;
-    absoluteFirstIndex = 0;
-    relativeFirstIndex = 0;
-    readPosition = 0;
+    firstIndex = 0;
+    writeIndex = 0;
+    readIndex = 0;
     upstreamKeyframeRequired = true;
     largestDiscardedTimestampUs = Long.MIN_VALUE;
     largestQueuedTimestampUs = Long.MIN_VALUE;
@@ -103,7 +130,7 @@ import com.google.android.exoplayer2.util.Util;
    * Returns the current absolute write index.
    */
   public int getWriteIndex() {
-    return absoluteFirstIndex + length;
+    return writeIndex;
   }
 
   /**
@@ -114,15 +141,17 @@ import com.google.android.exoplayer2.util.Util;
    *     if the queue is now empty.
    */
   public long discardUpstreamSamples(int discardFromIndex) {
-    int discardCount = getWriteIndex() - discardFromIndex;
-    Assertions.checkArgument(0 <= discardCount && discardCount <= (length - readPosition));
-    length -= discardCount;
-    largestQueuedTimestampUs = Math.max(largestDiscardedTimestampUs, getLargestTimestamp(length));
-    if (length == 0) {
+    int discardCount = writeIndex - discardFromIndex;
+    Assertions.checkArgument(0 <= discardCount && discardCount <= (writeIndex - readIndex));
+    Storage storage = this.storage;
+    writeIndex = discardFromIndex;
+    largestQueuedTimestampUs =
+        Math.max(largestDiscardedTimestampUs, getLargestTimestamp(storage, discardFromIndex));
+    if (discardFromIndex == firstIndex) {
       return 0;
     } else {
-      int relativeLastWriteIndex = getRelativeIndex(length - 1);
-      return offsets[relativeLastWriteIndex] + sizes[relativeLastWriteIndex];
+      int lastWriteIndex = (discardFromIndex - 1) & storage.mask;
+      return storage.offsets[lastWriteIndex] + storage.sizes[lastWriteIndex];
     }
   }
 
@@ -136,14 +165,14 @@ import com.google.android.exoplayer2.util.Util;
    * Returns the current absolute start index.
    */
   public int getFirstIndex() {
-    return absoluteFirstIndex;
+    return firstIndex;
   }
 
   /**
    * Returns the current absolute read index.
    */
   public int getReadIndex() {
-    return absoluteFirstIndex + readPosition;
+    return readIndex;
   }
 
   /**
@@ -153,21 +182,20 @@ import com.google.android.exoplayer2.util.Util;
    * @return The source id.
    */
   public int peekSourceId() {
-    int relativeReadIndex = getRelativeIndex(readPosition);
-    return hasNextSample() ? sourceIds[relativeReadIndex] : upstreamSourceId;
+    return hasNextSample() ? storage.sourceIds[readIndex & storage.mask] : upstreamSourceId;
   }
 
   /**
    * Returns whether a sample is available to be read.
    */
-  public synchronized boolean hasNextSample() {
-    return readPosition != length;
+  public boolean hasNextSample() {
+    return readIndex != writeIndex;
   }
 
   /**
    * Returns the upstream {@link Format} in which samples are being queued.
    */
-  public synchronized Format getUpstreamFormat() {
+  public Format getUpstreamFormat() {
     return upstreamFormatRequired ? null : upstreamFormat;
   }
 
@@ -182,20 +210,25 @@ import com.google.android.exoplayer2.util.Util;
    * @return The largest sample timestamp that has been queued, or {@link Long#MIN_VALUE} if no
    *     samples have been queued.
    */
-  public synchronized long getLargestQueuedTimestampUs() {
+  public long getLargestQueuedTimestampUs() {
     return largestQueuedTimestampUs;
   }
 
   /** Returns the timestamp of the first sample, or {@link Long#MIN_VALUE} if the queue is empty. */
-  public synchronized long getFirstTimestampUs() {
-    return length == 0 ? Long.MIN_VALUE : timesUs[relativeFirstIndex];
+  public long getFirstTimestampUs() {
+    int firstIndex = this.firstIndex;
+    if (firstIndex == writeIndex) {
+      return Long.MIN_VALUE;
+    }
+    Storage storage = this.storage;
+    return storage.timesUs[firstIndex & storage.mask];
   }
 
   /**
    * Rewinds the read position to the first sample retained in the queue.
    */
-  public synchronized void rewind() {
-    readPosition = 0;
+  public void rewind() {
+    readIndex = firstIndex;
   }
 
   /**
@@ -220,10 +253,11 @@ import com.google.android.exoplayer2.util.Util;
    *     or {@link C#RESULT_BUFFER_READ}.
    */
   @SuppressWarnings("ReferenceEquality")
-  public synchronized int read(FormatHolder formatHolder, DecoderInputBuffer buffer,
+  public int read(FormatHolder formatHolder, DecoderInputBuffer buffer,
       boolean formatRequired, boolean loadingFinished, Format downstreamFormat,
       SampleExtrasHolder extrasHolder) {
     if (!hasNextSample()) {
+      Format upstreamFormat = this.upstreamFormat;
       if (loadingFinished) {
         buffer.setFlags(C.BUFFER_FLAG_END_OF_STREAM);
         return C.RESULT_BUFFER_READ;
@@ -236,9 +270,10 @@ import com.google.android.exoplayer2.util.Util;
       }
     }
 
-    int relativeReadIndex = getRelativeIndex(readPosition);
-    if (formatRequired || formats[relativeReadIndex] != downstreamFormat) {
-      formatHolder.format = formats[relativeReadIndex];
+    Storage storage = this.storage;
+    int relativeReadIndex = readIndex & storage.mask;
+    if (formatRequired || storage.formats[relativeReadIndex] != downstreamFormat) {
+      formatHolder.format = storage.formats[relativeReadIndex];
       return C.RESULT_FORMAT_READ;
     }
 
@@ -246,13 +281,13 @@ import com.google.android.exoplayer2.util.Util;
       return C.RESULT_NOTHING_READ;
     }
 
-    buffer.timeUs = timesUs[relativeReadIndex];
-    buffer.setFlags(flags[relativeReadIndex]);
-    extrasHolder.size = sizes[relativeReadIndex];
-    extrasHolder.offset = offsets[relativeReadIndex];
-    extrasHolder.cryptoData = cryptoDatas[relativeReadIndex];
+    buffer.timeUs = storage.timesUs[relativeReadIndex];
+    buffer.setFlags(storage.flags[relativeReadIndex]);
+    extrasHolder.size = storage.sizes[relativeReadIndex];
+    extrasHolder.offset = storage.offsets[relativeReadIndex];
+    extrasHolder.cryptoData = storage.cryptoDatas[relativeReadIndex];
 
-    readPosition++;
+    readIndex++;
     return C.RESULT_BUFFER_READ;
   }
 
@@ -270,18 +305,21 @@ import com.google.android.exoplayer2.util.Util;
    *     successful advance is one in which the read position was unchanged or advanced, and is now
    *     at a sample meeting the specified criteria.
    */
-  public synchronized int advanceTo(long timeUs, boolean toKeyframe,
+  public int advanceTo(long timeUs, boolean toKeyframe,
       boolean allowTimeBeyondBuffer) {
-    int relativeReadIndex = getRelativeIndex(readPosition);
-    if (!hasNextSample() || timeUs < timesUs[relativeReadIndex]
+    // Read before the write index, so that it does not cover samples beyond it.
+    long largestQueuedTimestampUs = this.largestQueuedTimestampUs;
+    int writeIndex = this.writeIndex;
+    Storage storage = this.storage;
+    if (readIndex == writeIndex || timeUs < storage.timesUs[readIndex & storage.mask]
         || (timeUs > largestQueuedTimestampUs && !allowTimeBeyondBuffer)) {
       return SampleQueue.ADVANCE_FAILED;
     }
-    int offset = findSampleBefore(relativeReadIndex, length - readPosition, timeUs, toKeyframe);
+    int offset = findSampleBefore(storage, readIndex, writeIndex - readIndex, timeUs, toKeyframe);
     if (offset == -1) {
       return SampleQueue.ADVANCE_FAILED;
     }
-    readPosition += offset;
+    readIndex += offset;
     return offset;
   }
 
@@ -290,9 +328,10 @@ import com.google.android.exoplayer2.util.Util;
    *
    * @return The number of samples that were skipped.
    */
-  public synchronized int advanceToEnd() {
-    int skipCount = length - readPosition;
-    readPosition = length;
+  public int advanceToEnd() {
+    int writeIndex = this.writeIndex;
+    int skipCount = writeIndex - readIndex;
+    readIndex = writeIndex;
     return skipCount;
   }
 
@@ -304,9 +343,9 @@ import com.google.android.exoplayer2.util.Util;
    *     index is smaller than the index of the first sample in the queue, or larger than the index
    *     of the next sample that will be written.
    */
-  public synchronized boolean setReadPosition(int sampleIndex) {
-    if (absoluteFirstIndex <= sampleIndex && sampleIndex <= absoluteFirstIndex + length) {
-      readPosition = sampleIndex - absoluteFirstIndex;
+  public boolean setReadPosition(int sampleIndex) {
+    if (firstIndex <= sampleIndex && sampleIndex <= writeIndex) {
+      readIndex = sampleIndex;
       return true;
     }
     return false;
@@ -324,16 +363,20 @@ import com.google.android.exoplayer2.util.Util;
    * @return The corresponding offset up to which data should be discarded, or
    *     {@link C#POSITION_UNSET} if no discarding of data is necessary.
    */
-  public synchronized long discardTo(long timeUs, boolean toKeyframe, boolean stopAtReadPosition) {
-    if (length == 0 || timeUs < timesUs[relativeFirstIndex]) {
+  public long discardTo(long timeUs, boolean toKeyframe, boolean stopAtReadPosition) {
+    int firstIndex = this.firstIndex;
+    int writeIndex = this.writeIndex;
+    Storage storage = this.storage;
+    if (firstIndex == writeIndex || timeUs < storage.timesUs[firstIndex & storage.mask]) {
       return C.POSITION_UNSET;
     }
-    int searchLength = stopAtReadPosition && readPosition != length ? readPosition + 1 : length;
-    int discardCount = findSampleBefore(relativeFirstIndex, searchLength, timeUs, toKeyframe);
+    int searchLength = stopAtReadPosition && readIndex != writeIndex
+        ? readIndex - firstIndex + 1 : writeIndex - firstIndex;
+    int discardCount = findSampleBefore(storage, firstIndex, searchLength, timeUs, toKeyframe);
     if (discardCount == -1) {
       return C.POSITION_UNSET;
     }
-    return discardSamples(discardCount);
+    return discardSamples(storage, writeIndex, discardCount);
   }
 
   /**
@@ -342,11 +385,13 @@ import com.google.android.exoplayer2.util.Util;
    * @return The corresponding offset up to which data should be discarded, or
    *     {@link C#POSITION_UNSET} if no discarding of data is necessary.
    */
-  public synchronized long discardToRead() {
-    if (readPosition == 0) {
+  public long discardToRead() {
+    int firstIndex = this.firstIndex;
+    if (readIndex == firstIndex) {
       return C.POSITION_UNSET;
     }
-    return discardSamples(readPosition);
+    int writeIndex = this.writeIndex;
+    return discardSamples(storage, writeIndex, readIndex - firstIndex);
   }
 
   /**
@@ -355,31 +400,33 @@ import com.google.android.exoplayer2.util.Util;
    * @return The corresponding offset up to which data should be discarded, or
    *     {@link C#POSITION_UNSET} if no discarding of data is necessary.
    */
-  public synchronized long discardToEnd() {
-    if (length == 0) {
+  public long discardToEnd() {
+    int firstIndex = this.firstIndex;
+    int writeIndex = this.writeIndex;
+    if (firstIndex == writeIndex) {
       return C.POSITION_UNSET;
     }
-    return discardSamples(length);
+    return discardSamples(storage, writeIndex, writeIndex - firstIndex);
   }
 
   // Called by the loading thread.
 
-  public synchronized boolean format(Format format) {
+  public boolean format(Format format) {
     if (format == null) {
       upstreamFormatRequired = true;
       return false;
     }
-    upstreamFormatRequired = false;
-    if (Util.areEqual(format, upstreamFormat)) {
-      // Suppress changes between equal formats so we can use referential equality in readData.
-      return false;
-    } else {
+    // Suppress changes between equal formats so we can use referential equality in readData.
+    boolean formatChanged = !Util.areEqual(format, upstreamFormat);
+    if (formatChanged) {
       upstreamFormat = format;
-      return true;
     }
+    // Written after the format, so that the consuming thread never sees a stale format as valid.
+    upstreamFormatRequired = false;
+    return formatChanged;
   }
 
-  public synchronized void commitSample(long timeUs, @C.BufferFlags int sampleFlags, long offset,
+  public void commitSample(long timeUs, @C.BufferFlags int sampleFlags, long offset,
       int size, CryptoData cryptoData) {
     if (upstreamKeyframeRequired) {
       if ((sampleFlags & C.BUFFER_FLAG_KEY_FRAME) == 0) {
@@ -390,56 +437,25 @@ import com.google.android.exoplayer2.util.Util;
     Assertions.checkState(!upstreamFormatRequired);
     commitSampleTimestamp(timeUs);
 
-    int relativeEndIndex = getRelativeIndex(length);
-    timesUs[relativeEndIndex] = timeUs;
-    offsets[relativeEndIndex] = offset;
-    sizes[relativeEndIndex] = size;
-    flags[relativeEndIndex] = sampleFlags;
-    cryptoDatas[relativeEndIndex] = cryptoData;
-    formats[relativeEndIndex] = upstreamFormat;
-    sourceIds[relativeEndIndex] = upstreamSourceId;
-
-    length++;
-    if (length == capacity) {
-      // Increase the capacity.
-      int newCapacity = capacity + SAMPLE_CAPACITY_INCREMENT;
-      int[] newSourceIds = new int[newCapacity];
-      long[] newOffsets = new long[newCapacity];
-      long[] newTimesUs = new long[newCapacity];
-      int[] newFlags = new int[newCapacity];
-      int[] newSizes = new int[newCapacity];
-      CryptoData[] newCryptoDatas = new CryptoData[newCapacity];
-      Format[] newFormats = new Format[newCapacity];
-      int beforeWrap = capacity - relativeFirstIndex;
-      System.arraycopy(offsets, relativeFirstIndex, newOffsets, 0, beforeWrap);
-      System.arraycopy(timesUs, relativeFirstIndex, newTimesUs, 0, beforeWrap);
-      System.arraycopy(flags, relativeFirstIndex, newFlags, 0, beforeWrap);
-      System.arraycopy(sizes, relativeFirstIndex, newSizes, 0, beforeWrap);
-      System.arraycopy(cryptoDatas, relativeFirstIndex, newCryptoDatas, 0, beforeWrap);
-      System.arraycopy(formats, relativeFirstIndex, newFormats, 0, beforeWrap);
-      System.arraycopy(sourceIds, relativeFirstIndex, newSourceIds, 0, beforeWrap);
-      int afterWrap = relativeFirstIndex;
-      System.arraycopy(offsets, 0, newOffsets, beforeWrap, afterWrap);
-      System.arraycopy(timesUs, 0, newTimesUs, beforeWrap, afterWrap);
-      System.arraycopy(flags, 0, newFlags, beforeWrap, afterWrap);
-      System.arraycopy(sizes, 0, newSizes, beforeWrap, afterWrap);
-      System.arraycopy(cryptoDatas, 0, newCryptoDatas, beforeWrap, afterWrap);
-      System.arraycopy(formats, 0, newFormats, beforeWrap, afterWrap);
-      System.arraycopy(sourceIds, 0, newSourceIds, beforeWrap, afterWrap);
-      offsets = newOffsets;
-      timesUs = newTimesUs;
-      flags = newFlags;
-      sizes = newSizes;
-      cryptoDatas = newCryptoDatas;
-      formats = newFormats;
-      sourceIds = newSourceIds;
-      relativeFirstIndex = 0;
-      length = capacity;
-      capacity = newCapacity;
+    int writeIndex = this.writeIndex;
+    Storage storage = this.storage;
+    if (writeIndex - firstIndex == storage.getCapacity()) {
+      storage = increaseCapacity(storage, writeIndex);
     }
+    int relativeEndIndex = writeIndex & storage.mask;
+    storage.timesUs[relativeEndIndex] = timeUs;
+    storage.offsets[relativeEndIndex] = offset;
+    storage.sizes[relativeEndIndex] = size;
+    storage.flags[relativeEndIndex] = sampleFlags;
+    storage.cryptoDatas[relativeEndIndex] = cryptoData;
+    storage.formats[relativeEndIndex] = upstreamFormat;
+    storage.sourceIds[relativeEndIndex] = upstreamSourceId;
+
+    // Publishes the sample to the consuming thread.
+    this.writeIndex = writeIndex + 1;
   }
 
-  public synchronized void commitSampleTimestamp(long timeUs) {
+  public void commitSampleTimestamp(long timeUs) {
     largestQueuedTimestampUs = Math.max(largestQueuedTimestampUs, timeUs);
   }
 
@@ -447,28 +463,28 @@ import com.google.android.exoplayer2.util.Util;
    * Attempts to discard samples from the end of the queue to allow samples starting from the
    * specified timestamp to be spliced in. Samples will not be discarded prior to the read position.
    *
+   * <p>Must not run concurrently with the consuming thread, so sources that splice have to use
+   * {@link SynchronizedSampleMetadataQueue}.
+   *
    * @param timeUs The timestamp at which the splice occurs.
    * @return Whether the splice was successful.
    */
-  public synchronized boolean attemptSplice(long timeUs) {
-    if (length == 0) {
+  public boolean attemptSplice(long timeUs) {
+    int writeIndex = this.writeIndex;
+    if (firstIndex == writeIndex) {
       return timeUs > largestDiscardedTimestampUs;
     }
+    Storage storage = this.storage;
     long largestReadTimestampUs = Math.max(largestDiscardedTimestampUs,
-        getLargestTimestamp(readPosition));
+        getLargestTimestamp(storage, readIndex));
     if (largestReadTimestampUs >= timeUs) {
       return false;
     }
-    int retainCount = length;
-    int relativeSampleIndex = getRelativeIndex(length - 1);
-    while (retainCount > readPosition && timesUs[relativeSampleIndex] >= timeUs) {
-      retainCount--;
-      relativeSampleIndex--;
-      if (relativeSampleIndex == -1) {
-        relativeSampleIndex = capacity - 1;
-      }
+    int retainIndex = writeIndex;
+    while (retainIndex > readIndex && storage.timesUs[(retainIndex - 1) & storage.mask] >= timeUs) {
+      retainIndex--;
     }
-    discardUpstreamSamples(absoluteFirstIndex + retainCount);
+    discardUpstreamSamples(retainIndex);
     return true;
   }
 
@@ -478,28 +494,29 @@ import com.google.android.exoplayer2.util.Util;
    * Finds the sample in the specified range that's before or at the specified time. If
    * {@code keyframe} is {@code true} then the sample is additionally required to be a keyframe.
    *
-   * @param relativeStartIndex The relative index from which to start searching.
+   * @param storage The storage to search.
+   * @param startIndex The absolute index from which to start searching.
    * @param length The length of the range being searched.
    * @param timeUs The specified time.
    * @param keyframe Whether only keyframes should be considered.
-   * @return The offset from {@code relativeFirstIndex} to the found sample, or -1 if no matching
-   *     sample was found.
+   * @return The offset from {@code startIndex} to the found sample, or -1 if no matching sample
+   *     was found.
    */
-  private int findSampleBefore(int relativeStartIndex, int length, long timeUs, boolean keyframe) {
+  private static int findSampleBefore(Storage storage, int startIndex, int length, long timeUs,
+      boolean keyframe) {
     // This could be optimized to use a binary search, however in practice callers to this method
     // normally pass times near to the start of the search region. Hence it's unclear whether
     // switching to a binary search would yield any real benefit.
     int sampleCountToTarget = -1;
-    int searchIndex = relativeStartIndex;
-    for (int i = 0; i < length && timesUs[searchIndex] <= timeUs; i++) {
-      if (!keyframe || (flags[searchIndex] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
+    for (int i = 0; i < length; i++) {
+      int searchIndex = (startIndex + i) & storage.mask;
+      if (storage.timesUs[searchIndex] > timeUs) {
+        break;
+      }
+      if (!keyframe || (storage.flags[searchIndex] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
         // We've found a suitable sample.
         sampleCountToTarget = i;
       }
-      searchIndex++;
-      if (searchIndex == capacity) {
-        searchIndex = 0;
-      }
     }
     return sampleCountToTarget;
   }
@@ -507,65 +524,76 @@ import com.google.android.exoplayer2.util.Util;
   /**
    * Discards the specified number of samples.
    *
+   * @param storage The current storage.
+   * @param writeIndex The write index read along with {@code storage}.
    * @param discardCount The number of samples to discard.
    * @return The corresponding offset up to which data should be discarded.
    */
-  private long discardSamples(int discardCount) {
+  private long discardSamples(Storage storage, int writeIndex, int discardCount) {
+    int newFirstIndex = firstIndex + discardCount;
     largestDiscardedTimestampUs = Math.max(largestDiscardedTimestampUs,
-        getLargestTimestamp(discardCount));
-    length -= discardCount;
-    absoluteFirstIndex += discardCount;
-    relativeFirstIndex += discardCount;
-    if (relativeFirstIndex >= capacity) {
-      relativeFirstIndex -= capacity;
+        getLargestTimestamp(storage, newFirstIndex));
+    if (readIndex < newFirstIndex) {
+      readIndex = newFirstIndex;
     }
-    readPosition -= discardCount;
-    if (readPosition < 0) {
-      readPosition = 0;
-    }
-    if (length == 0) {
-      int relativeLastDiscardIndex = (relativeFirstIndex == 0 ? capacity : relativeFirstIndex) - 1;
-      return offsets[relativeLastDiscardIndex] + sizes[relativeLastDiscardIndex];
+    long discardToOffset;
+    if (newFirstIndex == writeIndex) {
+      int relativeLastDiscardIndex = (newFirstIndex - 1) & storage.mask;
+      discardToOffset =
+          storage.offsets[relativeLastDiscardIndex] + storage.sizes[relativeLastDiscardIndex];
     } else {
-      return offsets[relativeFirstIndex];
+      discardToOffset = storage.offsets[newFirstIndex & storage.mask];
     }
+    // Published last, the loading thread may reuse the discarded slots from now on.
+    firstIndex = newFirstIndex;
+    return discardToOffset;
   }
 
   /**
    * Finds the largest timestamp of any sample from the start of the queue up to the specified
-   * length, assuming that the timestamps prior to a keyframe are always less than the timestamp of
+   * index, assuming that the timestamps prior to a keyframe are always less than the timestamp of
    * the keyframe itself, and of subsequent frames.
    *
-   * @param length The length of the range being searched.
-   * @return The largest timestamp, or {@link Long#MIN_VALUE} if {@code length == 0}.
+   * @param storage The current storage.
+   * @param endIndex The absolute index of the end of the range being searched, exclusive.
+   * @return The largest timestamp, or {@link Long#MIN_VALUE} if the range is empty.
    */
-  private long getLargestTimestamp(int length) {
-    if (length == 0) {
-      return Long.MIN_VALUE;
-    }
+  private long getLargestTimestamp(Storage storage, int endIndex) {
     long largestTimestampUs = Long.MIN_VALUE;
-    int relativeSampleIndex = getRelativeIndex(length - 1);
-    for (int i = 0; i < length; i++) {
-      largestTimestampUs = Math.max(largestTimestampUs, timesUs[relativeSampleIndex]);
-      if ((flags[relativeSampleIndex] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
+    for (int i = endIndex - 1; i >= firstIndex; i--) {
+      int relativeSampleIndex = i & storage.mask;
+      largestTimestampUs = Math.max(largestTimestampUs, storage.timesUs[relativeSampleIndex]);
+      if ((storage.flags[relativeSampleIndex] & C.BUFFER_FLAG_KEY_FRAME) != 0) {
         break;
       }
-      relativeSampleIndex--;
-      if (relativeSampleIndex == -1) {
-        relativeSampleIndex = capacity - 1;
-      }
     }
     return largestTimestampUs;
   }
 
-   /**
-    * Returns the relative index for a given offset from the start of the queue.
-    *
-    * @param offset The offset, which must be in the range [0, length].
-    */
-  private int getRelativeIndex(int offset) {
-    int relativeIndex = relativeFirstIndex + offset;
-    return relativeIndex < capacity ? relativeIndex : relativeIndex - capacity;
+  /**
+   * Replaces the storage with one of twice the capacity, holding the samples from the first index
+   * up to the write index.
+   *
+   * @param storage The current storage, which is full.
+   * @param writeIndex The current write index.
+   * @return The new storage.
+   */
+  private Storage increaseCapacity(Storage storage, int writeIndex) {
+    Storage newStorage = new Storage(storage.getCapacity() * 2);
+    // The consuming thread may discard samples concurrently, copying them as well is harmless.
+    for (int i = firstIndex; i < writeIndex; i++) {
+      int from = i & storage.mask;
+      int to = i & newStorage.mask;
+      newStorage.sourceIds[to] = storage.sourceIds[from];
+      newStorage.offsets[to] = storage.offsets[from];
+      newStorage.sizes[to] = storage.sizes[from];
+      newStorage.flags[to] = storage.flags[from];
+      newStorage.timesUs[to] = storage.timesUs[from];
+      newStorage.cryptoDatas[to] = storage.cryptoDatas[from];
+      newStorage.formats[to] = storage.formats[from];
+    }
+    this.storage = newStorage;
+    return newStorage;
   }
 
 }
@@ -25,6 +25,7 @@ import com.google.android.exoplayer2.extractor.TrackOutput;
 import com.google.android.exoplayer2.source.SampleMetadataQueue.SampleExtrasHolder;
 import com.google.android.exoplayer2.upstream.Allocation;
 import com.google.android.exoplayer2.upstream.Allocator;
+import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.ParsableByteArray;
 import java.io.EOFException;
 import java.io.IOException;
@@ -58,6 +59,7 @@ public final class SampleQueue implements TrackOutput {
   private final SampleMetadataQueue metadataQueue;
   private final SampleExtrasHolder extrasHolder;
   private final ParsableByteArray scratch;
+  private final boolean singleProducerSingleConsumer;
 
   // References into the linked list of allocations.
   private AllocationNode firstAllocationNode;
@@ -79,9 +81,21 @@ public final class SampleQueue implements TrackOutput {
    * @param allocator An {@link Allocator} from which allocations for sample data can be obtained.
    */
   public SampleQueue(Allocator allocator) {
+    this(allocator, /* singleProducerSingleConsumer= */ false);
+  }
+
+  /**
+   * @param allocator An {@link Allocator} from which allocations for sample data can be obtained.
+   * @param singleProducerSingleConsumer Whether the queue is only written by a single loading
+   *     thread and read by a single consuming thread, and never spliced. If true, sample metadata
+   *     is exchanged between the threads without locking.
+   */
+  public SampleQueue(Allocator allocator, boolean singleProducerSingleConsumer) {
     this.allocator = allocator;
+    this.singleProducerSingleConsumer = singleProducerSingleConsumer;
     allocationLength = allocator.getIndividualAllocationLength();
-    metadataQueue = new SampleMetadataQueue();
+    metadataQueue = singleProducerSingleConsumer
+        ? new SampleMetadataQueue() : new SynchronizedSampleMetadataQueue();
     extrasHolder = new SampleExtrasHolder();
     scratch = new ParsableByteArray(INITIAL_SCRATCH_SIZE);
     firstAllocationNode = new AllocationNode(0, allocationLength);
@@ -129,6 +143,7 @@ public final class SampleQueue implements TrackOutput {
    * Indicates samples that are subsequently queued should be spliced into those already queued.
    */
   public void splice() {
+    Assertions.checkState(!singleProducerSingleConsumer);
     pendingSplice = true;
   }
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.source;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.FormatHolder;
+import com.google.android.exoplayer2.decoder.DecoderInputBuffer;
+import com.google.android.exoplayer2.extractor.TrackOutput.CryptoData;
+
+/**
+ * A {@link SampleMetadataQueue} whose loading and consuming methods are mutually exclusive, for
+ * sources that discard samples from the write side while the consuming thread reads, e.g. when
+ * splicing.
+ */
+/* package */ final class SynchronizedSampleMetadataQueue extends SampleMetadataQueue {
+
+  // Called by the consuming thread.
+
+  @Override
+  public synchronized boolean hasNextSample() {
+    return super.hasNextSample();
+  }
+
+  @Override
+  public synchronized Format getUpstreamFormat() {
+    return super.getUpstreamFormat();
+  }
+
+  @Override
+  public synchronized long getLargestQueuedTimestampUs() {
+    return super.getLargestQueuedTimestampUs();
+  }
+
+  @Override
+  public synchronized long getFirstTimestampUs() {
+    return super.getFirstTimestampUs();
+  }
+
+  @Override
+  public synchronized void rewind() {
+    super.rewind();
+  }
+
+  @Override
+  public synchronized int read(FormatHolder formatHolder, DecoderInputBuffer buffer,
+      boolean formatRequired, boolean loadingFinished, Format downstreamFormat,
+      SampleExtrasHolder extrasHolder) {
+    return super.read(formatHolder, buffer, formatRequired, loadingFinished, downstreamFormat,
+        extrasHolder);
+  }
+
+  @Override
+  public synchronized int advanceTo(long timeUs, boolean toKeyframe,
+      boolean allowTimeBeyondBuffer) {
+    return super.advanceTo(timeUs, toKeyframe, allowTimeBeyondBuffer);
+  }
+
+  @Override
+  public synchronized int advanceToEnd() {
+    return super.advanceToEnd();
+  }
+
+  @Override
+  public synchronized boolean setReadPosition(int sampleIndex) {
+    return super.setReadPosition(sampleIndex);
+  }
+
+  @Override
+  public synchronized long discardTo(long timeUs, boolean toKeyframe,
+      boolean stopAtReadPosition) {
+    return super.discardTo(timeUs, toKeyframe, stopAtReadPosition);
+  }
+
+  @Override
+  public synchronized long discardToRead() {
+    return super.discardToRead();
+  }
+
+  @Override
+  public synchronized long discardToEnd() {
+    return super.discardToEnd();
+  }
+
+  // Called by the loading thread.
+
+  @Override
+  public synchronized boolean format(Format format) {
+    return super.format(format);
+  }
+
+  @Override
+  public synchronized void commitSample(long timeUs, @C.BufferFlags int sampleFlags, long offset,
+      int size, CryptoData cryptoData) {
+    super.commitSample(timeUs, sampleFlags, offset, size, cryptoData);
+  }
+
+  @Override
+  public synchronized void commitSampleTimestamp(long timeUs) {
+    super.commitSampleTimestamp(timeUs);
+  }
+
+  @Override
+  public synchronized boolean attemptSplice(long timeUs) {
+    return super.attemptSplice(timeUs);
+  }
+
+}
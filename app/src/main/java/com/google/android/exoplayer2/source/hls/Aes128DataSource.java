@@ -19,20 +19,19 @@ import android.net.Uri;
 
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DataSourceInputStream;
 import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.util.Assertions;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
-import java.security.Key;
 import java.security.NoSuchAlgorithmException;
-import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
 
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -43,14 +42,35 @@ import javax.crypto.spec.SecretKeySpec;
  * Note that this {@link DataSource} does not support being opened from arbitrary offsets. It is
  * designed specifically for reading whole files as defined in an HLS media playlist. For this
  * reason the implementation is private to the HLS package.
+ * <p>
+ * Encrypted data is read from upstream in large blocks and decrypted directly into the buffer
+ * passed to {@link #read(byte[], int, int)} whenever it is large enough. The {@link Cipher} and the
+ * key spec are reused by all instances used on the same thread with the same key, since segments
+ * of a stream are loaded one after another on the loader thread and usually share the key.
  */
 /* package */ final class Aes128DataSource implements DataSource {
 
+  private static final int BLOCK_SIZE = 16;
+  private static final int ENCRYPTED_BUFFER_SIZE = 16 * 1024;
+
+  private static final ThreadLocal<CipherHolder> CIPHER_HOLDER =
+      new ThreadLocal<CipherHolder>() {
+        @Override
+        protected CipherHolder initialValue() {
+          return new CipherHolder();
+        }
+      };
+
   private final DataSource upstream;
   private final byte[] encryptionKey;
   private final byte[] encryptionIv;
 
-  private CipherInputStream cipherInputStream;
+  private Cipher cipher;
+  private byte[] encryptedBuffer;
+  private byte[] decryptedBuffer;
+  private int decryptedOffset;
+  private int decryptedLength;
+  private boolean inputEnded;
 
   /**
    * @param upstream The upstream {@link DataSource}.
@@ -65,45 +85,107 @@ import javax.crypto.spec.SecretKeySpec;
 
   @Override
   public long open(DataSpec dataSpec) throws IOException {
-    Cipher cipher;
-    try {
-      cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
-    } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
-      throw new RuntimeException(e);
-    }
-
-    Key cipherKey = new SecretKeySpec(encryptionKey, "AES");
-    AlgorithmParameterSpec cipherIV = new IvParameterSpec(encryptionIv);
-
-    try {
-      cipher.init(Cipher.DECRYPT_MODE, cipherKey, cipherIV);
-    } catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
-      throw new RuntimeException(e);
+    Cipher cipher = CIPHER_HOLDER.get().getCipher(encryptionKey, encryptionIv);
+    upstream.open(dataSpec);
+    this.cipher = cipher;
+    if (encryptedBuffer == null) {
+      encryptedBuffer = new byte[ENCRYPTED_BUFFER_SIZE];
+      decryptedBuffer = new byte[ENCRYPTED_BUFFER_SIZE + 2 * BLOCK_SIZE];
     }
-
-    DataSourceInputStream inputStream = new DataSourceInputStream(upstream, dataSpec);
-    cipherInputStream = new CipherInputStream(inputStream, cipher);
-    inputStream.open();
-
+    decryptedOffset = 0;
+    decryptedLength = 0;
+    inputEnded = false;
     return C.LENGTH_UNSET;
   }
 
   @Override
   public void close() throws IOException {
-    if (cipherInputStream != null) {
-      cipherInputStream = null;
+    if (cipher != null) {
+      cipher = null;
       upstream.close();
     }
   }
 
   @Override
   public int read(byte[] buffer, int offset, int readLength) throws IOException {
-    Assertions.checkState(cipherInputStream != null);
-    int bytesRead = cipherInputStream.read(buffer, offset, readLength);
-    if (bytesRead < 0) {
-      return C.RESULT_END_OF_INPUT;
+    Assertions.checkState(cipher != null);
+    if (readLength == 0) {
+      return 0;
+    }
+    while (true) {
+      if (decryptedLength > 0) {
+        // Data that did not fit into the caller's buffer on a previous read.
+        int bytesCopied = Math.min(decryptedLength, readLength);
+        System.arraycopy(decryptedBuffer, decryptedOffset, buffer, offset, bytesCopied);
+        decryptedOffset += bytesCopied;
+        decryptedLength -= bytesCopied;
+        return bytesCopied;
+      }
+      if (inputEnded) {
+        return C.RESULT_END_OF_INPUT;
+      }
+      // Read as much as lets the output fit into the caller's buffer. Providers report the output
+      // size differently, e.g. up to two blocks more than the input with PKCS7 padding.
+      int bytesToRead = Math.min(encryptedBuffer.length, readLength);
+      int excess = cipher.getOutputSize(bytesToRead) - readLength;
+      if (excess > 0) {
+        bytesToRead -= (excess + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+      }
+      if (bytesToRead <= 0) {
+        bytesToRead = encryptedBuffer.length;
+      }
+      int bytesRead = upstream.read(encryptedBuffer, 0, bytesToRead);
+      if (bytesRead == C.RESULT_END_OF_INPUT) {
+        inputEnded = true;
+        bytesRead = 0;
+      }
+      int bytesDecrypted = C.LENGTH_UNSET;
+      if (cipher.getOutputSize(bytesRead) <= readLength) {
+        try {
+          bytesDecrypted = decrypt(bytesRead, buffer, offset);
+        } catch (ShortBufferException e) {
+          // The provider needs more room than it reported, the cipher keeps its state and the
+          // input is decrypted into the internal buffer instead.
+        }
+      }
+      if (bytesDecrypted != C.LENGTH_UNSET) {
+        if (bytesDecrypted > 0) {
+          return bytesDecrypted;
+        }
+        continue;
+      }
+      int outputSize = cipher.getOutputSize(bytesRead);
+      if (decryptedBuffer.length < outputSize) {
+        decryptedBuffer = new byte[outputSize];
+      }
+      try {
+        bytesDecrypted = decrypt(bytesRead, decryptedBuffer, 0);
+      } catch (ShortBufferException e) {
+        throw new IOException(e);
+      }
+      decryptedOffset = 0;
+      decryptedLength = bytesDecrypted;
+    }
+  }
+
+  /**
+   * Decrypts the given number of bytes of the encrypted buffer, or finishes the decryption if the
+   * input has ended.
+   *
+   * @return The number of decrypted bytes written to the output.
+   */
+  private int decrypt(int inputLength, byte[] output, int outputOffset)
+      throws IOException, ShortBufferException {
+    try {
+      if (inputEnded) {
+        return cipher.doFinal(output, outputOffset);
+      }
+      return cipher.update(encryptedBuffer, 0, inputLength, output, outputOffset);
+    } catch (ShortBufferException e) {
+      throw e;
+    } catch (GeneralSecurityException e) {
+      throw new IOException(e);
     }
-    return bytesRead;
   }
 
   @Override
@@ -111,4 +193,32 @@ import javax.crypto.spec.SecretKeySpec;
     return upstream.getUri();
   }
 
+  /**
+   * Holds a {@link Cipher} and the key spec it was last initialized with.
+   */
+  private static final class CipherHolder {
+
+    private Cipher cipher;
+    private byte[] key;
+    private SecretKeySpec keySpec;
+
+    public Cipher getCipher(byte[] encryptionKey, byte[] encryptionIv) {
+      try {
+        if (cipher == null) {
+          cipher = Cipher.getInstance("AES/CBC/PKCS7Padding");
+        }
+        if (!Arrays.equals(key, encryptionKey)) {
+          key = encryptionKey;
+          keySpec = new SecretKeySpec(encryptionKey, "AES");
+        }
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(encryptionIv));
+      } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException
+          | InvalidAlgorithmParameterException e) {
+        throw new RuntimeException(e);
+      }
+      return cipher;
+    }
+
+  }
+
 }
@@ -49,6 +49,25 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
   public static final String VTT_FILE_EXTENSION = ".vtt";
   public static final String WEBVTT_FILE_EXTENSION = ".webvtt";
 
+  @DefaultTsPayloadReaderFactory.Flags private final int payloadReaderFactoryFlags;
+
+  /** Creates a factory for HLS segment extractors. */
+  public DefaultHlsExtractorFactory() {
+    this(0);
+  }
+
+  /**
+   * Creates a factory for HLS segment extractors.
+   *
+   * @param payloadReaderFactoryFlags Flags to add when constructing any
+   *     {@link DefaultTsPayloadReaderFactory} instances. Other flags may be added on top of
+   *     {@code payloadReaderFactoryFlags} when creating {@link DefaultTsPayloadReaderFactory}.
+   */
+  public DefaultHlsExtractorFactory(
+      @DefaultTsPayloadReaderFactory.Flags int payloadReaderFactoryFlags) {
+    this.payloadReaderFactoryFlags = payloadReaderFactoryFlags;
+  }
+
   @Override
   public Pair<Extractor, Boolean> createExtractor(Extractor previousExtractor, Uri uri,
                                                   Format format, List<Format> muxedCaptionFormats, DrmInitData drmInitData,
@@ -84,7 +103,8 @@ public final class DefaultHlsExtractorFactory implements HlsExtractorFactory {
     } else {
       // For any other file extension, we assume TS format.
       @DefaultTsPayloadReaderFactory.Flags
-      int esReaderFactoryFlags = DefaultTsPayloadReaderFactory.FLAG_IGNORE_SPLICE_INFO_STREAM;
+      int esReaderFactoryFlags =
+          payloadReaderFactoryFlags | DefaultTsPayloadReaderFactory.FLAG_IGNORE_SPLICE_INFO_STREAM;
       if (muxedCaptionFormats != null) {
         // The playlist declares closed caption renditions, we should ignore descriptors.
         esReaderFactoryFlags |= DefaultTsPayloadReaderFactory.FLAG_OVERRIDE_CAPTION_DESCRIPTORS;
@@ -40,7 +40,9 @@ import com.google.android.exoplayer2.util.Util;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Source of Hls (possibly adaptive) chunks.
@@ -82,6 +84,12 @@ import java.util.List;
 
   }
 
+  /**
+   * The number of encryption keys kept in memory, so that streams rotating between a few keys do
+   * not load a key again for every segment.
+   */
+  private static final int MAX_CACHED_ENCRYPTION_KEYS = 4;
+
   private final HlsExtractorFactory extractorFactory;
   private final DataSource mediaDataSource;
   private final DataSource encryptionDataSource;
@@ -97,6 +105,8 @@ import java.util.List;
   private HlsUrl expectedPlaylistUrl;
   private boolean independentSegments;
 
+  private final Map<Uri, byte[]> encryptionKeyCache;
+
   private Uri encryptionKeyUri;
   private byte[] encryptionKey;
   private String encryptionIvString;
@@ -131,6 +141,13 @@ import java.util.List;
     this.timestampAdjusterProvider = timestampAdjusterProvider;
     this.muxedCaptionFormats = muxedCaptionFormats;
     liveEdgeTimeUs = C.TIME_UNSET;
+    encryptionKeyCache =
+        new LinkedHashMap<Uri, byte[]>(MAX_CACHED_ENCRYPTION_KEYS + 1, 1, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Uri, byte[]> eldest) {
+            return size() > MAX_CACHED_ENCRYPTION_KEYS;
+          }
+        };
     Format[] variantFormats = new Format[variants.length];
     int[] initialTrackSelection = new int[variants.length];
     for (int i = 0; i < variants.length; i++) {
@@ -269,7 +286,8 @@ import java.util.List;
         chunkMediaSequence =
             Util.binarySearchFloor(
                     mediaPlaylist.segments,
-                    /* value= */ targetPositionInPlaylistUs,
+                    /* value= */ targetPositionInPlaylistUs
+                        + mediaPlaylist.segmentTimelineStartTimeUs,
                     /* inclusive= */ true,
                     /* stayInBounds= */ !playlistTracker.isLive() || previous == null)
                 + mediaPlaylist.mediaSequence;
@@ -311,6 +329,13 @@ import java.util.List;
     // Check if the segment is completely encrypted using the identity key format.
     if (segment.fullSegmentEncryptionKeyUri != null) {
       Uri keyUri = UriUtil.resolveToUri(mediaPlaylist.baseUri, segment.fullSegmentEncryptionKeyUri);
+      if (!keyUri.equals(encryptionKeyUri)) {
+        byte[] cachedKey = encryptionKeyCache.get(keyUri);
+        if (cachedKey != null) {
+          // The key has changed to one that was loaded before.
+          setEncryptionData(keyUri, segment.encryptionIV, cachedKey);
+        }
+      }
       if (!keyUri.equals(encryptionKeyUri)) {
         // Encryption is specified and the key has changed.
         out.chunk = newEncryptionKeyChunk(keyUri, segment.encryptionIV, selectedVariantIndex,
@@ -335,9 +360,10 @@ import java.util.List;
     // Compute start time of the next chunk.
     long positionOfPlaylistInPeriodUs =
         mediaPlaylist.startTimeUs - playlistTracker.getInitialStartTimeUs();
-    long segmentStartTimeInPeriodUs = positionOfPlaylistInPeriodUs + segment.relativeStartTimeUs;
+    long segmentStartTimeInPeriodUs =
+        positionOfPlaylistInPeriodUs + mediaPlaylist.getRelativeStartTimeUs(segment);
     int discontinuitySequence = mediaPlaylist.discontinuitySequence
-        + segment.relativeDiscontinuitySequence;
+        + mediaPlaylist.getRelativeDiscontinuitySequence(segment);
     TimestampAdjuster timestampAdjuster = timestampAdjusterProvider.getAdjuster(
         discontinuitySequence);
 
@@ -380,6 +406,7 @@ import java.util.List;
       scratchSpace = encryptionKeyChunk.getDataHolder();
       setEncryptionData(encryptionKeyChunk.dataSpec.uri, encryptionKeyChunk.iv,
           encryptionKeyChunk.getResult());
+      encryptionKeyCache.put(encryptionKeyChunk.dataSpec.uri, encryptionKeyChunk.getResult());
     }
   }
 
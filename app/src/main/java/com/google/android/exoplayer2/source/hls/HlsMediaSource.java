@@ -403,7 +403,7 @@ public final class HlsMediaSource extends BaseMediaSource
       List<HlsMediaPlaylist.Segment> segments = playlist.segments;
       if (windowDefaultStartPositionUs == C.TIME_UNSET) {
         windowDefaultStartPositionUs = segments.isEmpty() ? 0
-            : segments.get(Math.max(0, segments.size() - 3)).relativeStartTimeUs;
+            : playlist.getRelativeStartTimeUs(segments.get(Math.max(0, segments.size() - 3)));
       }
       timeline =
           new SinglePeriodTimeline(
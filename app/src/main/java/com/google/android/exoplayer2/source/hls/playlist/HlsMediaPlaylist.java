@@ -48,13 +48,17 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
     /** The duration of the segment in microseconds, as defined by #EXTINF. */
     public final long durationUs;
     /**
-     * The number of #EXT-X-DISCONTINUITY tags in the playlist before the segment.
+     * The discontinuity sequence number of the segment on the segment timeline of the playlist. See
+     * {@link HlsMediaPlaylist#getRelativeDiscontinuitySequence(Segment)} for the number of
+     * #EXT-X-DISCONTINUITY tags in the playlist before the segment.
      */
-    public final int relativeDiscontinuitySequence;
+    public final int timelineDiscontinuitySequence;
     /**
-     * The start time of the segment in microseconds, relative to the start of the playlist.
+     * The start time of the segment in microseconds on the segment timeline of the playlist. See
+     * {@link HlsMediaPlaylist#getRelativeStartTimeUs(Segment)} for the start time relative to the
+     * start of the playlist.
      */
-    public final long relativeStartTimeUs;
+    public final long timelineStartTimeUs;
     /**
      * The encryption identity key uri as defined by #EXT-X-KEY, or null if the segment does not use
      * full segment encryption with identity key.
@@ -91,8 +95,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
      * @param url See {@link #url}.
      * @param initializationSegment See {@link #initializationSegment}.
      * @param durationUs See {@link #durationUs}.
-     * @param relativeDiscontinuitySequence See {@link #relativeDiscontinuitySequence}.
-     * @param relativeStartTimeUs See {@link #relativeStartTimeUs}.
+     * @param timelineDiscontinuitySequence See {@link #timelineDiscontinuitySequence}.
+     * @param timelineStartTimeUs See {@link #timelineStartTimeUs}.
      * @param fullSegmentEncryptionKeyUri See {@link #fullSegmentEncryptionKeyUri}.
      * @param encryptionIV See {@link #encryptionIV}.
      * @param byterangeOffset See {@link #byterangeOffset}.
@@ -103,8 +107,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
         String url,
         Segment initializationSegment,
         long durationUs,
-        int relativeDiscontinuitySequence,
-        long relativeStartTimeUs,
+        int timelineDiscontinuitySequence,
+        long timelineStartTimeUs,
         String fullSegmentEncryptionKeyUri,
         String encryptionIV,
         long byterangeOffset,
@@ -113,8 +117,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
       this.url = url;
       this.initializationSegment = initializationSegment;
       this.durationUs = durationUs;
-      this.relativeDiscontinuitySequence = relativeDiscontinuitySequence;
-      this.relativeStartTimeUs = relativeStartTimeUs;
+      this.timelineDiscontinuitySequence = timelineDiscontinuitySequence;
+      this.timelineStartTimeUs = timelineStartTimeUs;
       this.fullSegmentEncryptionKeyUri = fullSegmentEncryptionKeyUri;
       this.encryptionIV = encryptionIV;
       this.byterangeOffset = byterangeOffset;
@@ -122,10 +126,11 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
       this.hasGapTag = hasGapTag;
     }
 
+    /** Compares {@link #timelineStartTimeUs} with the given time on the segment timeline. */
     @Override
-    public int compareTo(@NonNull Long relativeStartTimeUs) {
-      return this.relativeStartTimeUs > relativeStartTimeUs
-          ? 1 : (this.relativeStartTimeUs < relativeStartTimeUs ? -1 : 0);
+    public int compareTo(@NonNull Long timelineStartTimeUs) {
+      return this.timelineStartTimeUs > timelineStartTimeUs
+          ? 1 : (this.timelineStartTimeUs < timelineStartTimeUs ? -1 : 0);
     }
 
   }
@@ -193,6 +198,20 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
    * encryption.
    */
   public final DrmInitData drmInitData;
+  /**
+   * The start time in microseconds of the start of the playlist on its segment timeline.
+   *
+   * <p>The segment timeline is the time base of {@link Segment#timelineStartTimeUs}. A playlist
+   * parsed against a previous load of the same media playlist shares the segment timeline of the
+   * previous load, so that the segments both loads contain keep their {@link Segment} instances
+   * while the live window slides.
+   */
+  public final long segmentTimelineStartTimeUs;
+  /**
+   * The discontinuity sequence number of the start of the playlist on its segment timeline, the
+   * time base of {@link Segment#timelineDiscontinuitySequence}.
+   */
+  public final int segmentTimelineDiscontinuitySequence;
   /**
    * The list of segments in the playlist.
    */
@@ -217,6 +236,9 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
    * @param hasEndTag See {@link #hasEndTag}.
    * @param hasProgramDateTime See {@link #hasProgramDateTime}.
    * @param drmInitData See {@link #drmInitData}.
+   * @param segmentTimelineStartTimeUs See {@link #segmentTimelineStartTimeUs}.
+   * @param segmentTimelineDiscontinuitySequence See {@link
+   *     #segmentTimelineDiscontinuitySequence}.
    * @param segments See {@link #segments}.
    */
   public HlsMediaPlaylist(
@@ -234,6 +256,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
       boolean hasEndTag,
       boolean hasProgramDateTime,
       DrmInitData drmInitData,
+      long segmentTimelineStartTimeUs,
+      int segmentTimelineDiscontinuitySequence,
       List<Segment> segments) {
     super(baseUri, tags);
     this.playlistType = playlistType;
@@ -247,10 +271,12 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
     this.hasEndTag = hasEndTag;
     this.hasProgramDateTime = hasProgramDateTime;
     this.drmInitData = drmInitData;
+    this.segmentTimelineStartTimeUs = segmentTimelineStartTimeUs;
+    this.segmentTimelineDiscontinuitySequence = segmentTimelineDiscontinuitySequence;
     this.segments = Collections.unmodifiableList(segments);
     if (!segments.isEmpty()) {
       Segment last = segments.get(segments.size() - 1);
-      durationUs = last.relativeStartTimeUs + last.durationUs;
+      durationUs = getRelativeStartTimeUs(last) + last.durationUs;
     } else {
       durationUs = 0;
     }
@@ -283,6 +309,27 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
         || (segmentCount == otherSegmentCount && hasEndTag && !other.hasEndTag);
   }
 
+  /**
+   * Returns the start time of a segment of this playlist in microseconds, relative to the start of
+   * the playlist.
+   *
+   * @param segment A segment of this playlist.
+   * @return The start time of the segment relative to the start of the playlist.
+   */
+  public long getRelativeStartTimeUs(Segment segment) {
+    return segment.timelineStartTimeUs - segmentTimelineStartTimeUs;
+  }
+
+  /**
+   * Returns the number of #EXT-X-DISCONTINUITY tags in this playlist before a segment.
+   *
+   * @param segment A segment of this playlist.
+   * @return The discontinuity sequence number of the segment relative to the playlist.
+   */
+  public int getRelativeDiscontinuitySequence(Segment segment) {
+    return segment.timelineDiscontinuitySequence - segmentTimelineDiscontinuitySequence;
+  }
+
   /**
    * Returns the result of adding the duration of the playlist to its start time.
    */
@@ -315,6 +362,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
         hasEndTag,
         hasProgramDateTime,
         drmInitData,
+        segmentTimelineStartTimeUs,
+        segmentTimelineDiscontinuitySequence,
         segments);
   }
 
@@ -343,6 +392,8 @@ public final class HlsMediaPlaylist extends HlsPlaylist {
         /* hasEndTag= */ true,
         hasProgramDateTime,
         drmInitData,
+        segmentTimelineStartTimeUs,
+        segmentTimelineDiscontinuitySequence,
         segments);
   }
 
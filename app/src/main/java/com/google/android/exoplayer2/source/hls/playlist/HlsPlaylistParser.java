@@ -16,6 +16,7 @@
 package com.google.android.exoplayer2.source.hls.playlist;
 
 import android.net.Uri;
+import android.support.annotation.Nullable;
 import android.util.Base64;
 
 import com.google.android.exoplayer2.C;
@@ -143,6 +144,31 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
 
   @Override
   public HlsPlaylist parse(Uri uri, InputStream inputStream) throws IOException {
+    return parse(uri, inputStream, null);
+  }
+
+  /**
+   * Parses a playlist, reusing what is already known from a previous load of the same media
+   * playlist.
+   *
+   * <p>Refreshes of a live media playlist mostly repeat the segments of the previous load. A
+   * segment whose media sequence number and URI match a segment of {@code previousMediaPlaylist}
+   * is known: its #EXTINF tag is not parsed. The parsed playlist shares the segment timeline of
+   * {@code previousMediaPlaylist} (see {@link HlsMediaPlaylist#segmentTimelineStartTimeUs}), so
+   * while the live window slides, a known segment whose key, byte range and discontinuity match
+   * keeps its {@link Segment} instance. Only the segments appended since the previous load are
+   * created. The other tags are still parsed, as they carry state such as keys and
+   * discontinuities, but live playlists have few of them.
+   *
+   * @param uri The uri of the playlist.
+   * @param inputStream The input stream of the playlist.
+   * @param previousMediaPlaylist The media playlist previously loaded from {@code uri}, or null.
+   * @return The parsed playlist.
+   * @throws IOException If an error occurs reading or parsing the playlist.
+   */
+  public HlsPlaylist parse(
+      Uri uri, InputStream inputStream, @Nullable HlsMediaPlaylist previousMediaPlaylist)
+      throws IOException {
     BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
     Queue<String> extraLines = new ArrayDeque<>();
     String line;
@@ -167,7 +193,8 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
             || line.equals(TAG_DISCONTINUITY_SEQUENCE)
             || line.equals(TAG_ENDLIST)) {
           extraLines.add(line);
-          return parseMediaPlaylist(new LineIterator(extraLines, reader), uri.toString());
+          return parseMediaPlaylist(
+              new LineIterator(extraLines, reader), uri.toString(), previousMediaPlaylist);
         } else {
           extraLines.add(line);
         }
@@ -339,7 +366,8 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
         | (parseBooleanAttribute(line, REGEX_AUTOSELECT, false) ? C.SELECTION_FLAG_AUTOSELECT : 0);
   }
 
-  private static HlsMediaPlaylist parseMediaPlaylist(LineIterator iterator, String baseUri)
+  private static HlsMediaPlaylist parseMediaPlaylist(
+      LineIterator iterator, String baseUri, @Nullable HlsMediaPlaylist previousMediaPlaylist)
       throws IOException {
     @HlsMediaPlaylist.PlaylistType int playlistType = HlsMediaPlaylist.PLAYLIST_TYPE_UNKNOWN;
     long startOffsetUs = C.TIME_UNSET;
@@ -367,6 +395,12 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
     String encryptionIV = null;
     DrmInitData drmInitData = null;
 
+    // The #EXTINF line of the next segment, parsed only if the segment is not known already.
+    String mediaDurationLine = null;
+    // The start of the playlist on its segment timeline, set by its first segment.
+    long segmentTimelineStartTimeUs = C.TIME_UNSET;
+    int segmentTimelineDiscontinuitySequence = 0;
+
     String line;
     while (iterator.hasNext()) {
       line = iterator.next();
@@ -406,8 +440,7 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
       } else if (line.startsWith(TAG_VERSION)) {
         version = parseIntAttr(line, REGEX_VERSION);
       } else if (line.startsWith(TAG_MEDIA_DURATION)) {
-        segmentDurationUs =
-            (long) (parseDoubleAttr(line, REGEX_MEDIA_DURATION) * C.MICROS_PER_SECOND);
+        mediaDurationLine = line;
       } else if (line.startsWith(TAG_KEY)) {
         String method = parseOptionalStringAttr(line, REGEX_METHOD);
         String keyFormat = parseOptionalStringAttr(line, REGEX_KEYFORMAT);
@@ -461,6 +494,15 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
       } else if (line.equals(TAG_ENDLIST)) {
         hasEndTag = true;
       } else if (!line.startsWith("#")) {
+        Segment knownSegment = getKnownSegment(previousMediaPlaylist, segmentMediaSequence, line);
+        if (knownSegment != null) {
+          segmentDurationUs = knownSegment.durationUs;
+        } else if (mediaDurationLine != null) {
+          segmentDurationUs =
+              (long) (parseDoubleAttr(mediaDurationLine, REGEX_MEDIA_DURATION)
+                  * C.MICROS_PER_SECOND);
+        }
+        mediaDurationLine = null;
         String segmentEncryptionIV;
         if (encryptionKeyUri == null) {
           segmentEncryptionIV = null;
@@ -473,18 +515,52 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
         if (segmentByteRangeLength == C.LENGTH_UNSET) {
           segmentByteRangeOffset = 0;
         }
-        segments.add(
-            new Segment(
-                line,
-                initializationSegment,
-                segmentDurationUs,
-                relativeDiscontinuitySequence,
-                segmentStartTimeUs,
-                encryptionKeyUri,
-                segmentEncryptionIV,
-                segmentByteRangeOffset,
-                segmentByteRangeLength,
-                hasGapTag));
+        if (knownSegment != null
+            && (!isSameSegment(knownSegment.initializationSegment, initializationSegment)
+                || previousMediaPlaylist.discontinuitySequence
+                        + previousMediaPlaylist.getRelativeDiscontinuitySequence(knownSegment)
+                    != playlistDiscontinuitySequence + relativeDiscontinuitySequence
+                || !Util.areEqual(knownSegment.fullSegmentEncryptionKeyUri, encryptionKeyUri)
+                || !Util.areEqual(knownSegment.encryptionIV, segmentEncryptionIV)
+                || knownSegment.byterangeOffset != segmentByteRangeOffset
+                || knownSegment.byterangeLength != segmentByteRangeLength
+                || knownSegment.hasGapTag != hasGapTag)) {
+          knownSegment = null;
+        }
+        if (knownSegment != null) {
+          // Keeps a single initialization segment instance for the segments sharing it.
+          initializationSegment = knownSegment.initializationSegment;
+        }
+        if (segmentTimelineStartTimeUs == C.TIME_UNSET) {
+          // The first segment sets the segment timeline, the one of the previous load if known.
+          if (knownSegment != null) {
+            segmentTimelineStartTimeUs = knownSegment.timelineStartTimeUs - segmentStartTimeUs;
+            segmentTimelineDiscontinuitySequence =
+                knownSegment.timelineDiscontinuitySequence - relativeDiscontinuitySequence;
+          } else {
+            segmentTimelineStartTimeUs = 0;
+          }
+        }
+        if (knownSegment != null
+            && knownSegment.timelineStartTimeUs
+                == segmentTimelineStartTimeUs + segmentStartTimeUs
+            && knownSegment.timelineDiscontinuitySequence
+                == segmentTimelineDiscontinuitySequence + relativeDiscontinuitySequence) {
+          segments.add(knownSegment);
+        } else {
+          segments.add(
+              new Segment(
+                  knownSegment != null ? knownSegment.url : line,
+                  initializationSegment,
+                  segmentDurationUs,
+                  segmentTimelineDiscontinuitySequence + relativeDiscontinuitySequence,
+                  segmentTimelineStartTimeUs + segmentStartTimeUs,
+                  encryptionKeyUri,
+                  segmentEncryptionIV,
+                  segmentByteRangeOffset,
+                  segmentByteRangeLength,
+                  hasGapTag));
+        }
         segmentStartTimeUs += segmentDurationUs;
         segmentDurationUs = 0;
         if (segmentByteRangeLength != C.LENGTH_UNSET) {
@@ -509,9 +585,39 @@ public final class HlsPlaylistParser implements ParsingLoadable.Parser<HlsPlayli
         hasEndTag,
         /* hasProgramDateTime= */ playlistStartTimeUs != 0,
         drmInitData,
+        segmentTimelineStartTimeUs == C.TIME_UNSET ? 0 : segmentTimelineStartTimeUs,
+        segmentTimelineDiscontinuitySequence,
         segments);
   }
 
+  /**
+   * Returns the segment of {@code previousMediaPlaylist} with the given media sequence number, or
+   * null if there is no such segment or its uri differs from {@code url}.
+   */
+  @Nullable
+  private static Segment getKnownSegment(
+      @Nullable HlsMediaPlaylist previousMediaPlaylist, long mediaSequence, String url) {
+    if (previousMediaPlaylist == null) {
+      return null;
+    }
+    long index = mediaSequence - previousMediaPlaylist.mediaSequence;
+    if (index < 0 || index >= previousMediaPlaylist.segments.size()) {
+      return null;
+    }
+    Segment segment = previousMediaPlaylist.segments.get((int) index);
+    return url.equals(segment.url) ? segment : null;
+  }
+
+  /** Returns whether two initialization segments refer to the same byte range of the same uri. */
+  private static boolean isSameSegment(@Nullable Segment segment, @Nullable Segment other) {
+    if (segment == null || other == null) {
+      return segment == other;
+    }
+    return segment.url.equals(other.url)
+        && segment.byterangeOffset == other.byterangeOffset
+        && segment.byterangeLength == other.byterangeLength;
+  }
+
   private static SchemeData parseWidevineSchemeData(String line, String keyFormat)
       throws ParserException {
     if (KEYFORMAT_WIDEVINE_PSSH_BINARY.equals(keyFormat)) {
@@ -435,7 +435,8 @@ public final class HlsPlaylistTracker implements Loader.Callback<ParsingLoadable
     int oldPlaylistSize = oldPlaylist.segments.size();
     Segment firstOldOverlappingSegment = getFirstOldOverlappingSegment(oldPlaylist, loadedPlaylist);
     if (firstOldOverlappingSegment != null) {
-      return oldPlaylist.startTimeUs + firstOldOverlappingSegment.relativeStartTimeUs;
+      return oldPlaylist.startTimeUs
+          + oldPlaylist.getRelativeStartTimeUs(firstOldOverlappingSegment);
     } else if (oldPlaylistSize == loadedPlaylist.mediaSequence - oldPlaylist.mediaSequence) {
       return oldPlaylist.getEndTimeUs();
     } else {
@@ -458,8 +459,8 @@ public final class HlsPlaylistTracker implements Loader.Callback<ParsingLoadable
     Segment firstOldOverlappingSegment = getFirstOldOverlappingSegment(oldPlaylist, loadedPlaylist);
     if (firstOldOverlappingSegment != null) {
       return oldPlaylist.discontinuitySequence
-          + firstOldOverlappingSegment.relativeDiscontinuitySequence
-          - loadedPlaylist.segments.get(0).relativeDiscontinuitySequence;
+          + oldPlaylist.getRelativeDiscontinuitySequence(firstOldOverlappingSegment)
+          - loadedPlaylist.getRelativeDiscontinuitySequence(loadedPlaylist.segments.get(0));
     }
     return primaryUrlDiscontinuitySequence;
   }
@@ -35,6 +35,8 @@ public final class DefaultAllocator implements Allocator {
   private int allocatedCount;
   private int availableCount;
   private Allocation[] availableAllocations;
+  private long allocationCount;
+  private long reusedAllocationCount;
 
   /**
    * Constructs an instance without creating any {@link Allocation}s up front.
@@ -94,8 +96,10 @@ public final class DefaultAllocator implements Allocator {
   @Override
   public synchronized Allocation allocate() {
     allocatedCount++;
+    allocationCount++;
     Allocation allocation;
     if (availableCount > 0) {
+      reusedAllocationCount++;
       allocation = availableAllocations[--availableCount];
       availableAllocations[availableCount] = null;
     } else {
@@ -169,6 +173,35 @@ public final class DefaultAllocator implements Allocator {
     availableCount = targetAvailableCount;
   }
 
+  /**
+   * Discards all available allocations regardless of the target buffer size, except those backed by
+   * the initial allocation block. Allocations that are currently in use are not affected.
+   */
+  public synchronized void trimAll() {
+    int targetBufferSize = this.targetBufferSize;
+    this.targetBufferSize = 0;
+    trim();
+    this.targetBufferSize = targetBufferSize;
+  }
+
+  /** Returns the total size in bytes of the allocations that are available for reuse. */
+  public synchronized int getTotalBytesAvailable() {
+    return availableCount * individualAllocationSize;
+  }
+
+  /** Returns the number of calls to {@link #allocate()} since the allocator was created. */
+  public synchronized long getAllocationCount() {
+    return allocationCount;
+  }
+
+  /**
+   * Returns the number of calls to {@link #allocate()} since the allocator was created that were
+   * served with an available allocation rather than a new one.
+   */
+  public synchronized long getReusedAllocationCount() {
+    return reusedAllocationCount;
+  }
+
   @Override
   public synchronized int getTotalBytesAllocated() {
     return allocatedCount * individualAllocationSize;
@@ -25,11 +25,9 @@ import android.support.annotation.Nullable;
 import android.util.Log;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.TraceUtil;
-import com.google.android.exoplayer2.util.Util;
 import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.concurrent.ExecutorService;
 
 /**
  * Manages the background loading of {@link Loadable}s.
@@ -145,16 +143,28 @@ public final class Loader implements LoaderErrorThrower {
   public static final int DONT_RETRY = 2;
   public static final int DONT_RETRY_FATAL = 3;
 
-  private final ExecutorService downloadExecutorService;
+  private final LoaderExecutor.SerialExecutor downloadExecutorService;
 
   private LoadTask<? extends Loadable> currentTask;
   private IOException fatalError;
 
   /**
+   * Creates a loader that loads with {@link LoaderExecutor#PRIORITY_PLAYBACK}.
+   *
    * @param threadName A name for the loader's thread.
    */
   public Loader(String threadName) {
-    this.downloadExecutorService = Util.newSingleThreadExecutor(threadName);
+    this(threadName, LoaderExecutor.PRIORITY_PLAYBACK);
+  }
+
+  /**
+   * @param threadName A name for the loader's thread.
+   * @param priority The {@link LoaderExecutor.Priority} of the loads. Loads run on the threads of
+   *     the {@link LoaderExecutor} shared by the process, one at a time.
+   */
+  public Loader(String threadName, @LoaderExecutor.Priority int priority) {
+    this.downloadExecutorService =
+        LoaderExecutor.getInstance().newSerialExecutor(threadName, priority);
   }
 
   /**
@@ -258,7 +268,6 @@ public final class Loader implements LoaderErrorThrower {
     private IOException currentError;
     private int errorCount;
 
-    private volatile Thread executorThread;
     private volatile boolean released;
 
     public LoadTask(Looper looper, T loadable, Loader.Callback<T> callback,
@@ -296,9 +305,8 @@ public final class Loader implements LoaderErrorThrower {
         }
       } else {
         loadable.cancelLoad();
-        if (executorThread != null) {
-          executorThread.interrupt();
-        }
+        // Interrupts the thread only while it runs this task, it is shared with other loaders.
+        downloadExecutorService.interrupt(this);
       }
       if (released) {
         finish();
@@ -310,7 +318,6 @@ public final class Loader implements LoaderErrorThrower {
     @Override
     public void run() {
       try {
-        executorThread = Thread.currentThread();
         if (!loadable.isLoadCanceled()) {
           TraceUtil.beginSection("load:" + loadable.getClass().getSimpleName());
           try {
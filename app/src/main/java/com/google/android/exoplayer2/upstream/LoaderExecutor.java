@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import android.os.SystemClock;
+import android.support.annotation.IntDef;
+import android.util.Log;
+import com.google.android.exoplayer2.util.Assertions;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A bounded pool of loading threads shared by all {@link Loader}s of the process.
+ *
+ * <p>Tasks are queued per priority and a free thread always takes the oldest task of the most
+ * important priority. Playback tasks never wait for a busy thread: they take an idle thread or a
+ * new one, beyond {@code maxThreads} if needed, since live loads run for as long as the playback
+ * and each playback {@link Loader} used to have a thread of its own. Prefetch and probe tasks
+ * together never occupy more than {@code maxThreads - reservedPlaybackThreads} threads and only
+ * start threads while there are fewer than {@code maxThreads}. Threads are created on demand and
+ * exit after being idle for {@link #KEEP_ALIVE_MS}.
+ *
+ * <p>Tasks are submitted through {@link SerialExecutor}s. The tasks of a serial executor run one at
+ * a time and in submission order, which preserves the single loading thread semantics that {@link
+ * Loader} relies on.
+ */
+public final class LoaderExecutor {
+
+  /** Priority of the tasks. Lower values are more important. */
+  @Retention(RetentionPolicy.SOURCE)
+  @IntDef({PRIORITY_PLAYBACK, PRIORITY_PREFETCH, PRIORITY_PROBE})
+  public @interface Priority {}
+  /** Loads the player needs to continue playback. */
+  public static final int PRIORITY_PLAYBACK = 0;
+  /** Loads of data the player is likely to need soon. */
+  public static final int PRIORITY_PREFETCH = 1;
+  /** Loads of data the player may never need, e.g. format or availability probes. */
+  public static final int PRIORITY_PROBE = 2;
+
+  /** The default maximum number of threads started for prefetch and probe tasks. */
+  public static final int DEFAULT_MAX_THREADS = 8;
+  /** The default number of threads prefetch and probe tasks cannot occupy. */
+  public static final int DEFAULT_RESERVED_PLAYBACK_THREADS = 2;
+
+  private static final String TAG = "LoaderExecutor";
+  private static final int PRIORITY_COUNT = 3;
+  private static final long KEEP_ALIVE_MS = 30000;
+
+  private static LoaderExecutor instance;
+
+  private final int maxThreads;
+  private final int maxLowPriorityThreads;
+  private final ArrayDeque<Task>[] queues;
+  private final long[] startedTaskCounts;
+  private final long[] totalWaitTimesMs;
+  private final long[] maxWaitTimesMs;
+
+  private int threadCount;
+  private int idleThreadCount;
+  private int lowPriorityTaskCount;
+
+  /** Returns the executor shared by all {@link Loader}s of the process. */
+  public static synchronized LoaderExecutor getInstance() {
+    if (instance == null) {
+      instance = new LoaderExecutor(DEFAULT_MAX_THREADS, DEFAULT_RESERVED_PLAYBACK_THREADS);
+    }
+    return instance;
+  }
+
+  /**
+   * @param maxThreads The maximum number of threads started for prefetch and probe tasks.
+   * @param reservedPlaybackThreads The number of threads prefetch and probe tasks cannot occupy.
+   */
+  @SuppressWarnings("unchecked")
+  public LoaderExecutor(int maxThreads, int reservedPlaybackThreads) {
+    Assertions.checkArgument(0 <= reservedPlaybackThreads && reservedPlaybackThreads < maxThreads);
+    this.maxThreads = maxThreads;
+    maxLowPriorityThreads = maxThreads - reservedPlaybackThreads;
+    queues = new ArrayDeque[PRIORITY_COUNT];
+    for (int i = 0; i < PRIORITY_COUNT; i++) {
+      queues[i] = new ArrayDeque<>();
+    }
+    startedTaskCounts = new long[PRIORITY_COUNT];
+    totalWaitTimesMs = new long[PRIORITY_COUNT];
+    maxWaitTimesMs = new long[PRIORITY_COUNT];
+  }
+
+  /**
+   * Creates a serial executor that submits its tasks to this executor.
+   *
+   * @param name The name threads take while running the tasks.
+   * @param priority The {@link Priority} of the tasks.
+   * @return The serial executor.
+   */
+  public SerialExecutor newSerialExecutor(String name, @Priority int priority) {
+    return new SerialExecutor(name, priority);
+  }
+
+  /** Returns the number of tasks of the given priority waiting for a thread. */
+  public synchronized int getQueueDepth(@Priority int priority) {
+    return queues[priority].size();
+  }
+
+  /**
+   * Returns the average time tasks of the given priority waited for a thread, in milliseconds, or 0
+   * if no such task was started.
+   */
+  public synchronized long getAverageWaitTimeMs(@Priority int priority) {
+    long startedTaskCount = startedTaskCounts[priority];
+    return startedTaskCount == 0 ? 0 : totalWaitTimesMs[priority] / startedTaskCount;
+  }
+
+  /** Returns the longest time a task of the given priority waited for a thread, in milliseconds. */
+  public synchronized long getMaxWaitTimeMs(@Priority int priority) {
+    return maxWaitTimesMs[priority];
+  }
+
+  /** Returns the number of threads, busy or idle. */
+  public synchronized int getThreadCount() {
+    return threadCount;
+  }
+
+  private synchronized void submit(Task task) {
+    @Priority int priority = task.owner.priority;
+    queues[priority].add(task);
+    if (idleThreadCount > 0) {
+      notifyAll();
+    }
+    // Idle threads take playback tasks first, a playback task waits only for an idle thread.
+    boolean startThread =
+        priority == PRIORITY_PLAYBACK
+            ? queues[PRIORITY_PLAYBACK].size() > idleThreadCount
+            : idleThreadCount == 0 && threadCount < maxThreads;
+    if (startThread) {
+      threadCount++;
+      new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  runWorker();
+                }
+              },
+              TAG)
+          .start();
+    }
+  }
+
+  private void runWorker() {
+    try {
+      Task task;
+      while ((task = takeTask()) != null) {
+        runTask(task);
+      }
+    } finally {
+      synchronized (this) {
+        threadCount--;
+      }
+    }
+  }
+
+  /** Returns the next task to run, or null if the thread should exit. */
+  private synchronized Task takeTask() {
+    long deadlineMs = SystemClock.elapsedRealtime() + KEEP_ALIVE_MS;
+    Task task;
+    while ((task = pollTask()) == null) {
+      long remainingMs = deadlineMs - SystemClock.elapsedRealtime();
+      if (remainingMs <= 0) {
+        return null;
+      }
+      idleThreadCount++;
+      try {
+        wait(remainingMs);
+      } catch (InterruptedException e) {
+        // Only tasks are interrupted, a stale interrupt must not stop the worker.
+      } finally {
+        idleThreadCount--;
+      }
+    }
+    @Priority int priority = task.owner.priority;
+    long waitTimeMs = SystemClock.elapsedRealtime() - task.submitTimeMs;
+    startedTaskCounts[priority]++;
+    totalWaitTimesMs[priority] += waitTimeMs;
+    maxWaitTimesMs[priority] = Math.max(maxWaitTimesMs[priority], waitTimeMs);
+    if (priority != PRIORITY_PLAYBACK) {
+      lowPriorityTaskCount++;
+    }
+    return task;
+  }
+
+  private Task pollTask() {
+    for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+      if (queues[priority].isEmpty()
+          || (priority != PRIORITY_PLAYBACK && lowPriorityTaskCount >= maxLowPriorityThreads)) {
+        continue;
+      }
+      return queues[priority].removeFirst();
+    }
+    return null;
+  }
+
+  private void runTask(Task task) {
+    Thread thread = Thread.currentThread();
+    thread.setName(task.owner.name);
+    try {
+      task.owner.onTaskStarted(thread, task.runnable);
+      task.runnable.run();
+    } catch (RuntimeException e) {
+      Log.e(TAG, "Unexpected exception running task", e);
+    } finally {
+      Task nextTask = task.owner.onTaskFinished();
+      // Clears an interrupt aimed at the task, so that it does not leak into another one.
+      Thread.interrupted();
+      thread.setName(TAG);
+      synchronized (this) {
+        if (task.owner.priority != PRIORITY_PLAYBACK) {
+          lowPriorityTaskCount--;
+        }
+      }
+      if (nextTask != null) {
+        submit(nextTask);
+      }
+    }
+  }
+
+  /**
+   * Runs its tasks one at a time and in submission order on the threads of the {@link
+   * LoaderExecutor}.
+   */
+  public final class SerialExecutor implements Executor {
+
+    private final String name;
+    private final @Priority int priority;
+    private final ArrayDeque<Runnable> pendingTasks;
+
+    private boolean active;
+    private boolean shutdown;
+    private Thread runningThread;
+    private Runnable runningTask;
+
+    private SerialExecutor(String name, @Priority int priority) {
+      this.name = name;
+      this.priority = priority;
+      pendingTasks = new ArrayDeque<>();
+    }
+
+    /**
+     * Submits a task.
+     *
+     * @throws RejectedExecutionException If the executor is shut down.
+     */
+    @Override
+    public void execute(Runnable runnable) {
+      Task task;
+      synchronized (this) {
+        if (shutdown) {
+          throw new RejectedExecutionException(name + " is shut down");
+        }
+        if (active) {
+          pendingTasks.add(runnable);
+          return;
+        }
+        active = true;
+        task = new Task(this, runnable);
+      }
+      submit(task);
+    }
+
+    /** Stops accepting tasks. Tasks submitted before still run. */
+    public synchronized void shutdown() {
+      shutdown = true;
+    }
+
+    /** Stops accepting tasks, drops the tasks that did not start and interrupts the running one. */
+    public synchronized void shutdownNow() {
+      shutdown = true;
+      pendingTasks.clear();
+      if (runningThread != null) {
+        runningThread.interrupt();
+      }
+    }
+
+    /**
+     * Interrupts the given task if it is running. A task that finished, even if its thread is
+     * running another task already, or that did not start yet is not affected.
+     */
+    public synchronized void interrupt(Runnable runnable) {
+      if (runningThread != null && runningTask == runnable) {
+        runningThread.interrupt();
+      }
+    }
+
+    private synchronized void onTaskStarted(Thread thread, Runnable runnable) {
+      runningThread = thread;
+      runningTask = runnable;
+    }
+
+    /** Returns the next task to submit, or null if there is none. */
+    private synchronized Task onTaskFinished() {
+      runningThread = null;
+      runningTask = null;
+      Runnable runnable = pendingTasks.poll();
+      if (runnable == null) {
+        active = false;
+        return null;
+      }
+      return new Task(this, runnable);
+    }
+
+  }
+
+  private static final class Task {
+
+    public final SerialExecutor owner;
+    public final Runnable runnable;
+    public final long submitTimeMs;
+
+    public Task(SerialExecutor owner, Runnable runnable) {
+      this.owner = owner;
+      this.runnable = runnable;
+      submitTimeMs = SystemClock.elapsedRealtime();
+    }
+
+  }
+
+}
@@ -21,6 +21,7 @@ import android.os.Build;
 
 import com.crashlytics.android.Crashlytics;
 import com.yuriy.openradio.business.storage.AppPreferencesManager;
+import com.yuriy.openradio.exo.AllocationPool;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.AppUtils;
 
@@ -60,7 +61,17 @@ public final class MainApp extends Application {
         thread.start();
     }
 
+    @Override
+    public void onTrimMemory(final int level) {
+        super.onTrimMemory(level);
+        AllocationPool.onTrimMemory(level);
+    }
 
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        AllocationPool.onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
 
     /**
      * Print first log message with summary information about device and application.
@@ -27,6 +27,7 @@ import com.yuriy.openradio.business.JSONDataParserImpl;
 import com.yuriy.openradio.business.broadcast.ConnectivityReceiver;
 import com.yuriy.openradio.net.Downloader;
 import com.yuriy.openradio.net.HTTPDownloaderImpl;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.FabricUtils;
 import com.yuriy.openradio.utils.RadioStationChecker;
@@ -47,8 +48,6 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Created by Yuriy Chernyshov
@@ -232,12 +231,12 @@ public final class APIServiceProviderImpl implements APIServiceProvider {
 
         final CountDownLatch completeLatch = new CountDownLatch(radioStations.size());
         final Set<String> passedUrls = new TreeSet<>();
-        final ExecutorService executor = Executors.newFixedThreadPool(5);
         for (final RadioStation radioStationVO : radioStations) {
-            executor.submit(
+            AppExecutors.probe().execute(
                     new RadioStationChecker(
                             // TODO: Probably check all variants
-                            radioStationVO.getMediaStream().getVariant(0).getUrl(), completeLatch, passedUrls
+                            radioStationVO.getMediaStream().getVariant(0).getUrl(), completeLatch, passedUrls,
+                            downloader.getCancellationToken()
                     )
             );
         }
@@ -57,11 +57,28 @@ public final class ConnectivityReceiver extends AbstractReceiver {
          * @param isConnected Whther or not connectivity available.
          */
         void onConnectivityChange(final boolean isConnected);
+
+        /**
+         * Call when the default network changed to a preferred one, e.g. from mobile to Wi-Fi,
+         * while the previous network may still be connected.
+         */
+        void onPreferredNetworkAvailable();
     }
 
     private static final String CLASS_NAME = ConnectivityReceiver.class.getSimpleName();
+
+    /**
+     * Type of the network used when there is no connected network.
+     */
+    private static final int TYPE_NONE = -1;
+
     private final ConnectivityChangeListener mListener;
 
+    /**
+     * Type of the default network, or {@link #TYPE_NONE} if there is no connected one.
+     */
+    private int mActiveNetworkType = TYPE_NONE;
+
     /**
      * Main constructor.
      *
@@ -88,6 +105,25 @@ public final class ConnectivityReceiver extends AbstractReceiver {
         getQuality(networkInfo);
         AppLogger.i(CLASS_NAME + " network connected:" + networkInfo.isConnected());
         mListener.onConnectivityChange(networkInfo.isConnected());
+
+        final NetworkInfo activeNetworkInfo = manager.getActiveNetworkInfo();
+        final int previousType = mActiveNetworkType;
+        mActiveNetworkType = activeNetworkInfo != null && activeNetworkInfo.isConnected()
+                ? activeNetworkInfo.getType() : TYPE_NONE;
+        if (previousType != TYPE_NONE
+                && previousType != mActiveNetworkType
+                && isPreferred(mActiveNetworkType)) {
+            AppLogger.i(CLASS_NAME + " preferred network available:" + mActiveNetworkType);
+            mListener.onPreferredNetworkAvailable();
+        }
+    }
+
+    /**
+     * @param type Type of the network.
+     * @return {@code true} if network is unmetered and usually faster than the mobile one.
+     */
+    private static boolean isPreferred(final int type) {
+        return type == ConnectivityManager.TYPE_WIFI || type == ConnectivityManager.TYPE_ETHERNET;
     }
 
     /**
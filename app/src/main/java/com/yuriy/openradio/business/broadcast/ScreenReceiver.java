@@ -20,6 +20,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.yuriy.openradio.utils.AppLogger;
@@ -32,14 +33,34 @@ import com.yuriy.openradio.utils.AppLogger;
  */
 public final class ScreenReceiver {
 
+    /**
+     * Listener of the screen state changes.
+     */
+    public interface Listener {
+
+        /**
+         * @param isScreenOn Whether the screen turned on.
+         */
+        void onScreenStateChanged(boolean isScreenOn);
+    }
+
     private final BroadcastReceiver mReceiver;
 
     /**
      * Default constructor.
      */
     public ScreenReceiver() {
+        this(null);
+    }
+
+    /**
+     * Main constructor.
+     *
+     * @param listener Listener of the screen state changes.
+     */
+    public ScreenReceiver(@Nullable final Listener listener) {
         super();
-        mReceiver = new BroadcastReceiverImpl();
+        mReceiver = new BroadcastReceiverImpl(listener);
     }
 
     public final void register(final Context context) {
@@ -55,8 +76,15 @@ public final class ScreenReceiver {
 
     private static final class BroadcastReceiverImpl extends BroadcastReceiver {
 
-        public BroadcastReceiverImpl() {
+        /**
+         * Listener of the screen state changes.
+         */
+        @Nullable
+        private final Listener mListener;
+
+        public BroadcastReceiverImpl(@Nullable final Listener listener) {
             super();
+            mListener = listener;
         }
 
         @Override
@@ -67,8 +95,14 @@ public final class ScreenReceiver {
             final String action = intent.getAction();
             if (TextUtils.equals(action, Intent.ACTION_SCREEN_OFF)) {
                 AppLogger.i("Screen OFF");
+                if (mListener != null) {
+                    mListener.onScreenStateChanged(false);
+                }
             } else if (TextUtils.equals(action, Intent.ACTION_SCREEN_ON)) {
                 AppLogger.i("Screen ON");
+                if (mListener != null) {
+                    mListener.onScreenStateChanged(true);
+                }
             }
         }
     }
@@ -1,21 +1,27 @@
 package com.yuriy.openradio.business.mediaitem;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.media.MediaBrowserCompat;
 import android.support.v4.media.MediaDescriptionCompat;
 import android.support.v4.media.MediaMetadataCompat;
 
 import com.yuriy.openradio.R;
 import com.yuriy.openradio.business.storage.FavoritesStorage;
+import com.yuriy.openradio.net.CancellationToken;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.utils.MediaItemHelper;
-import com.yuriy.openradio.utils.QueueHelper;
 import com.yuriy.openradio.vo.RadioStation;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by Chernyshov Yurii
@@ -33,6 +39,32 @@ public abstract class IndexableMediaItemCommand implements MediaItemCommand {
      */
     private AtomicInteger mPageIndex;
 
+    /**
+     * Loader of the pages of the current list, {@code null} if the list is not paged.
+     */
+    private volatile PageLoader mPageLoader;
+
+    /**
+     * Next page of the current list loaded ahead of the request of it. At most one page is
+     * prefetched, which bounds the memory it takes.
+     */
+    private final AtomicReference<Prefetch> mPrefetch = new AtomicReference<>();
+
+    /**
+     * Loader of a page of the Radio Stations List.
+     */
+    interface PageLoader {
+
+        /**
+         * Loads the page, on a worker thread.
+         *
+         * @param pageNumber Number of the page.
+         * @return Radio Stations of the page.
+         */
+        @NonNull
+        List<RadioStation> load(final int pageNumber);
+    }
+
     IndexableMediaItemCommand() {
         super();
         mPageIndex = new AtomicInteger(UrlBuilder.FIRST_PAGE_INDEX);
@@ -45,6 +77,8 @@ public abstract class IndexableMediaItemCommand implements MediaItemCommand {
         if (!shareObject.isSameCatalogue()) {
             AppLogger.d("Not the same catalogue, clear list");
             mPageIndex.set(UrlBuilder.FIRST_PAGE_INDEX);
+            mPageLoader = null;
+            cancelPrefetch();
             shareObject.getRadioStations().clear();
         }
     }
@@ -55,9 +89,37 @@ public abstract class IndexableMediaItemCommand implements MediaItemCommand {
         return number;
     }
 
+    /**
+     * Loads the next page of the list, or takes it from the prefetch if it is there or on the way.
+     * Once the page is delivered, the page after it is prefetched with the same loader.
+     *
+     * @param shareObject Share object of the request.
+     * @param loader      Loader of the pages of the list.
+     * @return Radio Stations of the page.
+     */
+    @NonNull
+    List<RadioStation> loadPage(@NonNull final MediaItemShareObject shareObject,
+                                @NonNull final PageLoader loader) {
+        mPageLoader = loader;
+        final int pageNumber = getPageNumber();
+        final Prefetch prefetch = mPrefetch.getAndSet(null);
+        if (prefetch != null) {
+            final List<RadioStation> page = prefetch.get(pageNumber, shareObject.getCancellationToken());
+            if (page != null) {
+                AppLogger.d(CLASS_NAME + " page " + pageNumber + " taken from prefetch");
+                return page;
+            }
+        }
+        return loader.load(pageNumber);
+    }
+
     void handleDataLoaded(final IUpdatePlaybackState playbackStateListener,
                           @NonNull final MediaItemShareObject shareObject,
                           final List<RadioStation> list) {
+        if (shareObject.isCancelled()) {
+            AppLogger.d(CLASS_NAME + " superseded, skip " + list.size() + " items");
+            return;
+        }
         AppLogger.d(CLASS_NAME + " Loaded " + list.size() + " items, index " + mPageIndex.get());
         if (!shareObject.isUseCache() && list.isEmpty()) {
 
@@ -86,11 +148,19 @@ public abstract class IndexableMediaItemCommand implements MediaItemCommand {
             return;
         }
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            shareObject.getRadioStations().addAll(list);
-        }
+        final List<RadioStation> radioStations = shareObject.getRadioStations().addAll(list);
 
-        for (final RadioStation radioStation : shareObject.getRadioStations()) {
+        // Pages after the first one are sent alone, the client appends them to the items it has.
+        // Android Auto replaces the list on every result, so it gets all the pages loaded so far,
+        // as does a client that restores its state from the cache.
+        final boolean isPageDelta = !shareObject.isUseCache() && !shareObject.isAndroidAuto()
+                && mPageIndex.get() > UrlBuilder.FIRST_PAGE_INDEX + 1;
+
+        final List<RadioStation> items = isPageDelta ? list : radioStations;
+        final boolean[] areFavorites = FavoritesStorage.areFavorites(items, shareObject.getContext());
+
+        for (int i = 0; i < items.size(); i++) {
+            final RadioStation radioStation = items.get(i);
 
             final MediaDescriptionCompat mediaDescription = MediaItemHelper.buildMediaDescriptionFromRadioStation(
                     shareObject.getContext(),
@@ -100,13 +170,122 @@ public abstract class IndexableMediaItemCommand implements MediaItemCommand {
             final MediaBrowserCompat.MediaItem mediaItem = new MediaBrowserCompat.MediaItem(
                     mediaDescription, MediaBrowserCompat.MediaItem.FLAG_PLAYABLE);
 
-            if (FavoritesStorage.isFavorite(radioStation, shareObject.getContext())) {
+            if (areFavorites[i]) {
                 MediaItemHelper.updateFavoriteField(mediaItem, true);
             }
+            if (isPageDelta) {
+                MediaItemHelper.updatePageDeltaField(mediaItem, true);
+            }
 
             shareObject.getMediaItems().add(mediaItem);
         }
 
         shareObject.getResult().sendResult(shareObject.getMediaItems());
+
+        if (!shareObject.isUseCache()) {
+            prefetch(shareObject);
+        }
+    }
+
+    /**
+     * Starts loading the next page of the list in background.
+     *
+     * @param shareObject Share object of the request of the page delivered last.
+     */
+    private void prefetch(@NonNull final MediaItemShareObject shareObject) {
+        final PageLoader loader = mPageLoader;
+        if (loader == null) {
+            return;
+        }
+        final CancellationToken token = shareObject.getCancellationToken();
+        final int pageNumber = mPageIndex.get();
+        AppLogger.d(CLASS_NAME + " prefetch page " + pageNumber);
+        final Future<List<RadioStation>> future = AppExecutors.prefetch().submit(
+                () -> token.isCancelled() ? null : loader.load(pageNumber)
+        );
+        final Prefetch previous = mPrefetch.getAndSet(new Prefetch(pageNumber, token, future));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Cancels the prefetch of the current list, if any.
+     */
+    private void cancelPrefetch() {
+        final Prefetch prefetch = mPrefetch.getAndSet(null);
+        if (prefetch != null) {
+            prefetch.cancel();
+        }
+    }
+
+    /**
+     * Page of the list that is loaded ahead of the request of it.
+     */
+    private static final class Prefetch {
+
+        /**
+         * Number of the page.
+         */
+        private final int mPageNumber;
+
+        /**
+         * Token of the requests the page is loaded for.
+         */
+        @NonNull
+        private final CancellationToken mToken;
+
+        /**
+         * Radio Stations of the page, {@code null} if the prefetch was skipped.
+         */
+        @NonNull
+        private final Future<List<RadioStation>> mFuture;
+
+        /**
+         * Main constructor.
+         *
+         * @param pageNumber Number of the page.
+         * @param token      Token of the requests the page is loaded for.
+         * @param future     Radio Stations of the page.
+         */
+        private Prefetch(final int pageNumber,
+                         @NonNull final CancellationToken token,
+                         @NonNull final Future<List<RadioStation>> future) {
+            super();
+            mPageNumber = pageNumber;
+            mToken = token;
+            mFuture = future;
+        }
+
+        /**
+         * Waits for the page if it is still loading.
+         *
+         * @param pageNumber Number of the requested page.
+         * @param token      Token of the request.
+         * @return Radio Stations of the page, or {@code null} if the prefetch is of another page or
+         * of another list, or failed.
+         */
+        @Nullable
+        private List<RadioStation> get(final int pageNumber, final CancellationToken token) {
+            if (mPageNumber != pageNumber || mToken != token || token.isCancelled()) {
+                cancel();
+                return null;
+            }
+            try {
+                return mFuture.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException | CancellationException e) {
+                AppLogger.w(CLASS_NAME + " prefetch of page " + mPageNumber + " failed:" + e);
+            }
+            return null;
+        }
+
+        /**
+         * Cancels the page.
+         */
+        private void cancel() {
+            mFuture.cancel(true);
+        }
     }
 }
@@ -23,6 +23,7 @@ import android.support.v4.media.MediaDescriptionCompat;
 
 import com.yuriy.openradio.R;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.utils.MediaIDHelper;
@@ -57,12 +58,12 @@ public final class MediaItemAllCategories implements MediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load all categories into menu
                     loadAllCategories(playbackStateListener, shareObject);
                 }
-        );
+        ));
     }
 
     /**
@@ -78,6 +79,11 @@ public final class MediaItemAllCategories implements MediaItemCommand {
                 shareObject.getDownloader(),
                 UrlBuilder.getAllCategoriesUrl(shareObject.getContext()));
 
+        if (shareObject.isCancelled()) {
+            AppLogger.d(LOG_TAG + " superseded, skip result");
+            return;
+        }
+
         if (list.isEmpty() && playbackStateListener != null) {
             playbackStateListener.updatePlaybackState(
                     shareObject.getContext().getString(R.string.no_data_message)
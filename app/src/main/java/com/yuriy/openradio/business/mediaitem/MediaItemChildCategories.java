@@ -19,8 +19,8 @@ package com.yuriy.openradio.business.mediaitem;
 import android.support.annotation.NonNull;
 
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
-import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.vo.RadioStation;
 
@@ -55,7 +55,7 @@ public final class MediaItemChildCategories extends IndexableMediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load Radio Stations into menu
                     // Load all categories into menu
@@ -64,19 +64,22 @@ public final class MediaItemChildCategories extends IndexableMediaItemCommand {
                         final String childMenuId = shareObject.getParentId()
                                 .replace(MediaIDHelper.MEDIA_ID_CHILD_CATEGORIES, "");
                         list.addAll(
-                                shareObject.getServiceProvider().getStations(
-                                        shareObject.getDownloader(),
-                                        UrlBuilder.getStationsInCategory(
-                                                shareObject.getContext(),
-                                                childMenuId,
-                                                getPageNumber(),
-                                                UrlBuilder.ITEMS_PER_PAGE
+                                loadPage(
+                                        shareObject,
+                                        pageNumber -> shareObject.getServiceProvider().getStations(
+                                                shareObject.getDownloader(),
+                                                UrlBuilder.getStationsInCategory(
+                                                        shareObject.getContext(),
+                                                        childMenuId,
+                                                        pageNumber,
+                                                        UrlBuilder.ITEMS_PER_PAGE
+                                                )
                                         )
                                 )
                         );
                     }
                     handleDataLoaded(playbackStateListener, shareObject, list);
                 }
-        );
+        ));
     }
 }
@@ -23,12 +23,13 @@ import android.support.v4.media.MediaBrowserCompat;
 import android.support.v4.media.MediaDescriptionCompat;
 
 import com.yuriy.openradio.R;
-import com.yuriy.openradio.vo.Country;
 import com.yuriy.openradio.business.BitmapsOverlay;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.utils.MediaIDHelper;
+import com.yuriy.openradio.vo.Country;
 
 import java.util.Collections;
 import java.util.Comparator;
@@ -61,12 +62,12 @@ public final class MediaItemCountriesList implements MediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load all countries into menu
                     loadAllCountries(playbackStateListener, shareObject);
                 }
-        );
+        ));
     }
 
     /**
@@ -83,6 +84,11 @@ public final class MediaItemCountriesList implements MediaItemCommand {
                 shareObject.getDownloader(),
                 UrlBuilder.getAllCountriesUrl(shareObject.getContext()));
 
+        if (shareObject.isCancelled()) {
+            AppLogger.d(LOG_TAG + " superseded, skip result");
+            return;
+        }
+
         if (list.isEmpty() && playbackStateListener != null) {
             playbackStateListener.updatePlaybackState(
                     shareObject.getContext().getString(R.string.no_data_message)
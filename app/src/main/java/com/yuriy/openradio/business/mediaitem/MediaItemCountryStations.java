@@ -19,8 +19,8 @@ package com.yuriy.openradio.business.mediaitem;
 import android.support.annotation.NonNull;
 
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
-import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.vo.RadioStation;
 
 import java.util.ArrayList;
@@ -54,26 +54,29 @@ public final class MediaItemCountryStations extends IndexableMediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load all categories into menu
                     // Load all categories into menu
                     final List<RadioStation> list = new ArrayList<>();
                     if (!shareObject.isUseCache()) {
                         list.addAll(
-                                shareObject.getServiceProvider().getStations(
-                                        shareObject.getDownloader(),
-                                        UrlBuilder.getStationsInCountry(
-                                                shareObject.getContext(),
-                                                shareObject.getCountryCode(),
-                                                getPageNumber(),
-                                                UrlBuilder.ITEMS_PER_PAGE
+                                loadPage(
+                                        shareObject,
+                                        pageNumber -> shareObject.getServiceProvider().getStations(
+                                                shareObject.getDownloader(),
+                                                UrlBuilder.getStationsInCountry(
+                                                        shareObject.getContext(),
+                                                        shareObject.getCountryCode(),
+                                                        pageNumber,
+                                                        UrlBuilder.ITEMS_PER_PAGE
+                                                )
                                         )
                                 )
                         );
                     }
                     handleDataLoaded(playbackStateListener, shareObject, list);
                 }
-        );
+        ));
     }
 }
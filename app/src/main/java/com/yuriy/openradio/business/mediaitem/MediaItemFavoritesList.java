@@ -25,10 +25,10 @@ import com.yuriy.openradio.business.MediaItemsComparator;
 import com.yuriy.openradio.business.storage.FavoritesStorage;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.MediaItemHelper;
-import com.yuriy.openradio.utils.QueueHelper;
 import com.yuriy.openradio.vo.RadioStation;
 
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Created by Yuriy Chernyshov
@@ -59,14 +59,11 @@ public final class MediaItemFavoritesList implements MediaItemCommand {
 
         final Context context = shareObject.getContext();
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            QueueHelper.clearAndCopyCollection(
-                    shareObject.getRadioStations(),
-                    FavoritesStorage.getAllFavorites(context)
-            );
-        }
+        final List<RadioStation> radioStations = shareObject.getRadioStations().set(
+                FavoritesStorage.getAllFavorites(context)
+        );
 
-        for (final RadioStation radioStation : shareObject.getRadioStations()) {
+        for (final RadioStation radioStation : radioStations) {
 
             final MediaDescriptionCompat mediaDescription = MediaItemHelper.buildMediaDescriptionFromRadioStation(
                     context,
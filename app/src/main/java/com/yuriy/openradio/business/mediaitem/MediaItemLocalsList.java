@@ -27,7 +27,6 @@ import com.yuriy.openradio.vo.RadioStation;
 import com.yuriy.openradio.business.MediaItemsComparator;
 import com.yuriy.openradio.business.storage.LocalRadioStationsStorage;
 import com.yuriy.openradio.utils.MediaItemHelper;
-import com.yuriy.openradio.utils.QueueHelper;
 
 import java.util.Collections;
 import java.util.List;
@@ -61,14 +60,11 @@ public final class MediaItemLocalsList implements MediaItemCommand {
 
         final Context context = shareObject.getContext();
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            QueueHelper.clearAndCopyCollection(
-                    shareObject.getRadioStations(),
-                    LocalRadioStationsStorage.getAllLocals(context)
-            );
-        }
+        final List<RadioStation> radioStations = shareObject.getRadioStations().set(
+                LocalRadioStationsStorage.getAllLocals(context)
+        );
 
-        for (final RadioStation radioStation : shareObject.getRadioStations()) {
+        for (final RadioStation radioStation : radioStations) {
 
             final MediaDescriptionCompat mediaDescription = MediaItemHelper.buildMediaDescriptionFromRadioStation(
                     context,
@@ -22,12 +22,12 @@ import android.support.v4.media.MediaBrowserCompat;
 import android.support.v4.media.MediaDescriptionCompat;
 
 import com.yuriy.openradio.R;
-import com.yuriy.openradio.utils.AppLogger;
-import com.yuriy.openradio.vo.Category;
 import com.yuriy.openradio.net.UrlBuilder;
-import com.yuriy.openradio.utils.AppUtils;
+import com.yuriy.openradio.utils.AppExecutors;
+import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.utils.QueueHelper;
+import com.yuriy.openradio.vo.Category;
 
 import java.util.Collections;
 import java.util.List;
@@ -56,12 +56,12 @@ public final class MediaItemParentCategories implements MediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load child categories into menu
                     loadChildCategories(playbackStateListener, shareObject);
                 }
-        );
+        ));
     }
 
     /**
@@ -83,6 +83,11 @@ public final class MediaItemParentCategories implements MediaItemCommand {
                 shareObject.getDownloader(),
                 UrlBuilder.getChildCategoriesUrl(shareObject.getContext(), primaryMenuId));
 
+        if (shareObject.isCancelled()) {
+            AppLogger.d(LOG_TAG + " superseded, skip result");
+            return;
+        }
+
         if (list.isEmpty() && playbackStateListener != null) {
             playbackStateListener.updatePlaybackState(
                     shareObject.getContext().getString(R.string.no_data_message)
@@ -34,7 +34,6 @@ import com.yuriy.openradio.business.storage.LatestRadioStationStorage;
 import com.yuriy.openradio.business.storage.LocalRadioStationsStorage;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.utils.MediaItemHelper;
-import com.yuriy.openradio.utils.QueueHelper;
 
 import java.util.List;
 
@@ -72,7 +71,7 @@ public final class MediaItemRoot implements MediaItemCommand {
         final RadioStation latestRadioStation = LatestRadioStationStorage.load(shareObject.getContext());
         if (latestRadioStation != null) {
             // Add Radio Station to queue.
-            QueueHelper.addRadioStation(latestRadioStation, shareObject.getRadioStations());
+            shareObject.getRadioStations().addIfAbsent(latestRadioStation);
             // Add Radio Station to Menu
             final MediaBrowserCompat.MediaItem mediaItem = new MediaBrowserCompat.MediaItem(
                     MediaItemHelper.buildMediaDescriptionFromRadioStation(shareObject.getContext(), latestRadioStation),
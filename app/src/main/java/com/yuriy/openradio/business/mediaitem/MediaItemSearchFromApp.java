@@ -20,8 +20,8 @@ import android.support.annotation.NonNull;
 
 import com.yuriy.openradio.api.APIServiceProviderImpl;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
-import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.utils.Utils;
 import com.yuriy.openradio.vo.RadioStation;
 
@@ -56,7 +56,7 @@ public final class MediaItemSearchFromApp extends IndexableMediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     final List<RadioStation> list = new ArrayList<>();
                     if (!shareObject.isUseCache()) {
@@ -71,6 +71,6 @@ public final class MediaItemSearchFromApp extends IndexableMediaItemCommand {
                     }
                     handleDataLoaded(playbackStateListener, shareObject, list);
                 }
-        );
+        ));
     }
 }
@@ -23,7 +23,9 @@ import android.support.v4.media.MediaBrowserServiceCompat;
 
 import com.yuriy.openradio.api.APIServiceProvider;
 import com.yuriy.openradio.business.service.OpenRadioService;
+import com.yuriy.openradio.net.CancellationToken;
 import com.yuriy.openradio.net.Downloader;
+import com.yuriy.openradio.utils.SnapshotList;
 import com.yuriy.openradio.vo.Category;
 import com.yuriy.openradio.vo.RadioStation;
 
@@ -94,9 +96,9 @@ public final class MediaItemShareObject {
     private String mParentId;
 
     /**
-     *
+     * Radio Stations of the browsed category, shared with the service.
      */
-    private List<RadioStation> mRadioStations;
+    private SnapshotList<RadioStation> mRadioStations;
 
     /**
      * Flag that indicates whether application runs over normal Android or Auto version.
@@ -109,6 +111,12 @@ public final class MediaItemShareObject {
 
     private volatile boolean mIsUseCache;
 
+    /**
+     * Token that cancels the request once a newer one supersedes it.
+     */
+    @NonNull
+    private CancellationToken mCancellationToken = CancellationToken.NEVER_CANCELLED;
+
     /**
      * Private constructor.
      */
@@ -267,7 +275,7 @@ public final class MediaItemShareObject {
      *
      * @return
      */
-    public List<RadioStation> getRadioStations() {
+    public SnapshotList<RadioStation> getRadioStations() {
         return mRadioStations;
     }
 
@@ -275,7 +283,7 @@ public final class MediaItemShareObject {
      *
      * @param value
      */
-    public void setRadioStations(final List<RadioStation> value) {
+    public void setRadioStations(final SnapshotList<RadioStation> value) {
         mRadioStations = value;
     }
 
@@ -311,6 +319,22 @@ public final class MediaItemShareObject {
         mIsUseCache = value;
     }
 
+    @NonNull
+    public CancellationToken getCancellationToken() {
+        return mCancellationToken;
+    }
+
+    public void setCancellationToken(@NonNull final CancellationToken value) {
+        mCancellationToken = value;
+    }
+
+    /**
+     * @return {@code true} if a newer request superseded this one, its result is not to be sent.
+     */
+    public boolean isCancelled() {
+        return mCancellationToken.isCancelled();
+    }
+
     /**
      * Factory method to create default instance.
      *
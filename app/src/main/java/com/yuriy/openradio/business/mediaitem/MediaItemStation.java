@@ -21,13 +21,12 @@ import android.support.v4.media.MediaBrowserCompat;
 import android.support.v4.media.MediaDescriptionCompat;
 
 import com.yuriy.openradio.R;
-import com.yuriy.openradio.utils.AppLogger;
-import com.yuriy.openradio.vo.RadioStation;
 import com.yuriy.openradio.net.UrlBuilder;
-import com.yuriy.openradio.utils.AppUtils;
+import com.yuriy.openradio.utils.AppExecutors;
+import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.utils.MediaItemHelper;
-import com.yuriy.openradio.utils.QueueHelper;
+import com.yuriy.openradio.vo.RadioStation;
 
 /**
  * Created by Yuriy Chernyshov
@@ -56,12 +55,12 @@ public final class MediaItemStation implements MediaItemCommand {
         // Use result.detach to allow calling result.sendResult from another thread:
         shareObject.getResult().detach();
 
-        AppUtils.API_CALL_EXECUTOR.submit(
+        AppExecutors.browse().submit(shareObject.getCancellationToken().wrap(
                 () -> {
                     // Load Radio Station
                     loadStation(playbackStateListener, shareObject);
                 }
-        );
+        ));
     }
 
     /**
@@ -80,6 +79,11 @@ public final class MediaItemStation implements MediaItemCommand {
                 shareObject.getDownloader(),
                 UrlBuilder.getStation(shareObject.getContext(), radioStationId));
 
+        if (shareObject.isCancelled()) {
+            AppLogger.d(LOG_TAG + " superseded, skip result");
+            return;
+        }
+
         if (radioStation.isMediaStreamEmpty()) {
             if (playbackStateListener != null) {
                 playbackStateListener.updatePlaybackState(
@@ -89,9 +93,11 @@ public final class MediaItemStation implements MediaItemCommand {
             return;
         }
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            QueueHelper.updateRadioStationMediaStream(radioStation, shareObject.getRadioStations());
-        }
+        shareObject.getRadioStations().replace(radioStation.getIdAsString(), item -> {
+            final RadioStation copy = RadioStation.makeCopyInstance(item);
+            copy.setMediaStream(radioStation.getMediaStream());
+            return copy;
+        });
 
         final MediaDescriptionCompat mediaDescription = MediaItemHelper.buildMediaDescriptionFromRadioStation(
                 shareObject.getContext(),
@@ -43,6 +43,7 @@ import android.util.LruCache;
 import com.yuriy.openradio.R;
 import com.yuriy.openradio.business.service.OpenRadioService;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.BitmapHelper;
 import com.yuriy.openradio.utils.FabricUtils;
@@ -503,7 +504,8 @@ public final class MediaNotification extends BroadcastReceiver {
         AppLogger.d(CLASS_NAME + " getBitmapFromURLAsync: starting async task to fetch " + source);
         final AsyncTask<Void, Void, Bitmap> task = new FetchBitmapAsyncTask(this, source);
         try {
-            task.execute();
+            // Not the images pool, its queued loads are dropped while the lists are scrolled.
+            task.executeOnExecutor(AppExecutors.playback());
         } catch (final Exception e) {
             FabricUtils.logException(e);
         }
@@ -59,6 +59,7 @@ import com.yuriy.openradio.business.broadcast.ConnectivityReceiver;
 import com.yuriy.openradio.business.broadcast.MasterVolumeReceiver;
 import com.yuriy.openradio.business.broadcast.MasterVolumeReceiverListener;
 import com.yuriy.openradio.business.broadcast.RemoteControlReceiver;
+import com.yuriy.openradio.business.broadcast.ScreenReceiver;
 import com.yuriy.openradio.business.mediaitem.MediaItemAllCategories;
 import com.yuriy.openradio.business.mediaitem.MediaItemChildCategories;
 import com.yuriy.openradio.business.mediaitem.MediaItemCommand;
@@ -79,16 +80,20 @@ import com.yuriy.openradio.business.storage.FavoritesStorage;
 import com.yuriy.openradio.business.storage.LatestRadioStationStorage;
 import com.yuriy.openradio.business.storage.LocalRadioStationsStorage;
 import com.yuriy.openradio.exo.ExoPlayerOpenRadioImpl;
+import com.yuriy.openradio.net.CancellationToken;
 import com.yuriy.openradio.net.Downloader;
 import com.yuriy.openradio.net.HTTPDownloaderImpl;
 import com.yuriy.openradio.net.UrlBuilder;
+import com.yuriy.openradio.utils.AppExecutors;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.FabricUtils;
 import com.yuriy.openradio.utils.MediaIDHelper;
 import com.yuriy.openradio.utils.MediaItemHelper;
 import com.yuriy.openradio.utils.PackageValidator;
+import com.yuriy.openradio.utils.PlayingQueueBuilder;
 import com.yuriy.openradio.utils.QueueHelper;
 import com.yuriy.openradio.utils.RadioStationChecker;
+import com.yuriy.openradio.utils.SnapshotList;
 import com.yuriy.openradio.vo.RadioStation;
 
 import java.io.IOException;
@@ -100,8 +105,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import wseemann.media.jplaylistparser.exception.JPlaylistParserException;
@@ -180,6 +183,12 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
      */
     private static final int STOP_DELAY = 30000;
 
+    /**
+     * Delay of the playing queue update sent to the controllers, queue changes within it are sent
+     * at once.
+     */
+    private static final int QUEUE_UPDATE_DELAY = 250;
+
     /**
      * ExoPlayer's implementation to play Radio stream..
      */
@@ -203,9 +212,11 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
     private String mCurrentStreamTitle;
 
     /**
-     * Queue of the Radio Stations in the Category
+     * Queue of the Radio Stations in the Category, indexed by Media Id.
      */
-    private final List<MediaSessionCompat.QueueItem> mPlayingQueue = new ArrayList<>();
+    private final SnapshotList<MediaSessionCompat.QueueItem> mPlayingQueue = new SnapshotList<>(
+            item -> item.getDescription().getMediaId()
+    );
 
     /**
      * Current local media player state
@@ -231,14 +242,9 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
     private AudioManager mAudioManager;
 
     /**
-     * Executor of the API requests.
+     * Collection of the Radio Stations, indexed by Id.
      */
-    private final ExecutorService mApiCallExecutor = Executors.newCachedThreadPool();
-
-    /**
-     * Collection of the Radio Stations.
-     */
-    private final List<RadioStation> mRadioStations = new ArrayList<>();
+    private final SnapshotList<RadioStation> mRadioStations = new SnapshotList<>(RadioStation::getIdAsString);
 
     /**
      * Indicates if we should start playing immediately after we gain focus.
@@ -258,7 +264,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
     /**
      * Service class to provide information about current location.
      */
-    private final LocationService mLocationService = LocationService.getInstance(mApiCallExecutor);
+    private final LocationService mLocationService = LocationService.getInstance(AppExecutors.playback());
 
     /**
      * Listener of the Playback State changes.
@@ -306,6 +312,26 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
      */
     private final Handler mDelayedStopHandler = new DelayedStopHandler(this);
 
+    /**
+     * Handler of the main thread, sends the playing queue to the controllers.
+     */
+    private final Handler mQueueUpdateHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Sends the latest playing queue to the controllers.
+     */
+    private final Runnable mQueueUpdateAction = this::sendPlayingQueue;
+
+    /**
+     * Builder of the playing queue.
+     */
+    private final PlayingQueueBuilder mPlayingQueueBuilder = new PlayingQueueBuilder();
+
+    /**
+     * Playing queue sent to the controllers last. Accessed on the main thread only.
+     */
+    private List<MediaSessionCompat.QueueItem> mSentPlayingQueue;
+
     /**
      * Map of the Media Item commands that responsible for the Media Items List creation.
      */
@@ -325,6 +351,16 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
 
     private String mCurrentParentId;
 
+    /**
+     * Generation of the browse requests, incremented when the browsed catalogue changes.
+     */
+    private int mBrowseGeneration;
+
+    /**
+     * Token that cancels the browse requests of the current generation.
+     */
+    private CancellationToken mBrowseCancellationToken;
+
     private MasterVolumeReceiver mMasterVolumeBroadcastReceiver;
 
     /**
@@ -336,6 +372,16 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
 
     private final BTConnectionReceiver mBTConnectionReceiver;
 
+    /**
+     * The BroadcastReceiver that tracks screen on and off events.
+     */
+    private final ScreenReceiver mScreenReceiver;
+
+    /**
+     * Whether the screen is off, progress of the playback is reported at a coarse cadence then.
+     */
+    private boolean mIsScreenOff = false;
+
     private boolean mIsRestoreInstance = false;
 
     /**
@@ -369,6 +415,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         mConnectivityReceiver = new ConnectivityReceiver(connectivityChangeListener);
         final MasterVolumeReceiverListener listener = new MasterVolumeEventListener(this);
         mMasterVolumeBroadcastReceiver = new MasterVolumeReceiver(listener);
+        mScreenReceiver = new ScreenReceiver(new ScreenReceiverListenerImpl(this));
     }
 
     /**
@@ -447,7 +494,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         mCurrentIndexOnQueue = -1;
 
         mLocationService.checkLocationEnable(context);
-        mLocationService.requestCountryCodeLastKnownSync(context, mApiCallExecutor);
+        mLocationService.requestCountryCodeLastKnownSync(context, AppExecutors.playback());
 
         // Create the Wifi lock (this does not acquire the lock, this just creates it)
         mWifiLock = ((WifiManager) context
@@ -470,6 +517,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
 
         // Registers BroadcastReceiver to track network connection changes.
         mConnectivityReceiver.register(getApplicationContext());
+        mScreenReceiver.register(context);
     }
 
     @Override
@@ -517,7 +565,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
                     return super.onStartCommand(intent, flags, startId);
                 }
                 final RadioStation radioStation = QueueHelper.getRadioStationById(
-                        mediaDescription.getMediaId(), mRadioStations
+                        mediaDescription.getMediaId(), mRadioStations.get()
                 );
                 if (radioStation == null) {
                     if (!isFavorite) {
@@ -594,7 +642,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
                     break;
                 }
                 LocalRadioStationsStorage.removeFromLocal(mediaId, context);
-                QueueHelper.removeRadioStation(mediaId, mRadioStations);
+                mRadioStations.remove(mediaId);
 
                 notifyChildrenChanged(MediaIDHelper.MEDIA_ID_LOCAL_RADIO_STATIONS_LIST);
                 break;
@@ -639,13 +687,11 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         mConnectivityReceiver.unregister(context);
         mNoisyAudioStreamReceiver.unregister(context);
         mMasterVolumeBroadcastReceiver.unregister(context);
+        mScreenReceiver.unregister(context);
 
         stopService();
 
-        final ExecutorService executorService = getApiCallExecutor();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        AppLogger.d(CLASS_NAME + " executors:" + AppExecutors.getMetrics());
     }
 
     @Override
@@ -689,8 +735,18 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         mCurrentParentId = parentId;
         final List<MediaBrowserCompat.MediaItem> mediaItems = new ArrayList<>();
 
+        // Requests of another catalogue are superseded: cancel the ones that did not start yet
+        // and abort their downloads and probes, so that this one loads next.
+        // Further pages of the same catalogue keep the generation.
+        if (!isSameCatalogue || mBrowseCancellationToken == null) {
+            if (mBrowseCancellationToken != null) {
+                mBrowseCancellationToken.cancel();
+            }
+            mBrowseCancellationToken = new CancellationToken(++mBrowseGeneration);
+        }
+
         // Instantiate appropriate downloader (HTTP one)
-        final Downloader downloader = new HTTPDownloaderImpl();
+        final Downloader downloader = new HTTPDownloaderImpl(mBrowseCancellationToken);
         // Instantiate appropriate API service provider
         final APIServiceProvider serviceProvider = getServiceProvider(getApplicationContext());
 
@@ -718,6 +774,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             shareObject.isSameCatalogue(isSameCatalogue);
             shareObject.setUseCache(mIsRestoreInstance);
             shareObject.setRemotePlay(this::handleLastRadioStation);
+            shareObject.setCancellationToken(mBrowseCancellationToken);
 
             command.execute(mPlaybackStateListener, shareObject);
         } else {
@@ -744,7 +801,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
     private void handleUnrecognizedInputFormatException() {
         handleStopRequest(null);
 
-        mApiCallExecutor.submit(
+        AppExecutors.playback().submit(
                 () -> {
                     final String[] urls = extractUrlsFromPlaylist(OpenRadioService.this.mLastPlayedUrl);
                     final Handler handler = new Handler(Looper.getMainLooper());
@@ -766,9 +823,13 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             handleStopRequest(getString(R.string.media_player_error));
             return;
         }
-        // TODO: Refactor
-        radioStation.getMediaStream().clear();
-        radioStation.getMediaStream().setVariant(0, urls[0]);
+        // The play request takes the current Radio Station from the snapshot, i.e. the copy.
+        mRadioStations.replace(radioStation.getIdAsString(), item -> {
+            final RadioStation copy = RadioStation.makeCopyInstance(item);
+            copy.getMediaStream().clear();
+            copy.getMediaStream().setVariant(0, urls[0]);
+            return copy;
+        });
         handlePlayRequest();
     }
 
@@ -1008,13 +1069,11 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
      * @param sortId  Sort Id to update to.
      */
     private void updateSortId(final String mediaId, final int sortId, final String categoryMediaId) {
-        RadioStation radioStation;
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            radioStation = QueueHelper.getRadioStationById(mediaId, mRadioStations);
-            if (radioStation != null) {
-                radioStation.setSortId(sortId);
-            }
-        }
+        final RadioStation radioStation = mRadioStations.replace(mediaId, item -> {
+            final RadioStation copy = RadioStation.makeCopyInstance(item);
+            copy.setSortId(sortId);
+            return copy;
+        });
         if (radioStation != null) {
             // This call just overrides existing Radio Station in the storage.
             if (TextUtils.equals(MediaIDHelper.MEDIA_ID_FAVORITES_LIST, categoryMediaId)) {
@@ -1031,6 +1090,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         handleStopRequest(null);
 
         mDelayedStopHandler.removeCallbacksAndMessages(null);
+        mQueueUpdateHandler.removeCallbacks(mQueueUpdateAction);
         // In particular, always release the MediaSession to clean up resources
         // and notify associated MediaController(s).
         mSession.release();
@@ -1098,6 +1158,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             // playing. If we don't do that, the CPU might go to sleep while the
             // song is playing, causing playback to stop.
             mExoPlayer.setWakeMode(getApplicationContext(), PowerManager.PARTIAL_WAKE_LOCK);
+            mExoPlayer.setCoarseProgress(mIsScreenOff);
 
             AppLogger.d(CLASS_NAME + " ExoPlayer prepared");
         } else {
@@ -1115,7 +1176,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
      * @param listener {@link RadioStationUpdateListener}
      */
     private void getCurrentPlayingRadioStationAsync(final RadioStationUpdateListener listener) {
-        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue)) {
+        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue.get())) {
             if (listener != null) {
                 listener.onComplete(null);
             }
@@ -1135,28 +1196,27 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         // and bitrate, upon selecting one - it is necessary to load additional data.
         if (radioStation.isMediaStreamEmpty()) {
 
-            final ExecutorService executorService = getApiCallExecutor();
-            if (executorService != null) {
-                executorService.submit(
-                        () -> {
-                            // Start download information about Radio Station
-                            final RadioStation radioStationUpdated = getServiceProvider(
-                                    OpenRadioService.this.getApplicationContext())
-                                    .getStation(
-                                            new HTTPDownloaderImpl(),
-                                            UrlBuilder.getStation(
-                                                    getApplicationContext(),
-                                                    radioStation.getIdAsString()
-                                            )
-                                    );
-                            radioStation.setMediaStream(radioStationUpdated.getMediaStream());
+            AppExecutors.playback().submit(
+                    () -> {
+                        // Start download information about Radio Station
+                        final RadioStation radioStationUpdated = getServiceProvider(
+                                OpenRadioService.this.getApplicationContext())
+                                .getStation(
+                                        new HTTPDownloaderImpl(),
+                                        UrlBuilder.getStation(
+                                                getApplicationContext(),
+                                                radioStation.getIdAsString()
+                                        )
+                                );
+                        final RadioStation copy = RadioStation.makeCopyInstance(radioStation);
+                        copy.setMediaStream(radioStationUpdated.getMediaStream());
+                        mRadioStations.replace(radioStation.getIdAsString(), item -> copy);
 
-                            if (listener != null) {
-                                listener.onComplete(radioStation);
-                            }
+                        if (listener != null) {
+                            listener.onComplete(copy);
                         }
-                );
-            }
+                    }
+            );
         } else {
             if (listener != null) {
                 listener.onComplete(radioStation);
@@ -1186,7 +1246,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         if (!TextUtils.equals(BUFFERING_STR, streamTitle)) {
             mCurrentStreamTitle = streamTitle;
         }
-        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue)) {
+        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue.get())) {
             AppLogger.e(
                     CLASS_NAME + " Can't retrieve current metadata, curIndx:"
                             + mCurrentIndexOnQueue + " queueSize:" + mPlayingQueue.size()
@@ -1258,13 +1318,11 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             AppLogger.w(CLASS_NAME + " Can not get current Radio Station - MediaId is null");
             return null;
         }
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            RadioStation radioStation = QueueHelper.getRadioStationById(mediaId, mRadioStations);
-            if (radioStation == null) {
-                radioStation = mLastKnownRadioStation;
-            }
-            return radioStation;
+        final RadioStation radioStation = QueueHelper.getRadioStationById(mediaId, mRadioStations.get());
+        if (radioStation == null) {
+            return mLastKnownRadioStation;
         }
+        return radioStation;
     }
 
     /**
@@ -1274,13 +1332,14 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
      */
     @Nullable
     private MediaSessionCompat.QueueItem getCurrentQueueItem() {
+        final List<MediaSessionCompat.QueueItem> queue = mPlayingQueue.get();
         if (mCurrentIndexOnQueue < 0) {
             return null;
         }
-        if (mCurrentIndexOnQueue >= mPlayingQueue.size()) {
+        if (mCurrentIndexOnQueue >= queue.size()) {
             return null;
         }
-        return mPlayingQueue.get(mCurrentIndexOnQueue);
+        return queue.get(mCurrentIndexOnQueue);
     }
 
     /**
@@ -1571,7 +1630,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         stateBuilder.setState(mState, mPosition, 1.0f, SystemClock.elapsedRealtime());
 
         // Set the activeQueueItemId if the current index is valid.
-        if (QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue)) {
+        if (QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue.get())) {
             final MediaSessionCompat.QueueItem item = getCurrentQueueItem();
             if (item != null) {
                 stateBuilder.setActiveQueueItemId(item.getQueueId());
@@ -1696,17 +1755,15 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             return;
         }
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            QueueHelper.clearAndCopyCollection(
-                    mPlayingQueue, QueueHelper.getPlayingQueue(getApplicationContext(), mRadioStations)
-            );
-        }
+        final List<MediaSessionCompat.QueueItem> queue = mPlayingQueue.set(
+                mPlayingQueueBuilder.build(getApplicationContext(), mRadioStations.get())
+        );
 
         final String queueTitle = getString(R.string.queue);
         mSession.setQueueTitle(queueTitle);
 
         final int tempIndexOnQueue = QueueHelper.getRadioStationIndexOnQueue(
-                mPlayingQueue, mediaId
+                queue, mediaId
         );
         if (isStatePlay && mCurrentIndexOnQueue == tempIndexOnQueue) {
             AppLogger.w("Skip play request, same id");
@@ -1721,9 +1778,9 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             return;
         }
 
-        mSession.setQueue(mPlayingQueue);
+        schedulePlayingQueueUpdate();
 
-        if (mPlayingQueue.isEmpty()) {
+        if (queue.isEmpty()) {
             return;
         }
 
@@ -1788,9 +1845,38 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
     }
 
     private void handleConnectivityChange(final boolean isConnected) {
-        if (isConnected) {
-            handlePlayRequest();
+        if (!isConnected) {
+            return;
         }
+        if (mState == PlaybackStateCompat.STATE_PLAYING
+                && mExoPlayer != null && mExoPlayer.canMigrateConnection()) {
+            // Stream survives network changes on its own, restarting it would interrupt playback.
+            return;
+        }
+        handlePlayRequest();
+    }
+
+    /**
+     * Moves the playing stream to the preferred network that became available.
+     */
+    private void handlePreferredNetworkAvailable() {
+        if (mExoPlayer == null || mState != PlaybackStateCompat.STATE_PLAYING) {
+            return;
+        }
+        mExoPlayer.migrateConnection();
+    }
+
+    /**
+     * Switches progress reporting of the playback to a coarse cadence while the screen is off.
+     *
+     * @param isScreenOn Whether the screen turned on.
+     */
+    private void handleScreenStateChanged(final boolean isScreenOn) {
+        mIsScreenOff = !isScreenOn;
+        if (mExoPlayer == null) {
+            return;
+        }
+        mExoPlayer.setCoarseProgress(mIsScreenOff);
     }
 
     /**
@@ -1852,7 +1938,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
 
                 // set the current index on queue from the music Id:
                 service.mCurrentIndexOnQueue = QueueHelper.getRadioStationIndexOnQueue(
-                        service.mPlayingQueue, id
+                        service.mPlayingQueue.get(), id
                 );
                 service.dispatchCurrentIndexOnQueue(service.mCurrentIndexOnQueue);
 
@@ -1920,7 +2006,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
                 service.mCurrentIndexOnQueue = 0;
             }
             service.dispatchCurrentIndexOnQueue(service.mCurrentIndexOnQueue);
-            if (QueueHelper.isIndexPlayable(service.mCurrentIndexOnQueue, service.mPlayingQueue)) {
+            if (QueueHelper.isIndexPlayable(service.mCurrentIndexOnQueue, service.mPlayingQueue.get())) {
                 service.mState = PlaybackStateCompat.STATE_STOPPED;
                 service.handlePlayRequest();
             } else {
@@ -1948,7 +2034,7 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
                 service.mCurrentIndexOnQueue = 0;
             }
             service.dispatchCurrentIndexOnQueue(service.mCurrentIndexOnQueue);
-            if (QueueHelper.isIndexPlayable(service.mCurrentIndexOnQueue, service.mPlayingQueue)) {
+            if (QueueHelper.isIndexPlayable(service.mCurrentIndexOnQueue, service.mPlayingQueue.get())) {
                 service.mState = PlaybackStateCompat.STATE_STOPPED;
                 service.handlePlayRequest();
             } else {
@@ -2031,21 +2117,16 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             return;
         }
 
-        final ExecutorService executorService = getApiCallExecutor();
-        if (executorService != null) {
-            executorService.submit(
-                    () -> {
-                        try {
-                            executePerformSearch(query);
-                        } catch (final Exception e) {
-                            handleStopRequest(getString(R.string.no_search_results));
-                            FabricUtils.logException(e);
-                        }
+        AppExecutors.browse().submit(
+                () -> {
+                    try {
+                        executePerformSearch(query);
+                    } catch (final Exception e) {
+                        handleStopRequest(getString(R.string.no_search_results));
+                        FabricUtils.logException(e);
                     }
-            );
-        } else {
-            handleStopRequest(getString(R.string.no_search_results));
-        }
+                }
+        );
     }
 
     /**
@@ -2074,15 +2155,10 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
 
         AppLogger.i(CLASS_NAME + " Found " + list.size() + " items");
 
-        synchronized (QueueHelper.RADIO_STATIONS_MANAGING_LOCK) {
-            QueueHelper.clearAndCopyCollection(mRadioStations, list);
-            QueueHelper.clearAndCopyCollection(mPlayingQueue, QueueHelper.getPlayingQueue(
-                    getApplicationContext(),
-                    mRadioStations)
-            );
-        }
+        final List<RadioStation> radioStations = mRadioStations.set(list);
+        mPlayingQueue.set(mPlayingQueueBuilder.build(getApplicationContext(), radioStations));
 
-        mSession.setQueue(mPlayingQueue);
+        schedulePlayingQueueUpdate();
 
         // immediately start playing from the beginning of the search results
         mCurrentIndexOnQueue = 0;
@@ -2093,13 +2169,35 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         );
     }
 
+    /**
+     * Schedules sending of the playing queue to the controllers. Updates which come within
+     * {@link #QUEUE_UPDATE_DELAY} are sent as one. May be called on any thread.
+     */
+    private void schedulePlayingQueueUpdate() {
+        mQueueUpdateHandler.removeCallbacks(mQueueUpdateAction);
+        mQueueUpdateHandler.postDelayed(mQueueUpdateAction, QUEUE_UPDATE_DELAY);
+    }
+
+    /**
+     * Sends the playing queue to the controllers, unless they have it already.
+     */
+    private void sendPlayingQueue() {
+        final List<MediaSessionCompat.QueueItem> queue = mPlayingQueue.get();
+        if (PlayingQueueBuilder.isSameQueue(mSentPlayingQueue, queue)) {
+            AppLogger.d(CLASS_NAME + " Playing queue not changed, skip update");
+            return;
+        }
+        mSentPlayingQueue = queue;
+        mSession.setQueue(queue);
+    }
+
     /**
      * Dispatch broad cast event about changes on current playing Radio Station.
      *
      * @param index Index of the Radio Station in the queue.
      */
     private void dispatchCurrentIndexOnQueue(final int index) {
-        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue)) {
+        if (!QueueHelper.isIndexPlayable(mCurrentIndexOnQueue, mPlayingQueue.get())) {
             AppLogger.w(CLASS_NAME + " Can not dispatch curr index on queue");
             return;
         }
@@ -2113,20 +2211,6 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
         );
     }
 
-    /**
-     * @return
-     */
-    @Nullable
-    private ExecutorService getApiCallExecutor() {
-        if (mApiCallExecutor.isShutdown()) {
-            FabricUtils.logCustomEvent(
-                    FabricUtils.EVENT_NAME_API_EXEC, "Error", "API executor is shut down"
-            );
-            return null;
-        }
-        return mApiCallExecutor;
-    }
-
     /**
      * Listener class of the Playback State changes.
      */
@@ -2283,6 +2367,46 @@ public final class OpenRadioService extends MediaBrowserServiceCompat
             }
             reference.handleConnectivityChange(isConnected);
         }
+
+        @Override
+        public void onPreferredNetworkAvailable() {
+            final OpenRadioService reference = mReference.get();
+            if (reference == null) {
+                AppLogger.w(CLASS_NAME + " preferred network, enclosing reference is null");
+                return;
+            }
+            reference.handlePreferredNetworkAvailable();
+        }
+    }
+
+    /**
+     * Listener to handle screen on and off events.
+     */
+    private static final class ScreenReceiverListenerImpl implements ScreenReceiver.Listener {
+
+        /**
+         * Reference to enclosing class.
+         */
+        private final WeakReference<OpenRadioService> mReference;
+
+        /**
+         * Main constructor.
+         *
+         * @param reference Reference to enclosing class.
+         */
+        private ScreenReceiverListenerImpl(final OpenRadioService reference) {
+            super();
+            mReference = new WeakReference<>(reference);
+        }
+
+        @Override
+        public void onScreenStateChanged(final boolean isScreenOn) {
+            final OpenRadioService reference = mReference.get();
+            if (reference == null) {
+                return;
+            }
+            reference.handleScreenStateChanged(isScreenOn);
+        }
     }
 
     /**
@@ -28,7 +28,10 @@ import com.yuriy.openradio.business.RadioStationJSONSerializer;
 import com.yuriy.openradio.business.RadioStationSerializer;
 import com.yuriy.openradio.utils.AppLogger;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +47,17 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
 
     private static final String KEY_VALUE_PAIR_DELIMITER = "<<::>>";
 
+    /**
+     * Extension of the files of the {@link StationStore}s.
+     */
+    private static final String STORE_FILE_EXTENSION = ".stations";
+
+    /**
+     * Stores of the Radio Stations of the storages, by the names of the storages.
+     * A store is loaded on first access. Guarded by the class.
+     */
+    private static final Map<String, StationStore> STORES = new HashMap<>();
+
     /**
      * Default constructor.
      */
@@ -60,17 +74,6 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
      */
     protected static synchronized void add(final RadioStation radioStation,
                                            final Context context, final String name) {
-        if (radioStation.getSortId() == -1) {
-            final List<RadioStation> all = getAll(context, name);
-            int maxSortId = -1;
-            for (final RadioStation radioStationLocal : all) {
-                if (radioStationLocal.getSortId() > maxSortId) {
-                    maxSortId = radioStationLocal.getSortId();
-                }
-            }
-            radioStation.setSortId(maxSortId + 1);
-        }
-
         addInternal(createKeyForRadioStation(radioStation), radioStation, context, name);
     }
 
@@ -86,17 +89,6 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
                                            @NonNull final RadioStation radioStation,
                                            @NonNull final Context context,
                                            @NonNull final String name) {
-        final List<RadioStation> all = getAll(context, name);
-        int maxSortId = -1;
-        for (final RadioStation radioStationLocal : all) {
-            if (radioStationLocal.getSortId() > maxSortId) {
-                maxSortId = radioStationLocal.getSortId();
-            }
-        }
-        if (radioStation.getSortId() == -1) {
-            radioStation.setSortId(maxSortId + 1);
-        }
-
         addInternal(key, radioStation, context, name);
     }
 
@@ -109,9 +101,7 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
      */
     protected static synchronized void remove(final String mediaId, final Context context,
                                               final String name) {
-        final SharedPreferences.Editor editor = getEditor(context, name);
-        editor.remove(mediaId);
-        editor.commit();
+        getStore(context, name).remove(mediaId);
         AppLogger.i("Radio Station removed, media id:" + mediaId);
     }
 
@@ -123,17 +113,15 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
      * @return Stored data as String.
      */
     @NonNull
-    static String getAllAsString(final Context context, final String name) {
-        final SharedPreferences sharedPreferences = getSharedPreferences(context, name);
-        final Map<String, ?> map = sharedPreferences.getAll();
-        String value;
+    static synchronized String getAllAsString(final Context context, final String name) {
+        final StationStore store = getStore(context, name);
+        final RadioStationSerializer serializer = new RadioStationJSONSerializer();
         final StringBuilder builder = new StringBuilder();
-        for (final String key : map.keySet()) {
-            value = String.valueOf(map.get(key));
-            if (value == null || value.isEmpty()) {
-                continue;
-            }
-            builder.append(key).append(KEY_VALUE_DELIMITER).append(value).append(KEY_VALUE_PAIR_DELIMITER);
+        for (final Map.Entry<String, RadioStation> entry : store.getAll().entrySet()) {
+            builder.append(entry.getKey())
+                    .append(KEY_VALUE_DELIMITER)
+                    .append(serializer.serialize(entry.getValue()))
+                    .append(KEY_VALUE_PAIR_DELIMITER);
         }
         if (builder.length() >= KEY_VALUE_PAIR_DELIMITER.length()) {
             builder.delete(builder.length() - KEY_VALUE_PAIR_DELIMITER.length(), builder.length());
@@ -181,11 +169,74 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
      * @return Collection of the Radio Stations.
      */
     @NonNull
-    static List<RadioStation> getAll(final Context context, final String name) {
-        // TODO: Return cache when possible
-        final List<RadioStation> radioStations = new ArrayList<>();
+    static synchronized List<RadioStation> getAll(final Context context, final String name) {
+        final StationStore store = getStore(context, name);
+        final List<RadioStation> radioStations = new ArrayList<>(store.size());
+        for (final RadioStation radioStation : store.getAll().values()) {
+            radioStations.add(RadioStation.makeCopyInstance(radioStation));
+        }
+        return radioStations;
+    }
+
+    /**
+     * Returns whether there is Radio Station with the given key in the storage.
+     *
+     * @param key     Key of the Radio Station.
+     * @param context Context of the callee.
+     * @param name    Name of the file for the preferences.
+     * @return {@code true} in case of there is such Radio Station, {@code false} - otherwise.
+     */
+    static synchronized boolean contains(final String key, final Context context, final String name) {
+        return getStore(context, name).contains(key);
+    }
+
+    /**
+     * Drops the Radio Stations of the storage kept in memory, so that they are loaded again on
+     * next access. To be called when the file of the storage is changed other than by this class.
+     *
+     * @param name Name of the file for the preferences.
+     */
+    static synchronized void invalidate(final String name) {
+        final StationStore store = STORES.remove(name);
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Returns store of the Radio Stations of the storage, loads it on first call.
+     *
+     * @param context Context of the callee.
+     * @param name    Name of the file for the preferences.
+     * @return Store of the Radio Stations of the storage.
+     */
+    @NonNull
+    private static synchronized StationStore getStore(final Context context, final String name) {
+        StationStore store = STORES.get(name);
+        if (store == null) {
+            store = new StationStore(new File(context.getFilesDir(), name + STORE_FILE_EXTENSION));
+            if (store.exists()) {
+                store.load();
+            } else {
+                migrate(store, context, name);
+            }
+            STORES.put(name, store);
+        }
+        return store;
+    }
+
+    /**
+     * Moves Radio Stations of the storage from the preferences, where they were kept as JSON
+     * strings before, to the given store.
+     *
+     * @param store   Store of the Radio Stations of the storage.
+     * @param context Context of the callee.
+     * @param name    Name of the file for the preferences.
+     */
+    private static void migrate(final StationStore store, final Context context, final String name) {
         final SharedPreferences sharedPreferences = getSharedPreferences(context, name);
         final Map<String, ?> map = sharedPreferences.getAll();
+        final Map<String, RadioStation> radioStations = new LinkedHashMap<>();
         final RadioStationDeserializer deserializer = new RadioStationJSONDeserializer();
         RadioStation radioStation;
         String value;
@@ -211,8 +262,6 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
                 continue;
             }
 
-            radioStations.add(radioStation);
-
             // This is solution for the new functionality - drag and drop in order to sort
             // Assume that if there is undefined sort id then user runs application with
             // new feature with Radio Stations already in Favorites.
@@ -222,10 +271,21 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
             }
             if (!isListSorted) {
                 radioStation.setSortId(counter++);
-                addInternal(createKeyForRadioStation(radioStation), radioStation, context, name);
             }
+
+            radioStations.put(key, radioStation);
         }
-        return radioStations;
+        // The preferences are kept to migrate from on next start until the store is written.
+        store.replaceAll(radioStations, () -> {
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            for (final String key : map.keySet()) {
+                if (!LocalRadioStationsStorage.isKeyId(key)) {
+                    editor.remove(key);
+                }
+            }
+            editor.apply();
+            AppLogger.i(name + " migrated " + radioStations.size() + " Radio Stations from preferences");
+        });
     }
 
     /**
@@ -235,10 +295,8 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
      * @param name    Name of the file for the preferences.
      * @return {@code true} in case of the are items in collection, {@code false} - otherwise.
      */
-    protected static boolean isEmpty(final Context context, final String name) {
-        final SharedPreferences sharedPreferences = getSharedPreferences(context, name);
-        final Map<String, ?> map = sharedPreferences.getAll();
-        return map.isEmpty();
+    protected static synchronized boolean isEmpty(final Context context, final String name) {
+        return getStore(context, name).size() == 0;
     }
 
     /**
@@ -253,10 +311,13 @@ abstract class AbstractRadioStationsStorage extends AbstractStorage {
                                                  final RadioStation radioStation,
                                                  final Context context,
                                                  final String name) {
-        final RadioStationSerializer serializer = new RadioStationJSONSerializer();
-        final SharedPreferences.Editor editor = getEditor(context, name);
-        editor.putString(key, serializer.serialize(radioStation));
-        editor.commit();
+        final StationStore store = getStore(context, name);
+        // The given Radio Station may be shared with readers, it is not changed.
+        final RadioStation copy = RadioStation.makeCopyInstance(radioStation);
+        if (copy.getSortId() == -1) {
+            copy.setSortId(store.getMaxSortId() + 1);
+        }
+        store.put(key, copy);
         AppLogger.i("Radio Station added " + radioStation);
     }
 
@@ -17,12 +17,14 @@
 package com.yuriy.openradio.business.storage;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
 
 import com.yuriy.openradio.vo.RadioStation;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by Yuriy Chernyshov
@@ -44,6 +46,12 @@ public final class FavoritesStorage extends AbstractRadioStationsStorage {
      */
     private static final String FILE_NAME = "FavoritesPreferences";
 
+    /**
+     * Ids of the Favorite Radio Stations, {@code null} until loaded from the storage. Replaced as
+     * a whole on every change, so that it can be read without locking.
+     */
+    private static volatile Set<String> sIds;
+
     /**
      * {@inheritDoc}
      */
@@ -61,6 +69,12 @@ public final class FavoritesStorage extends AbstractRadioStationsStorage {
     public static synchronized void addToFavorites(final RadioStation radioStation,
                                                    final Context context) {
         add(radioStation, context, FILE_NAME);
+        final Set<String> ids = sIds;
+        if (ids != null && !ids.contains(radioStation.getIdAsString())) {
+            final Set<String> newIds = new HashSet<>(ids);
+            newIds.add(radioStation.getIdAsString());
+            sIds = Collections.unmodifiableSet(newIds);
+        }
     }
 
     /**
@@ -73,6 +87,12 @@ public final class FavoritesStorage extends AbstractRadioStationsStorage {
     public static synchronized void removeFromFavorites(final String mediaId,
                                                         final Context context) {
         remove(mediaId, context, FILE_NAME);
+        final Set<String> ids = sIds;
+        if (ids != null && ids.contains(mediaId)) {
+            final Set<String> newIds = new HashSet<>(ids);
+            newIds.remove(mediaId);
+            sIds = Collections.unmodifiableSet(newIds);
+        }
     }
 
     /**
@@ -105,6 +125,15 @@ public final class FavoritesStorage extends AbstractRadioStationsStorage {
         return isEmpty(context, FILE_NAME);
     }
 
+    /**
+     * Drops the Favorites kept in memory, so that they are loaded from the persistent storage
+     * again. To be called when the storage is changed from outside, e.g. restored from a backup.
+     */
+    public static synchronized void invalidateCache() {
+        invalidate(FILE_NAME);
+        sIds = null;
+    }
+
     /**
      * Check whether provided {@link RadioStation} is in Favorites preferences.
      *
@@ -113,19 +142,52 @@ public final class FavoritesStorage extends AbstractRadioStationsStorage {
      * @return True in case of success, False - otherwise.
      */
     public static boolean isFavorite(final RadioStation radioStation, final Context context) {
-        final SharedPreferences sharedPreferences = getSharedPreferences(context, FILE_NAME);
-        if (sharedPreferences.contains(radioStation.getIdAsString())) {
-            return true;
+        return getIds(context).contains(radioStation.getIdAsString());
+    }
+
+    /**
+     * Check whether provided {@link RadioStation}s are in Favorites preferences.
+     *
+     * @param radioStations {@link RadioStation}s to check in the Favorites.
+     * @param context       Context of the callee.
+     * @return Array where an item is True if the Radio Station at the same position is in
+     * Favorites, False - otherwise.
+     */
+    @NonNull
+    public static boolean[] areFavorites(@NonNull final List<RadioStation> radioStations,
+                                         final Context context) {
+        final Set<String> ids = getIds(context);
+        final boolean[] result = new boolean[radioStations.size()];
+        for (int i = 0; i < result.length; i++) {
+            final RadioStation radioStation = radioStations.get(i);
+            result[i] = radioStation != null && ids.contains(radioStation.getIdAsString());
         }
-        final List<RadioStation> list = getAllFavorites(context);
-        for (final RadioStation station : list) {
-            if (station == null) {
-                continue;
-            }
-            if (station.getId() == radioStation.getId()) {
-                return true;
+        return result;
+    }
+
+    /**
+     * Returns Ids of the Favorite Radio Stations, loads them from the storage on first call.
+     *
+     * @param context Context of the callee.
+     * @return Ids of the Favorite Radio Stations.
+     */
+    @NonNull
+    private static Set<String> getIds(final Context context) {
+        final Set<String> ids = sIds;
+        if (ids != null) {
+            return ids;
+        }
+        synchronized (FavoritesStorage.class) {
+            if (sIds == null) {
+                final Set<String> newIds = new HashSet<>();
+                for (final RadioStation radioStation : getAllFavorites(context)) {
+                    if (radioStation != null) {
+                        newIds.add(radioStation.getIdAsString());
+                    }
+                }
+                sIds = Collections.unmodifiableSet(newIds);
             }
+            return sIds;
         }
-        return false;
     }
 }
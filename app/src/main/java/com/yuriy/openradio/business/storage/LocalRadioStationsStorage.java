@@ -236,6 +236,15 @@ public final class LocalRadioStationsStorage extends AbstractRadioStationsStorag
         return list.isEmpty();
     }
 
+    /**
+     * Drops the Local Radio Stations kept in memory, so that they are loaded from the persistent
+     * storage again. To be called when the storage is changed from outside, e.g. restored from
+     * a backup.
+     */
+    public static synchronized void invalidateCache() {
+        invalidate(FILE_NAME);
+    }
+
     /**
      * Check whether provided {@link RadioStation} is in Local Stations preferences.
      *
@@ -244,7 +253,6 @@ public final class LocalRadioStationsStorage extends AbstractRadioStationsStorag
      * @return True in case of success, False - otherwise.
      */
     public static boolean isLocalRadioStation(final RadioStation radioStation, final Context context) {
-        final SharedPreferences sharedPreferences = getSharedPreferences(context, FILE_NAME);
-        return sharedPreferences.contains(radioStation.getIdAsString());
+        return contains(radioStation.getIdAsString(), context, FILE_NAME);
     }
 }
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.business.storage;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.yuriy.openradio.utils.AppExecutors;
+import com.yuriy.openradio.utils.AppLogger;
+import com.yuriy.openradio.utils.FabricUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rolling storage of the playback quality of the latest sessions.
+ * <p>
+ * Sessions are kept in a tab separated file, one line per session, so that the file can be
+ * attached to the logs as is and analyzed offline. Only the latest {@link #MAX_SESSIONS} sessions
+ * are kept.
+ * <p>
+ * The file is read and written only by {@link AppExecutors#storage()}, in the order of the calls,
+ * so that a write queued before {@link #clear(Context)} does not bring the cleared sessions back.
+ */
+public final class PlaybackQualityStorage {
+
+    /**
+     * Playback quality of a single session, i.e. playback of a station from prepare to stop.
+     */
+    public static final class Session {
+
+        /**
+         * Wall clock time the session started at, in milliseconds since the epoch.
+         */
+        private final long mStartTimeMs;
+
+        /**
+         * URL of the station.
+         */
+        @NonNull
+        private final String mStation;
+
+        /**
+         * Type of the network the session started on.
+         */
+        @NonNull
+        private final String mNetworkType;
+
+        /**
+         * Time from prepare to the first audio, in milliseconds, or negative if there was none.
+         */
+        private final long mTimeToFirstAudioMs;
+
+        /**
+         * Number of the stalls after the first audio.
+         */
+        private final int mStallCount;
+
+        /**
+         * Total duration of the stalls, in milliseconds.
+         */
+        private final long mStallDurationMs;
+
+        /**
+         * Total duration of the playback, in milliseconds.
+         */
+        private final long mPlayedMs;
+
+        /**
+         * Duration of the session, in milliseconds.
+         */
+        private final long mDurationMs;
+
+        /**
+         * Number of bytes loaded during the session.
+         */
+        private final long mBytes;
+
+        /**
+         * Time the decoder took to initialize, in milliseconds, or negative if it was reused.
+         */
+        private final long mDecoderInitMs;
+
+        /**
+         * Cause of the last playback error, or {@code null} if there was none.
+         */
+        @Nullable
+        private final String mError;
+
+        /**
+         * Main constructor.
+         *
+         * @param startTimeMs        Wall clock time the session started at.
+         * @param station            URL of the station.
+         * @param networkType        Type of the network the session started on.
+         * @param timeToFirstAudioMs Time from prepare to the first audio, or negative.
+         * @param stallCount         Number of the stalls after the first audio.
+         * @param stallDurationMs    Total duration of the stalls.
+         * @param playedMs           Total duration of the playback.
+         * @param durationMs         Duration of the session.
+         * @param bytes              Number of bytes loaded during the session.
+         * @param decoderInitMs      Time the decoder took to initialize, or negative.
+         * @param error              Cause of the last playback error, or {@code null}.
+         */
+        public Session(final long startTimeMs,
+                       @NonNull final String station,
+                       @NonNull final String networkType,
+                       final long timeToFirstAudioMs,
+                       final int stallCount,
+                       final long stallDurationMs,
+                       final long playedMs,
+                       final long durationMs,
+                       final long bytes,
+                       final long decoderInitMs,
+                       @Nullable final String error) {
+            super();
+            mStartTimeMs = startTimeMs;
+            mStation = station;
+            mNetworkType = networkType;
+            mTimeToFirstAudioMs = timeToFirstAudioMs;
+            mStallCount = stallCount;
+            mStallDurationMs = stallDurationMs;
+            mPlayedMs = playedMs;
+            mDurationMs = durationMs;
+            mBytes = bytes;
+            mDecoderInitMs = decoderInitMs;
+            mError = error;
+        }
+
+        @Override
+        public String toString() {
+            return toLine();
+        }
+
+        /**
+         * @return Session as a line of the storage file.
+         */
+        private String toLine() {
+            return TextUtils.join(
+                    SEPARATOR,
+                    new Object[]{
+                            mStartTimeMs, mStation, mNetworkType, mTimeToFirstAudioMs, mStallCount,
+                            mStallDurationMs, mPlayedMs, mDurationMs, mBytes, mDecoderInitMs,
+                            mError == null ? "" : mError
+                    }
+            );
+        }
+
+        /**
+         * @param line Line of the storage file.
+         * @return Session or {@code null} if the line is malformed.
+         */
+        @Nullable
+        private static Session fromLine(@NonNull final String line) {
+            final String[] values = line.split(SEPARATOR, -1);
+            if (values.length != 11) {
+                return null;
+            }
+            try {
+                return new Session(
+                        Long.parseLong(values[0]), values[1], values[2], Long.parseLong(values[3]),
+                        Integer.parseInt(values[4]), Long.parseLong(values[5]),
+                        Long.parseLong(values[6]), Long.parseLong(values[7]),
+                        Long.parseLong(values[8]), Long.parseLong(values[9]),
+                        values[10].isEmpty() ? null : values[10]
+                );
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Listener of the summary of the stored sessions.
+     */
+    public interface SummaryListener {
+
+        /**
+         * Called on the main thread.
+         *
+         * @param summary Summary of the stored sessions, empty if there are none.
+         */
+        void onSummary(@NonNull final String summary);
+    }
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String CLASS_NAME = PlaybackQualityStorage.class.getSimpleName();
+
+    /**
+     * Name of the storage file.
+     */
+    private static final String FILE_NAME = "playback_quality.tsv";
+
+    /**
+     * Separator of the values of a session.
+     */
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * Max number of the sessions kept.
+     */
+    private static final int MAX_SESSIONS = 200;
+
+    /**
+     * Latest sessions, oldest first, or {@code null} until loaded from the file.
+     * Accessed only by {@link AppExecutors#storage()}.
+     */
+    private static ArrayDeque<Session> sSessions;
+
+    /**
+     * Private constructor.
+     */
+    private PlaybackQualityStorage() {
+        super();
+    }
+
+    /**
+     * Adds a session, dropping the oldest one if the storage is full. The file is written in
+     * background.
+     *
+     * @param context Context of the callee.
+     * @param session Session to add.
+     */
+    public static void add(@NonNull final Context context, @NonNull final Session session) {
+        AppExecutors.storage().submit(() -> {
+            final ArrayDeque<Session> sessions = getSessions(context);
+            sessions.addLast(session);
+            while (sessions.size() > MAX_SESSIONS) {
+                sessions.removeFirst();
+            }
+            write(getFile(context), sessions);
+        });
+    }
+
+    /**
+     * Delivers the aggregated playback quality per station and network type, suitable to display.
+     * The file is read in background.
+     *
+     * @param context  Context of the callee.
+     * @param listener Listener of the summary.
+     */
+    public static void getSummary(@NonNull final Context context,
+                                  @NonNull final SummaryListener listener) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        AppExecutors.storage().submit(() -> {
+            final String summary = buildSummary(context);
+            handler.post(() -> listener.onSummary(summary));
+        });
+    }
+
+    /**
+     * Deletes all sessions. The file is deleted in background, after the writes queued before.
+     *
+     * @param context Context of the callee.
+     */
+    public static void clear(@NonNull final Context context) {
+        AppExecutors.storage().submit(() -> {
+            getSessions(context).clear();
+            final File file = getFile(context);
+            if (file.exists() && !file.delete()) {
+                AppLogger.w(CLASS_NAME + " can not delete " + file);
+            }
+        });
+    }
+
+    /**
+     * @param context Context of the callee.
+     * @return Summary of the stored sessions, empty if there are none.
+     */
+    @NonNull
+    private static String buildSummary(@NonNull final Context context) {
+        final Map<String, Aggregate> aggregates = new TreeMap<>();
+        for (final Session session : getSessions(context)) {
+            final String key = session.mStation + " [" + session.mNetworkType + "]";
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate == null) {
+                aggregate = new Aggregate();
+                aggregates.put(key, aggregate);
+            }
+            aggregate.add(session);
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            builder.append(entry.getKey()).append('\n').append(entry.getValue()).append("\n\n");
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * @param context Context of the callee.
+     * @return File the sessions are stored in, to export for offline analysis.
+     */
+    @NonNull
+    public static File getFile(@NonNull final Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * @param context Context of the callee.
+     * @return Latest sessions, loaded from the file on first call.
+     */
+    @NonNull
+    private static ArrayDeque<Session> getSessions(@NonNull final Context context) {
+        if (sSessions != null) {
+            return sSessions;
+        }
+        sSessions = new ArrayDeque<>();
+        final File file = getFile(context);
+        if (!file.exists()) {
+            return sSessions;
+        }
+        try (final BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final Session session = Session.fromLine(line);
+                if (session != null) {
+                    sSessions.addLast(session);
+                }
+            }
+        } catch (final IOException e) {
+            FabricUtils.logException(e);
+        }
+        while (sSessions.size() > MAX_SESSIONS) {
+            sSessions.removeFirst();
+        }
+        return sSessions;
+    }
+
+    /**
+     * Writes sessions to the file.
+     *
+     * @param file     File to write to.
+     * @param sessions Sessions to write.
+     */
+    private static void write(@NonNull final File file, @NonNull final Iterable<Session> sessions) {
+        try (final Writer writer = new FileWriter(file)) {
+            for (final Session session : sessions) {
+                writer.write(session.toLine());
+                writer.write('\n');
+            }
+        } catch (final IOException e) {
+            FabricUtils.logException(e);
+        }
+    }
+
+    /**
+     * Aggregated playback quality of the sessions of a station on a network type.
+     */
+    private static final class Aggregate {
+
+        /**
+         * Number of the sessions.
+         */
+        private int mSessionCount;
+
+        /**
+         * Number of the sessions that reached the first audio.
+         */
+        private int mStartedCount;
+
+        /**
+         * Total time to the first audio, in milliseconds.
+         */
+        private long mTimeToFirstAudioMs;
+
+        /**
+         * Total number of the stalls.
+         */
+        private int mStallCount;
+
+        /**
+         * Total duration of the stalls, in milliseconds.
+         */
+        private long mStallDurationMs;
+
+        /**
+         * Total duration of the playback, in milliseconds.
+         */
+        private long mPlayedMs;
+
+        /**
+         * Total duration of the sessions, in milliseconds.
+         */
+        private long mDurationMs;
+
+        /**
+         * Total number of the bytes loaded.
+         */
+        private long mBytes;
+
+        /**
+         * Number of the decoder initializations.
+         */
+        private int mDecoderInitCount;
+
+        /**
+         * Total time of the decoder initializations, in milliseconds.
+         */
+        private long mDecoderInitMs;
+
+        /**
+         * Number of the errors, by cause.
+         */
+        private final Map<String, Integer> mErrors = new LinkedHashMap<>();
+
+        /**
+         * @param session Session to aggregate.
+         */
+        private void add(@NonNull final Session session) {
+            mSessionCount++;
+            if (session.mTimeToFirstAudioMs >= 0) {
+                mStartedCount++;
+                mTimeToFirstAudioMs += session.mTimeToFirstAudioMs;
+            }
+            mStallCount += session.mStallCount;
+            mStallDurationMs += session.mStallDurationMs;
+            mPlayedMs += session.mPlayedMs;
+            mDurationMs += session.mDurationMs;
+            mBytes += session.mBytes;
+            if (session.mDecoderInitMs >= 0) {
+                mDecoderInitCount++;
+                mDecoderInitMs += session.mDecoderInitMs;
+            }
+            if (session.mError != null) {
+                final Integer count = mErrors.get(session.mError);
+                mErrors.put(session.mError, count == null ? 1 : count + 1);
+            }
+        }
+
+        @Override
+        public String toString() {
+            final long watchedMs = mPlayedMs + mStallDurationMs;
+            return String.format(
+                    Locale.ROOT,
+                    "sessions %d, started %d, first audio %d ms, stalls %d (%d ms, %.1f%%), "
+                            + "%d kbps, decoder init %d ms, errors %s",
+                    mSessionCount,
+                    mStartedCount,
+                    mStartedCount == 0 ? 0 : mTimeToFirstAudioMs / mStartedCount,
+                    mStallCount,
+                    mStallDurationMs,
+                    watchedMs == 0 ? 0F : 100F * mStallDurationMs / watchedMs,
+                    mDurationMs == 0 ? 0 : mBytes * 8 / mDurationMs,
+                    mDecoderInitCount == 0 ? 0 : mDecoderInitMs / mDecoderInitCount,
+                    mErrors.isEmpty() ? "none" : mErrors.toString()
+            );
+        }
+    }
+}
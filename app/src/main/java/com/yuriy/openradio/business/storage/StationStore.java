@@ -0,0 +1,582 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.business.storage;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.android.exoplayer2.util.AtomicFile;
+import com.yuriy.openradio.utils.AppExecutors;
+import com.yuriy.openradio.utils.AppLogger;
+import com.yuriy.openradio.vo.MediaStream;
+import com.yuriy.openradio.vo.RadioStation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * File backed store of the Radio Stations, mapped to their keys.
+ * <p>
+ * All the Radio Stations are kept in memory. The file is a log of binary records, every change
+ * appends one record of the changed Radio Station only, instead of rewriting the whole file.
+ * A record carries its length and checksum, so that a record torn by a crash is detected and
+ * dropped on load. When the log holds more outdated records than actual ones, it is compacted,
+ * i.e. rewritten with the actual records only, atomically with {@link AtomicFile}.
+ * <p>
+ * Methods are thread safe. Only the Radio Stations in memory are changed under the lock of the
+ * store, all the writes and syncs of the log are made on {@link AppExecutors#storage()}, in order,
+ * so that readers never wait for the disk.
+ */
+final class StationStore {
+
+    /**
+     * String tag to use in the logs.
+     */
+    private static final String CLASS_NAME = StationStore.class.getSimpleName();
+
+    /**
+     * Marker of the file format.
+     */
+    private static final int MAGIC = 0x4F525354;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Type of the record which adds or replaces a Radio Station.
+     */
+    private static final byte RECORD_PUT = 1;
+
+    /**
+     * Type of the record which removes a Radio Station.
+     */
+    private static final byte RECORD_REMOVE = 2;
+
+    /**
+     * Max length of a record, longer ones are treated as corrupted.
+     */
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    /**
+     * Min number of the outdated records to compact the log for.
+     */
+    private static final int MIN_OUTDATED_RECORDS = 64;
+
+    /**
+     * File of the log.
+     */
+    @NonNull
+    private final AtomicFile mFile;
+
+    /**
+     * Path of the file of the log, to append to.
+     */
+    @NonNull
+    private final File mPath;
+
+    /**
+     * Path of the backup of the log, exists while the log is being rewritten.
+     */
+    @NonNull
+    private final File mBackupPath;
+
+    /**
+     * Radio Stations by their keys, in order of addition. Guarded by the store.
+     */
+    private final Map<String, RadioStation> mRadioStations = new LinkedHashMap<>();
+
+    /**
+     * Largest Sort Id the Radio Stations ever had, {@code -1} if there were none.
+     * Guarded by the store.
+     */
+    private int mMaxSortId = -1;
+
+    /**
+     * Number of the records in the log. Used on the storage executor only, once loaded.
+     */
+    private int mRecordsCount;
+
+    /**
+     * Stream to append the records to, {@code null} until the first append.
+     * Used on the storage executor only.
+     */
+    @Nullable
+    private FileOutputStream mAppendStream;
+
+    /**
+     * Whether there are appended records which are not synced to the disk.
+     * Used on the storage executor only.
+     */
+    private boolean mIsSyncPending;
+
+    /**
+     * Main constructor.
+     *
+     * @param path File of the log.
+     */
+    StationStore(@NonNull final File path) {
+        super();
+        mPath = path;
+        mBackupPath = new File(path.getPath() + ".bak");
+        mFile = new AtomicFile(path);
+    }
+
+    /**
+     * @return {@code true} if the log was written before, {@code false} if the store is new.
+     */
+    boolean exists() {
+        return mPath.exists() || mBackupPath.exists();
+    }
+
+    /**
+     * Loads the Radio Stations from the log. Records from a torn or corrupted one on are dropped.
+     * To be called once, before any change of the store.
+     */
+    synchronized void load() {
+        mRadioStations.clear();
+        mMaxSortId = -1;
+        if (!exists()) {
+            return;
+        }
+        int recordsCount = 0;
+        boolean isCorrupted = false;
+        final long startTime = System.currentTimeMillis();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(mFile.openRead()))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unknown format");
+            }
+            while (true) {
+                // End of the file is clean at the boundary of the records only, anywhere else
+                // the record is torn and reading it fails.
+                final int firstByte = input.read();
+                if (firstByte == -1) {
+                    break;
+                }
+                final int length = (firstByte << 24)
+                        | (input.readUnsignedByte() << 16)
+                        | input.readUnsignedShort();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    isCorrupted = true;
+                    break;
+                }
+                final byte[] record = new byte[length];
+                input.readFully(record);
+                if (input.readInt() != checksum(record)) {
+                    isCorrupted = true;
+                    break;
+                }
+                applyRecord(record);
+                recordsCount++;
+            }
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not read " + mPath + ":" + Log.getStackTraceString(e));
+            isCorrupted = true;
+        }
+        AppLogger.d(CLASS_NAME + " loaded " + mRadioStations.size() + " Radio Stations of "
+                + recordsCount + " records in " + (System.currentTimeMillis() - startTime) + " ms");
+        final int loadedRecordsCount = recordsCount;
+        final boolean isLoadedCorrupted = isCorrupted;
+        AppExecutors.storage().execute(() -> {
+            mRecordsCount = loadedRecordsCount;
+            if (isLoadedCorrupted) {
+                AppLogger.w(CLASS_NAME + " " + mPath + " is corrupted, drop its tail");
+                compact(null);
+            } else {
+                compactIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Replaces all the Radio Stations and rewrites the log with them, in background.
+     *
+     * @param radioStations Radio Stations by their keys, owned by the store afterwards.
+     * @param onWritten     Action to run on the storage executor once the log is written, or
+     *                      {@code null}. Not run if the Radio Stations are kept in memory only.
+     */
+    synchronized void replaceAll(@NonNull final Map<String, RadioStation> radioStations,
+                                 @Nullable final Runnable onWritten) {
+        mRadioStations.clear();
+        mMaxSortId = -1;
+        for (final Map.Entry<String, RadioStation> entry : radioStations.entrySet()) {
+            putInternal(entry.getKey(), entry.getValue());
+        }
+        AppExecutors.storage().execute(() -> compact(onWritten));
+    }
+
+    /**
+     * @return Radio Stations of the store by their keys, in order of addition. Owned by the store,
+     * not to be iterated while the store is changed.
+     */
+    @NonNull
+    synchronized Map<String, RadioStation> getAll() {
+        return Collections.unmodifiableMap(mRadioStations);
+    }
+
+    /**
+     * @param key Key of the Radio Station.
+     * @return {@code true} if there is a Radio Station with the given key.
+     */
+    synchronized boolean contains(@NonNull final String key) {
+        return mRadioStations.containsKey(key);
+    }
+
+    /**
+     * @return Number of the Radio Stations.
+     */
+    synchronized int size() {
+        return mRadioStations.size();
+    }
+
+    /**
+     * @return Largest Sort Id the Radio Stations ever had, {@code -1} if there were none.
+     */
+    synchronized int getMaxSortId() {
+        return mMaxSortId;
+    }
+
+    /**
+     * Adds or replaces Radio Station. The change is written to the log in background.
+     *
+     * @param key          Key of the Radio Station.
+     * @param radioStation Radio Station, owned by the store afterwards.
+     */
+    synchronized void put(@NonNull final String key, @NonNull final RadioStation radioStation) {
+        putInternal(key, radioStation);
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(record)) {
+            output.writeByte(RECORD_PUT);
+            output.writeUTF(key);
+            writeRadioStation(output, radioStation);
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not encode " + radioStation + ":" + Log.getStackTraceString(e));
+            return;
+        }
+        final byte[] bytes = record.toByteArray();
+        AppExecutors.storage().execute(() -> append(bytes));
+    }
+
+    /**
+     * Removes Radio Station. The change is written to the log in background.
+     *
+     * @param key Key of the Radio Station.
+     */
+    synchronized void remove(@NonNull final String key) {
+        if (mRadioStations.remove(key) == null) {
+            return;
+        }
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(record)) {
+            output.writeByte(RECORD_REMOVE);
+            output.writeUTF(key);
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not encode removal of " + key + ":" + Log.getStackTraceString(e));
+            return;
+        }
+        final byte[] bytes = record.toByteArray();
+        AppExecutors.storage().execute(() -> append(bytes));
+    }
+
+    /**
+     * Waits for the pending writes of the log, then syncs and closes it. The store can be used
+     * afterwards, the log is opened again on next change. Must not be called on the storage
+     * executor.
+     */
+    void close() {
+        final Future<?> future = AppExecutors.storage().submit(this::closeAppendStream);
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            AppLogger.e(CLASS_NAME + " can not close " + mPath + ":" + Log.getStackTraceString(e));
+        }
+    }
+
+    /**
+     * Adds or replaces Radio Station in memory.
+     *
+     * @param key          Key of the Radio Station.
+     * @param radioStation Radio Station.
+     */
+    private void putInternal(@NonNull final String key, @NonNull final RadioStation radioStation) {
+        mRadioStations.put(key, radioStation);
+        mMaxSortId = Math.max(mMaxSortId, radioStation.getSortId());
+    }
+
+    /**
+     * Appends record to the log and schedules sync of it. Runs on the storage executor.
+     *
+     * @param record Record to append.
+     */
+    private void append(@NonNull final byte[] record) {
+        try {
+            if (mAppendStream == null) {
+                // Log is not written yet or its rewrite failed, write it whole instead. The
+                // Radio Stations in memory have the change of the record already.
+                if (!mPath.exists() || mBackupPath.exists()) {
+                    compact(null);
+                    return;
+                }
+                mAppendStream = new FileOutputStream(mPath, true);
+            }
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream(record.length + 8);
+            final DataOutputStream output = new DataOutputStream(buffer);
+            output.writeInt(record.length);
+            output.write(record);
+            output.writeInt(checksum(record));
+            // Single write, so that a record is either appended whole or torn at its end.
+            mAppendStream.write(buffer.toByteArray());
+            mRecordsCount++;
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not append to " + mPath + ":" + Log.getStackTraceString(e));
+            closeAppendStream();
+            return;
+        }
+        if (!compactIfNeeded() && !mIsSyncPending) {
+            // Records appended meanwhile are synced together.
+            mIsSyncPending = true;
+            AppExecutors.storage().execute(this::sync);
+        }
+    }
+
+    /**
+     * Syncs the appended records to the disk. Runs on the storage executor.
+     */
+    private void sync() {
+        if (!mIsSyncPending) {
+            return;
+        }
+        mIsSyncPending = false;
+        if (mAppendStream == null) {
+            return;
+        }
+        try {
+            mAppendStream.getFD().sync();
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not sync " + mPath + ":" + Log.getStackTraceString(e));
+        }
+    }
+
+    /**
+     * Compacts the log if it holds more outdated records than actual ones. Runs on the storage
+     * executor.
+     *
+     * @return {@code true} if the log was compacted.
+     */
+    private boolean compactIfNeeded() {
+        final int size = size();
+        final int outdatedCount = mRecordsCount - size;
+        if (outdatedCount < MIN_OUTDATED_RECORDS || outdatedCount < size) {
+            return false;
+        }
+        compact(null);
+        return true;
+    }
+
+    /**
+     * Rewrites the log with the actual records only. The new log replaces the old one atomically
+     * and is synced to the disk. Runs on the storage executor.
+     * <p>
+     * The actual records are taken from memory, so they may have changes whose records are still
+     * queued. These records are appended afterwards, replaying them ends with the same state.
+     *
+     * @param onWritten Action to run once the log is written, or {@code null}.
+     */
+    private void compact(@Nullable final Runnable onWritten) {
+        final Map<String, RadioStation> radioStations;
+        synchronized (this) {
+            radioStations = new LinkedHashMap<>(mRadioStations);
+        }
+        closeAppendStream();
+        OutputStream stream = null;
+        try {
+            stream = mFile.startWrite();
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            final ByteArrayOutputStream record = new ByteArrayOutputStream();
+            final DataOutputStream recordOutput = new DataOutputStream(record);
+            for (final Map.Entry<String, RadioStation> entry : radioStations.entrySet()) {
+                record.reset();
+                recordOutput.writeByte(RECORD_PUT);
+                recordOutput.writeUTF(entry.getKey());
+                writeRadioStation(recordOutput, entry.getValue());
+                final byte[] bytes = record.toByteArray();
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                output.writeInt(checksum(bytes));
+            }
+            mFile.endWrite(output);
+            stream = null;
+            mRecordsCount = radioStations.size();
+            AppLogger.d(CLASS_NAME + " compacted " + mPath + " to " + mRecordsCount + " records");
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not compact " + mPath + ":" + Log.getStackTraceString(e));
+            return;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (final IOException e) {
+                    /* Ignore */
+                }
+            }
+        }
+        if (onWritten != null) {
+            onWritten.run();
+        }
+    }
+
+    /**
+     * Closes the stream to append the records to, syncing it first. Runs on the storage
+     * executor.
+     */
+    private void closeAppendStream() {
+        mIsSyncPending = false;
+        if (mAppendStream == null) {
+            return;
+        }
+        try {
+            mAppendStream.getFD().sync();
+            mAppendStream.close();
+        } catch (final IOException e) {
+            AppLogger.e(CLASS_NAME + " can not close " + mPath + ":" + Log.getStackTraceString(e));
+        }
+        mAppendStream = null;
+    }
+
+    /**
+     * Applies record read from the log.
+     *
+     * @param record Record.
+     * @throws IOException If the record can not be decoded.
+     */
+    private void applyRecord(@NonNull final byte[] record) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        final byte type = input.readByte();
+        final String key = input.readUTF();
+        switch (type) {
+            case RECORD_PUT:
+                putInternal(key, readRadioStation(input));
+                break;
+            case RECORD_REMOVE:
+                mRadioStations.remove(key);
+                break;
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    /**
+     * @param bytes Bytes.
+     * @return Checksum of the bytes.
+     */
+    private static int checksum(@NonNull final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes Radio Station in binary form.
+     *
+     * @param output       Output to write to.
+     * @param radioStation Radio Station.
+     * @throws IOException If the output fails.
+     */
+    private static void writeRadioStation(@NonNull final DataOutputStream output,
+                                          @NonNull final RadioStation radioStation)
+            throws IOException {
+        output.writeInt(radioStation.getId());
+        output.writeInt(radioStation.getStatus());
+        writeString(output, radioStation.getName());
+        writeString(output, radioStation.getWebSite());
+        writeString(output, radioStation.getCountry());
+        writeString(output, radioStation.getGenre());
+        writeString(output, radioStation.getImageUrl());
+        writeString(output, radioStation.getThumbUrl());
+        output.writeBoolean(radioStation.isLocal());
+        output.writeInt(radioStation.getSortId());
+        final MediaStream mediaStream = radioStation.getMediaStream();
+        final int variantsNumber = mediaStream.getVariantsNumber();
+        output.writeInt(variantsNumber);
+        for (int i = 0; i < variantsNumber; i++) {
+            final MediaStream.Variant variant = mediaStream.getVariant(i);
+            output.writeInt(variant.getBitrate());
+            writeString(output, variant.getUrl());
+        }
+    }
+
+    /**
+     * Reads Radio Station written by {@link #writeRadioStation(DataOutputStream, RadioStation)}.
+     *
+     * @param input Input to read from.
+     * @return Radio Station.
+     * @throws IOException If the input fails or is malformed.
+     */
+    @NonNull
+    private static RadioStation readRadioStation(@NonNull final DataInputStream input)
+            throws IOException {
+        final RadioStation radioStation = RadioStation.makeDefaultInstance();
+        radioStation.setId(input.readInt());
+        radioStation.setStatus(input.readInt());
+        radioStation.setName(input.readUTF());
+        radioStation.setWebSite(input.readUTF());
+        radioStation.setCountry(input.readUTF());
+        radioStation.setGenre(input.readUTF());
+        radioStation.setImageUrl(input.readUTF());
+        radioStation.setThumbUrl(input.readUTF());
+        radioStation.setIsLocal(input.readBoolean());
+        radioStation.setSortId(input.readInt());
+        final int variantsNumber = input.readInt();
+        for (int i = 0; i < variantsNumber; i++) {
+            final int bitrate = input.readInt();
+            radioStation.getMediaStream().setVariant(bitrate, input.readUTF());
+        }
+        return radioStation;
+    }
+
+    /**
+     * Writes string, {@code null} is written as empty one.
+     *
+     * @param output Output to write to.
+     * @param value  String.
+     * @throws IOException If the output fails.
+     */
+    private static void writeString(@NonNull final DataOutputStream output,
+                                    @Nullable final String value) throws IOException {
+        output.writeUTF(value == null ? "" : value);
+    }
+}
@@ -369,6 +369,9 @@ public final class GoogleDriveManager {
         if (FILE_NAME_RADIO_STATIONS.equals(fileName)) {
             final String favoritesRx = splitRadioStationCategories(data)[0];
             final String localsRx = splitRadioStationCategories(data)[1];
+            // Files of the storages could be changed by a restore, re-read them before merging.
+            FavoritesStorage.invalidateCache();
+            LocalRadioStationsStorage.invalidateCache();
             final List<RadioStation> favoritesList = FavoritesStorage.getAllFavorites(mContext);
             final List<RadioStation> favoritesRxList = FavoritesStorage.getAllFavoritesFromString(favoritesRx);
             QueueHelper.merge(favoritesList, favoritesRxList);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.content.ComponentCallbacks2;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.util.Locale;
+
+/**
+ * Process-wide pool of the buffer segments used by the players.
+ * <p>
+ * The allocator does not trim on reset, so segments released on stop, skip or reconnect are kept
+ * up to the target buffer size and reused by the next prepare instead of being allocated again.
+ * Idle segments are dropped only on memory pressure, see {@link #onTrimMemory(int)}.
+ */
+public final class AllocationPool {
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = AllocationPool.class.getSimpleName();
+
+    /**
+     * Allocator shared by all players of the process.
+     */
+    private static final DefaultAllocator ALLOCATOR = new DefaultAllocator(
+            false, C.DEFAULT_BUFFER_SEGMENT_SIZE
+    );
+
+    /**
+     * Private constructor.
+     */
+    private AllocationPool() {
+        super();
+    }
+
+    /**
+     * @return Allocator shared by all players of the process.
+     */
+    static DefaultAllocator getAllocator() {
+        return ALLOCATOR;
+    }
+
+    /**
+     * Handles memory pressure callback of the application.
+     *
+     * @param level Level of the memory pressure, one of the
+     *              {@link ComponentCallbacks2}{@code .TRIM_MEMORY_*} constants.
+     */
+    public static void onTrimMemory(final int level) {
+        // Hiding UI or running moderately low on memory does not justify a reallocation on the
+        // next prepare.
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        final int available = ALLOCATOR.getTotalBytesAvailable();
+        ALLOCATOR.trimAll();
+        AppLogger.d(LOG_TAG + " trim level " + level + ", released " + available + " bytes");
+    }
+
+    /**
+     * @return Total size of the idle segments kept in the pool, in bytes.
+     */
+    public static int getPoolSizeBytes() {
+        return ALLOCATOR.getTotalBytesAvailable();
+    }
+
+    /**
+     * @return Share of the allocations served from the pool, in the range [0, 1].
+     */
+    public static float getReuseRate() {
+        final long allocations = ALLOCATOR.getAllocationCount();
+        if (allocations == 0) {
+            return 0;
+        }
+        return (float) ALLOCATOR.getReusedAllocationCount() / allocations;
+    }
+
+    /**
+     * @return Summary of the pool metrics, suitable for logging.
+     */
+    public static String getMetrics() {
+        return String.format(
+                Locale.ROOT,
+                "pool %d bytes, in use %d bytes, reuse rate %.2f",
+                getPoolSizeBytes(), ALLOCATOR.getTotalBytesAllocated(), getReuseRate()
+        );
+    }
+}
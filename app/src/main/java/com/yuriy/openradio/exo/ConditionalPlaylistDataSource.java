@@ -0,0 +1,313 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.ByteArrayDataSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DataSource} for HLS playlists that refreshes them with conditional GET requests. The
+ * ETag and Last-Modified validators of the previous response are sent as If-None-Match and
+ * If-Modified-Since headers, and when the server responds with 304 Not Modified the body of the
+ * previous response is served from memory instead.
+ */
+final class ConditionalPlaylistDataSource implements DataSource {
+
+    /**
+     * Factory of the {@link ConditionalPlaylistDataSource}s. Data sources created by the same
+     * factory share the cache of the responses.
+     */
+    static final class Factory implements DataSource.Factory {
+
+        /**
+         * Factory of the HTTP data sources.
+         */
+        @NonNull
+        private final IcyHttpDataSourceFactory mHttpFactory;
+
+        /**
+         * Factory of the data sources for the non HTTP URIs.
+         */
+        @NonNull
+        private final DataSource.Factory mFallbackFactory;
+
+        /**
+         * Responses of the playlists that can be validated, by URI.
+         */
+        private final Map<Uri, Response> mResponses = new LinkedHashMap<Uri, Response>(
+                MAX_RESPONSES, 0.75F, true
+        ) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Uri, Response> eldest) {
+                return size() > MAX_RESPONSES;
+            }
+        };
+
+        /**
+         * Main constructor.
+         *
+         * @param httpFactory     Factory of the HTTP data sources.
+         * @param fallbackFactory Factory of the data sources for the non HTTP URIs.
+         */
+        Factory(@NonNull final IcyHttpDataSourceFactory httpFactory,
+                @NonNull final DataSource.Factory fallbackFactory) {
+            super();
+            mHttpFactory = httpFactory;
+            mFallbackFactory = fallbackFactory;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new ConditionalPlaylistDataSource(this);
+        }
+
+        /**
+         * @param uri URI of the playlist.
+         * @return Previous response of the playlist or {@code null} if there is none.
+         */
+        @Nullable
+        private synchronized Response get(@NonNull final Uri uri) {
+            return mResponses.get(uri);
+        }
+
+        /**
+         * @param uri      URI of the playlist.
+         * @param response Response of the playlist or {@code null} to forget the previous one.
+         */
+        private synchronized void put(@NonNull final Uri uri, @Nullable final Response response) {
+            if (response == null) {
+                mResponses.remove(uri);
+            } else {
+                mResponses.put(uri, response);
+            }
+        }
+    }
+
+    /**
+     * Validated response of a playlist.
+     */
+    private static final class Response {
+
+        /**
+         * Value of the ETag header, may be {@code null}.
+         */
+        @Nullable
+        private final String mETag;
+
+        /**
+         * Value of the Last-Modified header, may be {@code null}.
+         */
+        @Nullable
+        private final String mLastModified;
+
+        /**
+         * Body of the response.
+         */
+        @NonNull
+        private final byte[] mBody;
+
+        /**
+         * Main constructor.
+         *
+         * @param eTag         Value of the ETag header.
+         * @param lastModified Value of the Last-Modified header.
+         * @param body         Body of the response.
+         */
+        private Response(@Nullable final String eTag,
+                         @Nullable final String lastModified,
+                         @NonNull final byte[] body) {
+            super();
+            mETag = eTag;
+            mLastModified = lastModified;
+            mBody = body;
+        }
+    }
+
+    /**
+     * Max number of the responses kept, master playlist and a few media playlists.
+     */
+    private static final int MAX_RESPONSES = 8;
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = ConditionalPlaylistDataSource.class.getSimpleName();
+
+    /**
+     * Factory that created this data source.
+     */
+    @NonNull
+    private final Factory mFactory;
+
+    /**
+     * HTTP data source, created on first HTTP request.
+     */
+    private HttpDataSource mHttpDataSource;
+
+    /**
+     * Data source currently opened.
+     */
+    private DataSource mDataSource;
+
+    /**
+     * URI of the playlist being read from the network.
+     */
+    private Uri mUri;
+
+    /**
+     * ETag of the response being read from the network.
+     */
+    private String mETag;
+
+    /**
+     * Last-Modified of the response being read from the network.
+     */
+    private String mLastModified;
+
+    /**
+     * Copy of the response being read from the network, or {@code null} if it is not cached.
+     */
+    private ByteArrayOutputStream mBody;
+
+    /**
+     * Main constructor.
+     *
+     * @param factory Factory that created this data source.
+     */
+    private ConditionalPlaylistDataSource(@NonNull final Factory factory) {
+        super();
+        mFactory = factory;
+    }
+
+    @Override
+    public long open(final DataSpec dataSpec) throws IOException {
+        final String scheme = dataSpec.uri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            mDataSource = mFactory.mFallbackFactory.createDataSource();
+            return mDataSource.open(dataSpec);
+        }
+        if (mHttpDataSource == null) {
+            mHttpDataSource = mFactory.mHttpFactory.createDataSource();
+        }
+        mHttpDataSource.clearRequestProperty("If-None-Match");
+        mHttpDataSource.clearRequestProperty("If-Modified-Since");
+        mDataSource = mHttpDataSource;
+        // Only whole playlists are validated.
+        final boolean isWhole = dataSpec.position == 0 && dataSpec.length == C.LENGTH_UNSET;
+        final Response response = isWhole ? mFactory.get(dataSpec.uri) : null;
+        if (response != null) {
+            if (response.mETag != null) {
+                mHttpDataSource.setRequestProperty("If-None-Match", response.mETag);
+            }
+            if (response.mLastModified != null) {
+                mHttpDataSource.setRequestProperty("If-Modified-Since", response.mLastModified);
+            }
+        }
+        final long length;
+        try {
+            length = mHttpDataSource.open(dataSpec);
+        } catch (final HttpDataSource.InvalidResponseCodeException e) {
+            if (response == null || e.responseCode != HttpURLConnection.HTTP_NOT_MODIFIED) {
+                throw e;
+            }
+            AppLogger.d(LOG_TAG + " not modified " + dataSpec.uri);
+            mDataSource = new ByteArrayDataSource(response.mBody);
+            return mDataSource.open(dataSpec);
+        }
+        if (isWhole) {
+            final Map<String, List<String>> headers = mHttpDataSource.getResponseHeaders();
+            mUri = dataSpec.uri;
+            mETag = getHeader(headers, "ETag");
+            mLastModified = getHeader(headers, "Last-Modified");
+            mBody = mETag != null || mLastModified != null ? new ByteArrayOutputStream() : null;
+            if (mBody == null) {
+                mFactory.put(mUri, null);
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int readLength) throws IOException {
+        final int read = mDataSource.read(buffer, offset, readLength);
+        if (mBody == null) {
+            return read;
+        }
+        if (read == C.RESULT_END_OF_INPUT) {
+            mFactory.put(mUri, new Response(mETag, mLastModified, mBody.toByteArray()));
+            mBody = null;
+        } else if (read > 0) {
+            mBody.write(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public Uri getUri() {
+        return mDataSource == null ? null : mDataSource.getUri();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Response that was not read to the end is not cached.
+        mBody = null;
+        mUri = null;
+        if (mDataSource == null) {
+            return;
+        }
+        try {
+            mDataSource.close();
+        } finally {
+            mDataSource = null;
+        }
+    }
+
+    /**
+     * @param headers Headers of the response.
+     * @param name    Name of the header, case insensitive.
+     * @return First value of the header or {@code null} if there is none.
+     */
+    @Nullable
+    private static String getHeader(@NonNull final Map<String, List<String>> headers,
+                                    @NonNull final String name) {
+        for (final Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (!name.equalsIgnoreCase(entry.getKey())) {
+                continue;
+            }
+            final List<String> values = entry.getValue();
+            if (values != null && !values.isEmpty()) {
+                return values.get(0);
+            }
+        }
+        return null;
+    }
+}
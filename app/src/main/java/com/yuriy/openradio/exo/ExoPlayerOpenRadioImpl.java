@@ -20,11 +20,11 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
 import com.google.android.exoplayer2.C;
-import com.google.android.exoplayer2.DefaultLoadControl;
 import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.ExoPlayerImpl;
@@ -33,26 +33,27 @@ import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.Renderer;
 import com.google.android.exoplayer2.Timeline;
-import com.google.android.exoplayer2.audio.AudioCapabilities;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
 import com.google.android.exoplayer2.audio.AudioProcessor;
 import com.google.android.exoplayer2.audio.AudioRendererEventListener;
-import com.google.android.exoplayer2.audio.MediaCodecAudioRenderer;
 import com.google.android.exoplayer2.decoder.DecoderCounters;
-import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
+import com.google.android.exoplayer2.extractor.ts.DefaultTsPayloadReaderFactory;
 import com.google.android.exoplayer2.metadata.Metadata;
 import com.google.android.exoplayer2.metadata.MetadataRenderer;
 import com.google.android.exoplayer2.source.ExtractorMediaSource;
 import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.source.TrackGroupArray;
 import com.google.android.exoplayer2.source.UnrecognizedInputFormatException;
+import com.google.android.exoplayer2.source.hls.DefaultHlsExtractorFactory;
 import com.google.android.exoplayer2.source.hls.HlsMediaSource;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultAllocator;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.LoaderExecutor;
 import com.google.android.exoplayer2.util.Clock;
+import com.google.android.exoplayer2.util.PriorityTaskManager;
 import com.google.android.exoplayer2.util.Util;
 import com.yuriy.openradio.business.storage.AppPreferencesManager;
 import com.yuriy.openradio.utils.AppLogger;
@@ -162,6 +163,36 @@ public final class ExoPlayerOpenRadioImpl {
      */
     private DataSource.Factory mMediaDataSourceFactory;
 
+    /**
+     * Factory of the HTTP data sources {@link #mMediaDataSourceFactory} delegates to.
+     */
+    private IcyHttpDataSourceFactory mHttpDataSourceFactory;
+
+    /**
+     * Cache of the extractor hints, shared between data sources and extractors.
+     */
+    private final ExtractorHintCache mExtractorHintCache = new ExtractorHintCache();
+
+    /**
+     * Collector of the playback quality of the sessions.
+     */
+    private final PlaybackQualityCollector mQualityCollector;
+
+    /**
+     * Load control that starts playback of a stream with a small buffer when it loads fast.
+     */
+    private final FastStartLoadControl mLoadControl;
+
+    /**
+     * Prefetcher of the segments of the current HLS stream, {@code null} for other streams.
+     */
+    private HlsSegmentPrefetcher mHlsSegmentPrefetcher;
+
+    /**
+     * Splice of the current progressive stream, {@code null} for other streams.
+     */
+    private StreamSplice mStreamSplice;
+
     /**
      * Current play URI.
      */
@@ -194,14 +225,9 @@ public final class ExoPlayerOpenRadioImpl {
     private final AtomicInteger mNumOfExceptions = new AtomicInteger(0);
 
     /**
-     * Runnable implementation to handle playback progress.
+     * Reports playback progress to the listener when it changes.
      */
-    private Runnable mUpdateProgressAction = this::updateProgress;
-
-    /**
-     * Handler to handle playback progress runnable.
-     */
-    private Handler mUpdateProgressHandler = new Handler();
+    private final ProgressTracker mProgressTracker;
 
     /**
      * Main constructor.
@@ -218,6 +244,7 @@ public final class ExoPlayerOpenRadioImpl {
         mMainHandler = new Handler();
         mComponentListener = new ComponentListener(this);
         mListener = listener;
+        mQualityCollector = new PlaybackQualityCollector(context);
 
         mMediaDataSourceFactory = buildDataSourceFactory(context, icyInputStreamListener);
 
@@ -235,21 +262,33 @@ public final class ExoPlayerOpenRadioImpl {
         }
         mAudioRendererCount = audioRendererCount;
 
+        mLoadControl = new FastStartLoadControl(
+                AllocationPool.getAllocator(),
+                AppPreferencesManager.getMinBuffer(context),
+                AppPreferencesManager.getMaxBuffer(context),
+                AppPreferencesManager.getPlayBuffer(context),
+                AppPreferencesManager.getPlayBufferRebuffer(context),
+                Clock.DEFAULT
+        );
         mExoPlayer = new ExoPlayerImpl(
                 mRenderers,
                 new DefaultTrackSelector(),
-                new DefaultLoadControl(
-                        new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE),
-                        AppPreferencesManager.getMinBuffer(context),
-                        AppPreferencesManager.getMaxBuffer(context),
-                        AppPreferencesManager.getPlayBuffer(context),
-                        AppPreferencesManager.getPlayBufferRebuffer(context),
-                        DefaultLoadControl.DEFAULT_TARGET_BUFFER_BYTES,
-                        DefaultLoadControl.DEFAULT_PRIORITIZE_TIME_OVER_SIZE_THRESHOLDS
-                ),
+                mLoadControl,
                 Clock.DEFAULT
         );
         mExoPlayer.addListener(mComponentListener);
+
+        mProgressTracker = new ProgressTracker(mExoPlayer, mMainHandler);
+        mProgressTracker.setListener(mListener::onProgress);
+    }
+
+    /**
+     * Switches progress reporting to a coarse cadence, e.g. while the screen is off.
+     *
+     * @param isCoarse Whether to report progress at a coarse cadence.
+     */
+    public void setCoarseProgress(final boolean isCoarse) {
+        mProgressTracker.setCoarse(isCoarse);
     }
 
     /**
@@ -261,19 +300,56 @@ public final class ExoPlayerOpenRadioImpl {
         if (uri == null) {
             return;
         }
-        AppLogger.d(LOG_TAG + " prepare:" + uri.toString());
+        AppLogger.d(LOG_TAG + " prepare:" + uri.toString() + ", " + AllocationPool.getMetrics());
+        AppLogger.d(LOG_TAG + " loaders:" + getLoaderMetrics());
 
         mUserState = UserState.PREPARE;
+        mQualityCollector.startSession(uri.toString());
 
         @C.ContentType int type = Util.inferContentType(uri);
+        if (!uri.equals(mUri)) {
+            mLoadControl.onStreamChanged();
+        }
         mUri = uri;
+        releaseHlsSegmentPrefetcher();
+        mStreamSplice = null;
         switch (type) {
             case C.TYPE_HLS:
-                mMediaSource = new HlsMediaSource.Factory(mMediaDataSourceFactory)
+                final HlsSegmentPrefetcher prefetcher = new HlsSegmentPrefetcher(
+                        mMediaDataSourceFactory, new PriorityTaskManager()
+                );
+                mHlsSegmentPrefetcher = prefetcher;
+                mMediaSource = new HlsMediaSource.Factory(
+                        new PrefetchingDataSource.Factory(
+                                mMediaDataSourceFactory,
+                                new ConditionalPlaylistDataSource.Factory(
+                                        mHttpDataSourceFactory, mMediaDataSourceFactory
+                                ),
+                                prefetcher
+                        )
+                )
+                        .setPlaylistParser(
+                                new IncrementalPlaylistParser(prefetcher::onMediaPlaylist)
+                        )
+                        .setExtractorFactory(
+                                // Only audio and metadata renderers are built, skip other streams.
+                                new DefaultHlsExtractorFactory(
+                                        DefaultTsPayloadReaderFactory.FLAG_IGNORE_NON_AUDIO_STREAMS
+                                )
+                        )
                         .createMediaSource(mUri);
                 break;
             case C.TYPE_OTHER:
-                mMediaSource = new ExtractorMediaSource.Factory(mMediaDataSourceFactory)
+                final StreamSplice splice = new StreamSplice();
+                mStreamSplice = splice;
+                mMediaSource = new ExtractorMediaSource.Factory(
+                        new ReconnectingDataSource.Factory(mMediaDataSourceFactory, splice)
+                )
+                        .setExtractorsFactory(
+                                new RadioExtractorsFactory(
+                                        mUri.toString(), mExtractorHintCache, splice
+                                )
+                        )
                         .createMediaSource(mUri);
                 break;
             default:
@@ -289,6 +365,31 @@ public final class ExoPlayerOpenRadioImpl {
         stayAwake(true);
     }
 
+    /**
+     * @return {@code true} if the current stream recovers from a change of the network by itself,
+     * i.e. it is a progressive stream which extractor resynchronizes on a new connection. Other
+     * streams are to be restarted.
+     */
+    public boolean canMigrateConnection() {
+        final StreamSplice splice = mStreamSplice;
+        return splice != null && splice.isArmed();
+    }
+
+    /**
+     * Moves the current stream to a new connection, made on the network that is the default one
+     * now, without interrupting playback. Called when a better network becomes available, so that
+     * the stream does not stay on the previous network until it times out. Streams other than
+     * progressive ones open a new connection per segment and need no migration.
+     */
+    public void migrateConnection() {
+        final StreamSplice splice = mStreamSplice;
+        if (splice == null) {
+            return;
+        }
+        AppLogger.d(LOG_TAG + " migrate connection");
+        splice.requestMigration();
+    }
+
     /**
      * Sets volume.
      *
@@ -328,6 +429,7 @@ public final class ExoPlayerOpenRadioImpl {
         AppLogger.d(LOG_TAG + " pause");
 
         mUserState = UserState.PAUSE;
+        mQualityCollector.endSession();
 
         if (mExoPlayer != null) {
             mExoPlayer.stop();
@@ -355,11 +457,13 @@ public final class ExoPlayerOpenRadioImpl {
         AppLogger.d(LOG_TAG + " reset");
 
         mUserState = UserState.RESET;
+        mQualityCollector.endSession();
 
         stayAwake(false);
         if (mExoPlayer != null) {
             mExoPlayer.stop();
         }
+        releaseHlsSegmentPrefetcher();
         mMediaSource.releaseSource(
                 (source, timeline, manifest) -> AppLogger.d(
                         "OnSourceInfoRefreshed:" + source + " " + manifest
@@ -377,13 +481,61 @@ public final class ExoPlayerOpenRadioImpl {
         }
 
         mExoPlayer.removeListener(mComponentListener);
-        mUpdateProgressHandler.removeCallbacks(mUpdateProgressAction);
+        mProgressTracker.release();
+        releaseRetainedCodecs();
         reset();
         mExoPlayer.release();
 
         mExoPlayer = null;
-        mUpdateProgressHandler = null;
-        mUpdateProgressAction = null;
+    }
+
+    /**
+     * @return Time information of an event that happens now, for the analytics listeners.
+     */
+    private AnalyticsListener.EventTime newEventTime() {
+        if (mExoPlayer == null) {
+            return new AnalyticsListener.EventTime(
+                    SystemClock.elapsedRealtime(), Timeline.EMPTY, 0, null, 0, 0, 0
+            );
+        }
+        final long positionMs = mExoPlayer.getCurrentPosition();
+        return new AnalyticsListener.EventTime(
+                SystemClock.elapsedRealtime(),
+                mExoPlayer.getCurrentTimeline(),
+                mExoPlayer.getCurrentWindowIndex(),
+                null,
+                positionMs,
+                positionMs,
+                Math.max(0, mExoPlayer.getBufferedPosition() - positionMs)
+        );
+    }
+
+    /**
+     * Releases prefetcher of the HLS segments, if any.
+     */
+    private void releaseHlsSegmentPrefetcher() {
+        if (mHlsSegmentPrefetcher != null) {
+            mHlsSegmentPrefetcher.release();
+            mHlsSegmentPrefetcher = null;
+        }
+    }
+
+    /**
+     * Stops audio renderers from retaining decoders between streams and releases decoders
+     * retained so far. Must be called before the player is released.
+     */
+    private void releaseRetainedCodecs() {
+        final ExoPlayer.ExoPlayerMessage[] messages
+                = new ExoPlayer.ExoPlayerMessage[mAudioRendererCount];
+        int count = 0;
+        for (final Renderer renderer : mRenderers) {
+            if (renderer.getTrackType() == C.TRACK_TYPE_AUDIO) {
+                messages[count++] = new ExoPlayer.ExoPlayerMessage(
+                        renderer, OpenRadioAudioRenderer.MSG_SET_RETAIN_CODEC, false
+                );
+            }
+        }
+        mExoPlayer.blockingSendMessages(messages);
     }
 
     /**
@@ -421,17 +573,7 @@ public final class ExoPlayerOpenRadioImpl {
                                      final AudioRendererEventListener eventListener,
                                      final AudioProcessor[] audioProcessors,
                                      final List<Renderer> out) {
-        out.add(
-                new MediaCodecAudioRenderer(
-                        context,
-                        MediaCodecSelector.DEFAULT,
-                        null,
-                        true,
-                        mainHandler,
-                        eventListener,
-                        AudioCapabilities.getCapabilities(context),
-                        audioProcessors)
-        );
+        out.add(new OpenRadioAudioRenderer(context, mainHandler, eventListener, audioProcessors));
     }
 
     /**
@@ -447,6 +589,29 @@ public final class ExoPlayerOpenRadioImpl {
         out.add(new MetadataRenderer(output, mainHandler.getLooper()));
     }
 
+    /**
+     * @return Queue depth and wait times of the shared loader threads, per priority.
+     */
+    private static String getLoaderMetrics() {
+        final LoaderExecutor executor = LoaderExecutor.getInstance();
+        final StringBuilder builder = new StringBuilder("threads ")
+                .append(executor.getThreadCount());
+        final String[] names = {"playback", "prefetch", "probe"};
+        final int[] priorities = {
+                LoaderExecutor.PRIORITY_PLAYBACK,
+                LoaderExecutor.PRIORITY_PREFETCH,
+                LoaderExecutor.PRIORITY_PROBE
+        };
+        for (int i = 0; i < priorities.length; i++) {
+            builder.append(", ").append(names[i])
+                    .append(" queued ").append(executor.getQueueDepth(priorities[i]))
+                    .append(" wait avg ").append(executor.getAverageWaitTimeMs(priorities[i]))
+                    .append(" ms max ").append(executor.getMaxWaitTimeMs(priorities[i]))
+                    .append(" ms");
+        }
+        return builder.toString();
+    }
+
     /**
      * Returns a new DataSource factory.
      *
@@ -459,15 +624,14 @@ public final class ExoPlayerOpenRadioImpl {
                 ? AppPreferencesManager.getCustomUserAgent(context)
                 : AppUtils.getDefaultUserAgent(context);
         AppLogger.d("UserAgent:" + userAgent);
-        return new DefaultDataSourceFactory(
-                context,
-                null,
-                new IcyHttpDataSourceFactory(
-                        userAgent,
-                        icyInputStreamListener,
-                        timeOut
-                )
+        mHttpDataSourceFactory = new IcyHttpDataSourceFactory(
+                userAgent,
+                icyInputStreamListener,
+                timeOut,
+                mExtractorHintCache,
+                mQualityCollector
         );
+        return new DefaultDataSourceFactory(context, null, mHttpDataSourceFactory);
     }
 
     /**
@@ -561,7 +725,18 @@ public final class ExoPlayerOpenRadioImpl {
         public void onAudioDecoderInitialized(final String decoderName,
                                               final long initializedTimestampMs,
                                               final long initializationDurationMs) {
-            AppLogger.d(LOG_TAG + " audioDecoderInitialized " + decoderName);
+            AppLogger.d(
+                    LOG_TAG + " audioDecoderInitialized " + decoderName
+                            + " in " + initializationDurationMs + " ms"
+            );
+            final ExoPlayerOpenRadioImpl reference = mReference.get();
+            if (reference == null) {
+                return;
+            }
+            reference.mQualityCollector.onDecoderInitialized(
+                    reference.newEventTime(), C.TRACK_TYPE_AUDIO,
+                    decoderName, initializationDurationMs
+            );
         }
 
         @Override
@@ -590,7 +765,7 @@ public final class ExoPlayerOpenRadioImpl {
             if (reference == null) {
                 return;
             }
-            reference.updateProgress();
+            reference.mProgressTracker.onPlayerChanged();
         }
 
         @Override
@@ -602,6 +777,11 @@ public final class ExoPlayerOpenRadioImpl {
         @Override
         public void onLoadingChanged(final boolean isLoading) {
             //AppLogger.d(LOG_TAG + " onLoadingChanged");
+            final ExoPlayerOpenRadioImpl reference = mReference.get();
+            if (reference == null) {
+                return;
+            }
+            reference.mProgressTracker.onPlayerChanged();
         }
 
         @Override
@@ -611,6 +791,9 @@ public final class ExoPlayerOpenRadioImpl {
                 return;
             }
             AppLogger.d(LOG_TAG + " onPlayerStateChanged to " + playbackState);
+            reference.mQualityCollector.onPlayerStateChanged(
+                    reference.newEventTime(), playWhenReady, playbackState
+            );
             reference.mListener.onPlayerStateChanged(playWhenReady, playbackState);
             switch (playbackState) {
                 case Player.STATE_BUFFERING:
@@ -618,8 +801,6 @@ public final class ExoPlayerOpenRadioImpl {
                     break;
                 case Player.STATE_ENDED:
                     AppLogger.d(LOG_TAG + " STATE_ENDED, userState:" + reference.mUserState);
-                    reference.mUpdateProgressHandler.removeCallbacks(reference.mUpdateProgressAction);
-
                     if (reference.mUserState != UserState.PAUSE && reference.mUserState != UserState.RESET) {
                         reference.prepare(reference.mUri);
                     }
@@ -638,7 +819,7 @@ public final class ExoPlayerOpenRadioImpl {
                     break;
             }
 
-            reference.updateProgress();
+            reference.mProgressTracker.onPlayerChanged();
         }
 
         @Override
@@ -649,6 +830,7 @@ public final class ExoPlayerOpenRadioImpl {
             if (reference == null) {
                 return;
             }
+            reference.mQualityCollector.onPlayerError(reference.newEventTime(), exception);
 
             AppLogger.e(LOG_TAG + " num of exceptions " + reference.mNumOfExceptions.get());
             if (reference.mNumOfExceptions.getAndIncrement() <= MAX_EXCEPTIONS_COUNT) {
@@ -672,7 +854,7 @@ public final class ExoPlayerOpenRadioImpl {
             if (reference == null) {
                 return;
             }
-            reference.updateProgress();
+            reference.mProgressTracker.onPlayerChanged();
         }
 
         @Override
@@ -695,46 +877,4 @@ public final class ExoPlayerOpenRadioImpl {
 
         }
     }
-
-    /**
-     * Handle playback update progress.
-     */
-    private void updateProgress() {
-        long position;
-        long bufferedPosition;
-        long duration;
-        if (mExoPlayer != null) {
-            position = mExoPlayer.getCurrentPosition();
-            bufferedPosition = mExoPlayer.getBufferedPosition();
-            duration = mExoPlayer.getDuration();
-        } else {
-            // TODO: Investigate why this callback's loop still exists even after destroy()
-            AppLogger.w(LOG_TAG + " update progress with null player");
-            return;
-        }
-
-        AppLogger.d(
-                "Pos:" + position
-                        + ", bufPos:" + bufferedPosition
-                        + ", bufDur:" + (bufferedPosition - position)
-        );
-
-        mListener.onProgress(position, bufferedPosition, duration);
-
-        // Cancel any pending updates and schedule a new one if necessary.
-        mUpdateProgressHandler.removeCallbacks(mUpdateProgressAction);
-        final int playbackState = mExoPlayer.getPlaybackState();
-        if (playbackState != Player.STATE_IDLE && playbackState != Player.STATE_ENDED) {
-            long delayMs;
-            if (mExoPlayer.getPlayWhenReady() && playbackState == Player.STATE_READY) {
-                delayMs = 1000 - (position % 1000);
-                if (delayMs < 200) {
-                    delayMs += 1000;
-                }
-            } else {
-                delayMs = 1000;
-            }
-            mUpdateProgressHandler.postDelayed(mUpdateProgressAction, delayMs);
-        }
-    }
 }
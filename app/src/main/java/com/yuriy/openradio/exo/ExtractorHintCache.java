@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.mp3.Mp3Extractor;
+import com.google.android.exoplayer2.extractor.ogg.OggExtractor;
+import com.google.android.exoplayer2.extractor.ts.Ac3Extractor;
+import com.google.android.exoplayer2.extractor.ts.AdtsExtractor;
+import com.google.android.exoplayer2.extractor.ts.TsExtractor;
+import com.google.android.exoplayer2.extractor.wav.WavExtractor;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache of the extractor hints keyed by stream URL. A hint is the class of the {@link Extractor}
+ * that is expected to read a stream. It comes either from the last successful play of the stream
+ * or from the Content-Type header returned by the server. Successful play takes precedence.
+ */
+public final class ExtractorHintCache {
+
+    /**
+     * Max number of the streams to keep hints for.
+     */
+    private static final int MAX_ENTRIES = 128;
+
+    /**
+     * Map of the known Content-Types to the extractors that read them.
+     */
+    private static final Map<String, Class<? extends Extractor>> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("audio/mpeg", Mp3Extractor.class);
+        CONTENT_TYPES.put("audio/mp3", Mp3Extractor.class);
+        CONTENT_TYPES.put("audio/mpeg3", Mp3Extractor.class);
+        CONTENT_TYPES.put("audio/x-mpeg", Mp3Extractor.class);
+        CONTENT_TYPES.put("audio/aac", AdtsExtractor.class);
+        CONTENT_TYPES.put("audio/aacp", AdtsExtractor.class);
+        CONTENT_TYPES.put("audio/x-aac", AdtsExtractor.class);
+        CONTENT_TYPES.put("audio/ogg", OggExtractor.class);
+        CONTENT_TYPES.put("application/ogg", OggExtractor.class);
+        CONTENT_TYPES.put("audio/ac3", Ac3Extractor.class);
+        CONTENT_TYPES.put("video/mp2t", TsExtractor.class);
+        CONTENT_TYPES.put("audio/wav", WavExtractor.class);
+        CONTENT_TYPES.put("audio/x-wav", WavExtractor.class);
+    }
+
+    /**
+     * Extractors that successfully read streams.
+     */
+    private final Map<String, Class<? extends Extractor>> mPlayedHints = new LruMap<>();
+
+    /**
+     * Extractors derived from the Content-Type of streams.
+     */
+    private final Map<String, Class<? extends Extractor>> mContentTypeHints = new LruMap<>();
+
+    /**
+     * Main constructor.
+     */
+    public ExtractorHintCache() {
+        super();
+    }
+
+    /**
+     * Returns the hint for the stream.
+     *
+     * @param url URL of the stream.
+     * @return Class of the extractor to try first, or {@code null} if nothing is known.
+     */
+    @Nullable
+    public synchronized Class<? extends Extractor> getHint(@NonNull final String url) {
+        final Class<? extends Extractor> hint = mPlayedHints.get(url);
+        if (hint != null) {
+            return hint;
+        }
+        return mContentTypeHints.get(url);
+    }
+
+    /**
+     * Records the extractor that successfully read the stream.
+     *
+     * @param url       URL of the stream.
+     * @param extractor Class of the extractor.
+     */
+    public synchronized void putPlayed(@NonNull final String url,
+                                       @NonNull final Class<? extends Extractor> extractor) {
+        mPlayedHints.put(url, extractor);
+    }
+
+    /**
+     * Records the Content-Type returned for the stream. Unknown types are ignored.
+     *
+     * @param url         URL of the stream.
+     * @param contentType Value of the Content-Type header, may contain parameters.
+     */
+    public synchronized void putContentType(@NonNull final String url,
+                                            @Nullable final String contentType) {
+        final Class<? extends Extractor> extractor = getExtractorForContentType(contentType);
+        if (extractor == null) {
+            return;
+        }
+        mContentTypeHints.put(url, extractor);
+    }
+
+    /**
+     * Removes all hints of the stream, for instance when the hinted extractor failed to read it.
+     *
+     * @param url URL of the stream.
+     */
+    public synchronized void remove(@NonNull final String url) {
+        mPlayedHints.remove(url);
+        mContentTypeHints.remove(url);
+    }
+
+    /**
+     * Maps Content-Type to the extractor class.
+     *
+     * @param contentType Value of the Content-Type header, may contain parameters.
+     * @return Class of the extractor or {@code null} if Content-Type is unknown.
+     */
+    @Nullable
+    static Class<? extends Extractor> getExtractorForContentType(@Nullable final String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String mimeType = contentType;
+        final int index = mimeType.indexOf(';');
+        if (index != -1) {
+            mimeType = mimeType.substring(0, index);
+        }
+        return CONTENT_TYPES.get(mimeType.trim().toLowerCase(Locale.US));
+    }
+
+    /**
+     * Map that evicts the least recently used entry when it grows above {@link #MAX_ENTRIES}.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        /**
+         * Main constructor.
+         */
+        private LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+}
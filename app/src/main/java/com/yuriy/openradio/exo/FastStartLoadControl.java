@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.util.Clock;
+import com.google.android.exoplayer2.util.Util;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link DefaultLoadControl} that starts playback of a stream before the configured playback
+ * buffer is filled.
+ * <p>
+ * Playback starts as soon as {@link #FAST_START_BUFFER_MS} of media is buffered, provided that the
+ * connection delivered the media at least {@link #MIN_ARRIVAL_RATE} times faster than real time
+ * for at least {@link #MIN_MEASUREMENT_MS}, i.e. that the buffer is expected to grow while playing.
+ * The media buffered when the first media is seen is not counted: servers send a burst of several
+ * seconds on connect, which says nothing about the sustained rate. After such a fast
+ * start the buffer keeps loading up to the maximum buffer. If the playback underruns within
+ * {@link #EARLY_UNDERRUN_WINDOW_MS} of a fast start, the classic policy of
+ * {@link DefaultLoadControl} is used for the rest of the stream.
+ * <p>
+ * Apart from {@link #onStreamChanged()}, methods are called on the playback thread.
+ */
+final class FastStartLoadControl extends DefaultLoadControl {
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = FastStartLoadControl.class.getSimpleName();
+
+    /**
+     * Duration of media that is enough for a fast start, in milliseconds.
+     */
+    static final int FAST_START_BUFFER_MS = 1000;
+
+    /**
+     * Minimum ratio of the buffered media duration to the loading time for a fast start.
+     */
+    static final int MIN_ARRIVAL_RATE = 2;
+
+    /**
+     * Minimum time the arrival rate is measured for, in milliseconds.
+     */
+    static final long MIN_MEASUREMENT_MS = 500;
+
+    /**
+     * Time after a fast start within which an underrun falls back to the classic policy,
+     * in milliseconds.
+     */
+    static final long EARLY_UNDERRUN_WINDOW_MS = 30000;
+
+    /**
+     * Clock to measure the loading time with.
+     */
+    @NonNull
+    private final Clock mClock;
+
+    /**
+     * Duration of media that is enough for a fast start, in microseconds.
+     */
+    private final long mFastStartBufferUs;
+
+    /**
+     * Maximum duration of media to buffer, in microseconds.
+     */
+    private final long mMaxBufferUs;
+
+    /**
+     * Whether the next prepare plays a new stream.
+     */
+    private final AtomicBoolean mIsStreamChanged = new AtomicBoolean();
+
+    /**
+     * Whether the classic policy is used for the current stream.
+     */
+    private boolean mIsClassic;
+
+    /**
+     * Time the first media was buffered at, or {@link C#TIME_UNSET}.
+     */
+    private long mFirstMediaMs = C.TIME_UNSET;
+
+    /**
+     * Playout duration of the media buffered when the first media was seen, in microseconds.
+     */
+    private long mFirstMediaUs;
+
+    /**
+     * Time of the latest fast start, or {@link C#TIME_UNSET} if there is none to watch.
+     */
+    private long mFastStartMs = C.TIME_UNSET;
+
+    /**
+     * Whether the buffer grows up to the maximum after a fast start.
+     */
+    private boolean mIsGrowing;
+
+    /**
+     * Main constructor.
+     *
+     * @param allocator                        Allocator of the media buffers.
+     * @param minBufferMs                      Minimum duration of media to buffer, in milliseconds.
+     * @param maxBufferMs                      Maximum duration of media to buffer, in milliseconds.
+     * @param bufferForPlaybackMs              Duration of media to buffer to start playback with
+     *                                         the classic policy, in milliseconds.
+     * @param bufferForPlaybackAfterRebufferMs Duration of media to buffer to resume playback after
+     *                                         a rebuffer, in milliseconds.
+     * @param clock                            Clock to measure the loading time with.
+     */
+    FastStartLoadControl(@NonNull final DefaultAllocator allocator,
+                         final int minBufferMs,
+                         final int maxBufferMs,
+                         final int bufferForPlaybackMs,
+                         final int bufferForPlaybackAfterRebufferMs,
+                         @NonNull final Clock clock) {
+        super(
+                allocator,
+                minBufferMs,
+                maxBufferMs,
+                bufferForPlaybackMs,
+                bufferForPlaybackAfterRebufferMs,
+                DEFAULT_TARGET_BUFFER_BYTES,
+                DEFAULT_PRIORITIZE_TIME_OVER_SIZE_THRESHOLDS
+        );
+        mClock = clock;
+        mFastStartBufferUs = Math.min(FAST_START_BUFFER_MS, bufferForPlaybackMs) * 1000L;
+        mMaxBufferUs = maxBufferMs * 1000L;
+    }
+
+    /**
+     * Called before a stream other than the previous one is prepared, a fast start is tried for it
+     * again. May be called on any thread.
+     */
+    void onStreamChanged() {
+        mIsStreamChanged.set(true);
+    }
+
+    @Override
+    public void onPrepared() {
+        super.onPrepared();
+        if (mIsStreamChanged.getAndSet(false)) {
+            mIsClassic = false;
+        }
+        reset();
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        reset();
+    }
+
+    @Override
+    public void onReleased() {
+        super.onReleased();
+        reset();
+    }
+
+    @Override
+    public boolean shouldContinueLoading(final long bufferedDurationUs, final float playbackSpeed) {
+        if (mIsGrowing) {
+            if (bufferedDurationUs < mMaxBufferUs) {
+                return true;
+            }
+            mIsGrowing = false;
+        }
+        return super.shouldContinueLoading(bufferedDurationUs, playbackSpeed);
+    }
+
+    @Override
+    public boolean shouldStartPlayback(final long bufferedDurationUs, final float playbackSpeed,
+                                       final boolean rebuffering) {
+        if (rebuffering && mFastStartMs != C.TIME_UNSET) {
+            if (mClock.elapsedRealtime() - mFastStartMs < EARLY_UNDERRUN_WINDOW_MS) {
+                AppLogger.w(LOG_TAG + " early underrun, fall back to classic policy");
+                mIsClassic = true;
+                mIsGrowing = false;
+            }
+            mFastStartMs = C.TIME_UNSET;
+        }
+        if (super.shouldStartPlayback(bufferedDurationUs, playbackSpeed, rebuffering)) {
+            return true;
+        }
+        if (mIsClassic || rebuffering || bufferedDurationUs <= 0) {
+            return false;
+        }
+        final long nowMs = mClock.elapsedRealtime();
+        final long playoutDurationUs =
+                Util.getPlayoutDurationForMediaDuration(bufferedDurationUs, playbackSpeed);
+        if (mFirstMediaMs == C.TIME_UNSET) {
+            mFirstMediaMs = nowMs;
+            mFirstMediaUs = playoutDurationUs;
+        }
+        if (playoutDurationUs < mFastStartBufferUs) {
+            return false;
+        }
+        final long loadingMs = nowMs - mFirstMediaMs;
+        if (loadingMs < MIN_MEASUREMENT_MS) {
+            return false;
+        }
+        if ((playoutDurationUs - mFirstMediaUs) / 1000 < MIN_ARRIVAL_RATE * loadingMs) {
+            return false;
+        }
+        AppLogger.d(LOG_TAG + " fast start with " + playoutDurationUs / 1000 + " ms buffered in "
+                + loadingMs + " ms");
+        mFastStartMs = nowMs;
+        mIsGrowing = true;
+        return true;
+    }
+
+    /**
+     * Resets the state of the current playback.
+     */
+    private void reset() {
+        mFirstMediaMs = C.TIME_UNSET;
+        mFirstMediaUs = 0;
+        mFastStartMs = C.TIME_UNSET;
+        mIsGrowing = false;
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.upstream.ByteArrayDataSource;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.LoaderExecutor;
+import com.google.android.exoplayer2.util.PriorityTaskManager;
+import com.google.android.exoplayer2.util.UriUtil;
+import com.google.android.exoplayer2.util.Util;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefetches upcoming segments of a live HLS media playlist into a bounded memory cache.
+ * <p>
+ * On every media playlist refresh the next {@link #PREFETCH_SEGMENTS} segments after the one the
+ * player requested last are loaded in the background, so that the next segment loads while the
+ * current one is demuxed. Prefetch loads are registered in the {@link PriorityTaskManager} with
+ * {@link C#PRIORITY_DOWNLOAD} and only read while no playback read ({@link C#PRIORITY_PLAYBACK})
+ * is in progress.
+ * <p>
+ * A segment the player requests while its prefetch load is in progress is handed over to the
+ * player: it reads the bytes loaded so far and then follows the load, which no longer yields to
+ * playback reads. No byte of the segment is loaded twice.
+ */
+final class HlsSegmentPrefetcher {
+
+    /**
+     * Number of the segments to prefetch ahead of the last requested one.
+     */
+    private static final int PREFETCH_SEGMENTS = 2;
+
+    /**
+     * Max number of bytes kept in memory, including segments being loaded.
+     */
+    private static final int MAX_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = HlsSegmentPrefetcher.class.getSimpleName();
+
+    /**
+     * Factory of the data sources to load segments with.
+     */
+    @NonNull
+    private final DataSource.Factory mUpstreamFactory;
+
+    /**
+     * Manager that gives playback reads priority over prefetch loads.
+     */
+    @NonNull
+    private final PriorityTaskManager mPriorityTaskManager;
+
+    /**
+     * Executor to run prefetch loads on, one at a time, on the shared loader threads.
+     */
+    private final LoaderExecutor.SerialExecutor mExecutor = LoaderExecutor.getInstance()
+            .newSerialExecutor(LOG_TAG, LoaderExecutor.PRIORITY_PREFETCH);
+
+    /**
+     * Loads of the segments, scheduled, in progress or complete, not handed over to the player yet.
+     * Guarded by this.
+     */
+    private final Map<Uri, Load> mLoads = new LinkedHashMap<>();
+
+    /**
+     * Segments of the latest media playlist. Guarded by this.
+     */
+    private List<Uri> mPlaylist = Collections.emptyList();
+
+    /**
+     * Segment requested by the player last. Guarded by this.
+     */
+    private Uri mLastRequested;
+
+    /**
+     * Bytes held by the loads of {@link #mLoads}. Guarded by this.
+     */
+    private int mBytes;
+
+    /**
+     * Whether the prefetcher has been released. Guarded by this.
+     */
+    private boolean mIsReleased;
+
+    /**
+     * Main constructor.
+     *
+     * @param upstreamFactory     Factory of the data sources to load segments with.
+     * @param priorityTaskManager Manager shared with the playback data sources.
+     */
+    HlsSegmentPrefetcher(@NonNull final DataSource.Factory upstreamFactory,
+                         @NonNull final PriorityTaskManager priorityTaskManager) {
+        super();
+        mUpstreamFactory = upstreamFactory;
+        mPriorityTaskManager = priorityTaskManager;
+    }
+
+    /**
+     * @return Manager that gives playback reads priority over prefetch loads.
+     */
+    @NonNull
+    PriorityTaskManager getPriorityTaskManager() {
+        return mPriorityTaskManager;
+    }
+
+    /**
+     * Handles refreshed media playlist.
+     *
+     * @param playlist Media playlist.
+     */
+    void onMediaPlaylist(@NonNull final HlsMediaPlaylist playlist) {
+        if (playlist.hasEndTag) {
+            // Not a live playlist.
+            return;
+        }
+        final List<Uri> segments = new ArrayList<>(playlist.segments.size());
+        for (final HlsMediaPlaylist.Segment segment : playlist.segments) {
+            if (segment.byterangeLength != C.LENGTH_UNSET) {
+                // Sub-ranges of a resource are not prefetched.
+                continue;
+            }
+            segments.add(UriUtil.resolveToUri(playlist.baseUri, segment.url));
+        }
+        synchronized (this) {
+            mPlaylist = segments;
+            final Iterator<Load> iterator = mLoads.values().iterator();
+            while (iterator.hasNext()) {
+                final Load load = iterator.next();
+                if (!segments.contains(load.mUri)) {
+                    iterator.remove();
+                    drop(load);
+                }
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * Takes prefetched segment requested by the player. A complete segment is served if it covers
+     * the requested range, otherwise it is kept. A load in progress is handed over if the range
+     * extends to the end of the segment. Any other load is dropped. Never waits.
+     *
+     * @param dataSpec Requested range of the segment.
+     * @return Data source to read the segment with, not opened yet, or {@code null} if the segment
+     * is to be loaded from upstream.
+     */
+    @Nullable
+    synchronized DataSource take(@NonNull final DataSpec dataSpec) {
+        final Uri uri = dataSpec.uri;
+        mLastRequested = uri;
+        DataSource dataSource = null;
+        final Load load = mLoads.get(uri);
+        if (load != null) {
+            final byte[] data = load.getData();
+            if (data != null) {
+                if (isSatisfiable(dataSpec, data.length)) {
+                    mLoads.remove(uri);
+                    mBytes -= load.mReserved;
+                    dataSource = new ByteArrayDataSource(data);
+                    AppLogger.d(LOG_TAG + " serve prefetched " + uri);
+                }
+            } else if (dataSpec.length == C.LENGTH_UNSET && load.handOver()) {
+                mLoads.remove(uri);
+                mBytes -= load.mReserved;
+                dataSource = new LoadDataSource(load);
+                AppLogger.d(LOG_TAG + " hand over prefetch of " + uri);
+            } else {
+                mLoads.remove(uri);
+                drop(load);
+            }
+        }
+        schedule();
+        return dataSource;
+    }
+
+    /**
+     * Releases the prefetcher and drops all prefetched segments.
+     */
+    synchronized void release() {
+        mIsReleased = true;
+        for (final Load load : mLoads.values()) {
+            load.finish(false);
+        }
+        mLoads.clear();
+        mBytes = 0;
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * Schedules loads of the segments that follow the last requested one. Must be called while
+     * holding the lock.
+     */
+    private void schedule() {
+        if (mIsReleased || mLastRequested == null) {
+            return;
+        }
+        final int index = mPlaylist.indexOf(mLastRequested);
+        if (index == -1) {
+            return;
+        }
+        final int end = Math.min(mPlaylist.size(), index + 1 + PREFETCH_SEGMENTS);
+        for (int i = index + 1; i < end; i++) {
+            final Uri uri = mPlaylist.get(i);
+            if (mLoads.containsKey(uri)) {
+                continue;
+            }
+            if (mBytes >= MAX_BYTES) {
+                return;
+            }
+            final Load load = new Load(uri);
+            mLoads.put(uri, load);
+            mExecutor.execute(() -> load(load));
+        }
+    }
+
+    /**
+     * Drops a load removed from {@link #mLoads}, a load in progress stops on its next read. Must be
+     * called while holding the lock.
+     *
+     * @param load Load to drop.
+     */
+    private void drop(@NonNull final Load load) {
+        mBytes -= load.mReserved;
+        load.finish(false);
+    }
+
+    /**
+     * Loads segment. Runs on the prefetch thread.
+     *
+     * @param load Load of the segment.
+     */
+    private void load(@NonNull final Load load) {
+        if (!load.start()) {
+            return;
+        }
+        boolean isLoaded = false;
+        final DataSource dataSource = mUpstreamFactory.createDataSource();
+        mPriorityTaskManager.add(C.PRIORITY_DOWNLOAD);
+        try {
+            // Opening is not deferred, it is the round trip prefetching is meant to hide.
+            dataSource.open(new DataSpec(load.mUri));
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (true) {
+                if (!load.isHandedOver()) {
+                    mPriorityTaskManager.proceed(C.PRIORITY_DOWNLOAD);
+                }
+                final int read = dataSource.read(buffer, 0, buffer.length);
+                if (read == C.RESULT_END_OF_INPUT) {
+                    break;
+                }
+                if (!reserve(load, read)) {
+                    return;
+                }
+                load.append(buffer, read);
+            }
+            isLoaded = true;
+        } catch (final IOException e) {
+            AppLogger.w(LOG_TAG + " prefetch of " + load.mUri + " failed:" + e.getMessage());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            mPriorityTaskManager.remove(C.PRIORITY_DOWNLOAD);
+            Util.closeQuietly(dataSource);
+            complete(load, isLoaded);
+        }
+    }
+
+    /**
+     * Accounts bytes read by a prefetch load against the budget. Loads handed over to the player are
+     * not accounted.
+     *
+     * @param load  Load of the segment.
+     * @param bytes Number of the bytes just read.
+     * @return {@code true} if the load should continue, {@code false} if it is no longer needed or
+     * exceeds the budget.
+     */
+    private synchronized boolean reserve(@NonNull final Load load, final int bytes) {
+        if (load.isHandedOver()) {
+            return true;
+        }
+        if (mIsReleased || mLoads.get(load.mUri) != load || !mPlaylist.contains(load.mUri)) {
+            return false;
+        }
+        if (mBytes + bytes > MAX_BYTES) {
+            AppLogger.w(LOG_TAG + " prefetch budget exceeded by " + load.mUri);
+            return false;
+        }
+        mBytes += bytes;
+        load.mReserved += bytes;
+        return true;
+    }
+
+    /**
+     * Completes prefetch load.
+     *
+     * @param load     Load of the segment.
+     * @param isLoaded Whether the segment is loaded completely.
+     */
+    private synchronized void complete(@NonNull final Load load, final boolean isLoaded) {
+        load.finish(isLoaded);
+        if (!isLoaded && mLoads.get(load.mUri) == load) {
+            mLoads.remove(load.mUri);
+            mBytes -= load.mReserved;
+        }
+    }
+
+    /**
+     * @param dataSpec Requested range.
+     * @param length   Length of the prefetched segment.
+     * @return {@code true} if the range can be served from the prefetched segment.
+     */
+    private static boolean isSatisfiable(@NonNull final DataSpec dataSpec, final int length) {
+        if (dataSpec.position >= length) {
+            return false;
+        }
+        return dataSpec.length == C.LENGTH_UNSET || dataSpec.position + dataSpec.length <= length;
+    }
+
+    /**
+     * Load of a segment, which can be handed over to the player while in progress.
+     */
+    private static final class Load {
+
+        /**
+         * URI of the segment.
+         */
+        @NonNull
+        private final Uri mUri;
+
+        /**
+         * Bytes accounted against the budget of the prefetcher. Guarded by the prefetcher.
+         */
+        private int mReserved;
+
+        /**
+         * Bytes loaded so far. Guarded by this.
+         */
+        private byte[] mData = new byte[BUFFER_SIZE];
+
+        /**
+         * Number of the bytes loaded so far. Guarded by this.
+         */
+        private int mLength;
+
+        /**
+         * Whether the load started. Guarded by this.
+         */
+        private boolean mIsStarted;
+
+        /**
+         * Whether the load finished, successfully or not. Guarded by this.
+         */
+        private boolean mIsFinished;
+
+        /**
+         * Whether the segment is loaded completely. Guarded by this.
+         */
+        private boolean mIsLoaded;
+
+        /**
+         * Whether the load is handed over to the player.
+         */
+        private volatile boolean mIsHandedOver;
+
+        /**
+         * Main constructor.
+         *
+         * @param uri URI of the segment.
+         */
+        private Load(@NonNull final Uri uri) {
+            super();
+            mUri = uri;
+        }
+
+        /**
+         * @return {@code true} if the load is to start, {@code false} if it has been dropped.
+         */
+        private synchronized boolean start() {
+            if (mIsFinished) {
+                return false;
+            }
+            mIsStarted = true;
+            return true;
+        }
+
+        /**
+         * Hands the load in progress over to the player.
+         *
+         * @return {@code true} if the load is handed over, {@code false} if it has not started.
+         */
+        private synchronized boolean handOver() {
+            if (!mIsStarted || mIsFinished) {
+                return false;
+            }
+            mIsHandedOver = true;
+            return true;
+        }
+
+        /**
+         * @return Whether the load is handed over to the player.
+         */
+        private boolean isHandedOver() {
+            return mIsHandedOver;
+        }
+
+        /**
+         * @return Data of the segment if it is loaded completely, {@code null} otherwise.
+         */
+        @Nullable
+        private synchronized byte[] getData() {
+            if (!mIsLoaded) {
+                return null;
+            }
+            if (mData.length != mLength) {
+                mData = Arrays.copyOf(mData, mLength);
+            }
+            return mData;
+        }
+
+        /**
+         * Appends loaded bytes.
+         *
+         * @param buffer Buffer with the bytes.
+         * @param length Number of the bytes.
+         */
+        private synchronized void append(@NonNull final byte[] buffer, final int length) {
+            if (mLength + length > mData.length) {
+                mData = Arrays.copyOf(mData, Math.max(mData.length * 2, mLength + length));
+            }
+            System.arraycopy(buffer, 0, mData, mLength, length);
+            mLength += length;
+            notifyAll();
+        }
+
+        /**
+         * Finishes the load, does nothing if it has finished already.
+         *
+         * @param isLoaded Whether the segment is loaded completely.
+         */
+        private synchronized void finish(final boolean isLoaded) {
+            if (mIsFinished) {
+                return;
+            }
+            mIsFinished = true;
+            mIsLoaded = isLoaded;
+            notifyAll();
+        }
+
+        /**
+         * Reads loaded bytes, waiting for the load if they are not loaded yet.
+         *
+         * @param position Position in the segment to read from.
+         * @param buffer   Buffer to read into.
+         * @param offset   Offset in the buffer.
+         * @param length   Max number of the bytes to read.
+         * @return Number of the bytes read or {@link C#RESULT_END_OF_INPUT}.
+         * @throws IOException If the load failed or the wait was interrupted.
+         */
+        private synchronized int read(final long position,
+                                      @NonNull final byte[] buffer,
+                                      final int offset,
+                                      final int length) throws IOException {
+            while (position >= mLength && !mIsFinished) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (position >= mLength) {
+                if (mIsLoaded) {
+                    return C.RESULT_END_OF_INPUT;
+                }
+                throw new IOException("Prefetch of " + mUri + " failed");
+            }
+            final int read = (int) Math.min(length, mLength - position);
+            System.arraycopy(mData, (int) position, buffer, offset, read);
+            return read;
+        }
+    }
+
+    /**
+     * {@link DataSource} that reads a segment from its load handed over to the player.
+     */
+    private static final class LoadDataSource implements DataSource {
+
+        /**
+         * Load of the segment.
+         */
+        @NonNull
+        private final Load mLoad;
+
+        /**
+         * Position in the segment to read from next, or {@link C#POSITION_UNSET} if not opened.
+         */
+        private long mPosition = C.POSITION_UNSET;
+
+        /**
+         * Main constructor.
+         *
+         * @param load Load of the segment.
+         */
+        private LoadDataSource(@NonNull final Load load) {
+            super();
+            mLoad = load;
+        }
+
+        @Override
+        public long open(final DataSpec dataSpec) {
+            mPosition = dataSpec.position;
+            // The length of the segment is known once the load completes.
+            return C.LENGTH_UNSET;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int readLength)
+                throws IOException {
+            if (readLength == 0) {
+                return 0;
+            }
+            final int read = mLoad.read(mPosition, buffer, offset, readLength);
+            if (read != C.RESULT_END_OF_INPUT) {
+                mPosition += read;
+            }
+            return read;
+        }
+
+        @Override
+        public Uri getUri() {
+            return mPosition == C.POSITION_UNSET ? null : mLoad.mUri;
+        }
+
+        @Override
+        public void close() {
+            mPosition = C.POSITION_UNSET;
+        }
+    }
+}
@@ -16,33 +16,32 @@
 
 package com.yuriy.openradio.exo;
 
+import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.FabricUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A {@link IcyDataSource} that uses ExoPlayer's {@link DefaultHttpDataSource}.
  */
 final class IcyDataSource extends DefaultHttpDataSource {
 
-    /**
-     * Max number of read exceptions allowed.
-     */
-    private static final int MAX_EXCEPTION_COUNT = 2;
-
     /**
      * Listener for the ICY stream events.
      */
     private final IcyInputStreamListener mListener;
 
     /**
-     * Counter for the read exceptions.
+     * Cache of the extractor hints to record Content-Type of the stream to.
      */
-    private int mExceptionCounter = 0;
+    private final ExtractorHintCache mExtractorHintCache;
 
     /**
      * Main constructor.
@@ -51,30 +50,45 @@ final class IcyDataSource extends DefaultHttpDataSource {
      * @param connectTimeoutMillis The connection timeout, in milliseconds.
      * @param readTimeoutMillis    The read timeout, in milliseconds.
      * @param listener             Listener for the ICY stream events.
+     * @param extractorHintCache   Cache of the extractor hints.
+     * @param transferListener     Listener of the transfers, may be {@code null}.
      */
     IcyDataSource(final String userAgent,
                   final int connectTimeoutMillis,
                   final int readTimeoutMillis,
-                  final IcyInputStreamListener listener) {
+                  final IcyInputStreamListener listener,
+                  final ExtractorHintCache extractorHintCache,
+                  final TransferListener<? super DefaultHttpDataSource> transferListener) {
         super(
-                userAgent, null, null,
+                userAgent, null, transferListener,
                 connectTimeoutMillis, readTimeoutMillis, true, null
         );
         mListener = listener;
+        mExtractorHintCache = extractorHintCache;
         setRequestProperty("Icy-Metadata", "1");
     }
 
     @Override
-    public int read(byte[] buffer, int offset, int readLength) throws HttpDataSourceException {
-        try {
-            return super.read(buffer, offset, readLength);
-        } catch (Exception e) {
-            AppLogger.e("IcyInputStream read error " + mExceptionCounter);
-            if (mExceptionCounter++ < MAX_EXCEPTION_COUNT) {
-                return 0;
+    public long open(final DataSpec dataSpec) throws HttpDataSourceException {
+        final long length = super.open(dataSpec);
+        mExtractorHintCache.putContentType(dataSpec.uri.toString(), getContentType());
+        return length;
+    }
+
+    /**
+     * @return Value of the Content-Type header of the response or {@code null} if there is none.
+     */
+    private String getContentType() {
+        for (final Map.Entry<String, List<String>> entry : getResponseHeaders().entrySet()) {
+            if (!"Content-Type".equalsIgnoreCase(entry.getKey())) {
+                continue;
+            }
+            final List<String> values = entry.getValue();
+            if (values != null && !values.isEmpty()) {
+                return values.get(0);
             }
-            return super.read(buffer, offset, readLength);
         }
+        return null;
     }
 
     /**
@@ -17,9 +17,11 @@
 package com.yuriy.openradio.exo;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
 
 /**
  * Data source factory designed in a way to provide {@link IcyDataSource} when required.
@@ -40,6 +42,16 @@ final class IcyHttpDataSourceFactory implements DataSource.Factory {
      */
     @NonNull
     private final IcyInputStreamListener mIcyInputStreamListener;
+    /**
+     * Cache of the extractor hints used in {@link IcyDataSource}.
+     */
+    @NonNull
+    private final ExtractorHintCache mExtractorHintCache;
+    /**
+     * Listener of the transfers of {@link IcyDataSource}.
+     */
+    @Nullable
+    private final TransferListener<? super DefaultHttpDataSource> mTransferListener;
 
     /**
      * Main constructor.
@@ -47,20 +59,27 @@ final class IcyHttpDataSourceFactory implements DataSource.Factory {
      * @param userAgent              The User-Agent string that should be used.
      * @param icyInputStreamListener Listener for the ICY stream events.
      * @param timeOut                The connection timeout, in milliseconds.
+     * @param extractorHintCache     Cache of the extractor hints.
+     * @param transferListener       Listener of the transfers.
      */
     IcyHttpDataSourceFactory(@NonNull final String userAgent,
                              @NonNull final IcyInputStreamListener icyInputStreamListener,
-                             final int timeOut) {
+                             final int timeOut,
+                             @NonNull final ExtractorHintCache extractorHintCache,
+                             @Nullable final TransferListener<? super DefaultHttpDataSource> transferListener) {
         super();
         mUserAgent = userAgent;
         mIcyInputStreamListener = icyInputStreamListener;
         mTimeOut = timeOut;
+        mExtractorHintCache = extractorHintCache;
+        mTransferListener = transferListener;
     }
 
     @Override
     public DefaultHttpDataSource createDataSource() {
         return new IcyDataSource(
-                mUserAgent, mTimeOut, mTimeOut, mIcyInputStreamListener
+                mUserAgent, mTimeOut, mTimeOut, mIcyInputStreamListener, mExtractorHintCache,
+                mTransferListener
         );
     }
 }
\ No newline at end of file
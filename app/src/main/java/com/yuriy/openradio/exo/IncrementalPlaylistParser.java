@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.upstream.ParsingLoadable;
+import com.google.android.exoplayer2.util.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser of the HLS playlists that makes refreshes of a live media playlist cheap. A refresh with
+ * the same content as the previous load (including a 304 response replayed by
+ * {@link ConditionalPlaylistDataSource}) returns the previous playlist without parsing, any other
+ * refresh is parsed against the previous playlist, so that only the segments appended since then
+ * are parsed and allocated.
+ */
+final class IncrementalPlaylistParser implements ParsingLoadable.Parser<HlsPlaylist> {
+
+    /**
+     * Listener of the parsed media playlists.
+     */
+    interface Listener {
+
+        /**
+         * Called on a loader thread when a media playlist is loaded.
+         *
+         * @param playlist Media playlist.
+         */
+        void onMediaPlaylist(@NonNull final HlsMediaPlaylist playlist);
+    }
+
+    /**
+     * Previous load of a media playlist.
+     */
+    private static final class Load {
+
+        /**
+         * Content of the playlist.
+         */
+        @NonNull
+        private final byte[] mContent;
+
+        /**
+         * Parsed playlist.
+         */
+        @NonNull
+        private final HlsMediaPlaylist mPlaylist;
+
+        /**
+         * Main constructor.
+         *
+         * @param content  Content of the playlist.
+         * @param playlist Parsed playlist.
+         */
+        private Load(@NonNull final byte[] content, @NonNull final HlsMediaPlaylist playlist) {
+            super();
+            mContent = content;
+            mPlaylist = playlist;
+        }
+    }
+
+    /**
+     * Parser of the playlists.
+     */
+    private final HlsPlaylistParser mParser = new HlsPlaylistParser();
+
+    /**
+     * Previous loads of the media playlists, by URI. Guarded by this.
+     */
+    private final Map<Uri, Load> mLoads = new HashMap<>();
+
+    /**
+     * Listener of the parsed media playlists.
+     */
+    @Nullable
+    private final Listener mListener;
+
+    /**
+     * Main constructor.
+     *
+     * @param listener Listener of the parsed media playlists.
+     */
+    IncrementalPlaylistParser(@Nullable final Listener listener) {
+        super();
+        mListener = listener;
+    }
+
+    @Override
+    public HlsPlaylist parse(final Uri uri, final InputStream inputStream) throws IOException {
+        // Playlists are small, reading one into memory costs less than parsing it again.
+        final byte[] content = Util.toByteArray(inputStream);
+        final Load previous;
+        synchronized (this) {
+            previous = mLoads.get(uri);
+        }
+        final HlsPlaylist playlist;
+        if (previous != null && Arrays.equals(previous.mContent, content)) {
+            playlist = previous.mPlaylist;
+        } else {
+            playlist = mParser.parse(
+                    uri,
+                    new ByteArrayInputStream(content),
+                    previous == null ? null : previous.mPlaylist
+            );
+        }
+        if (!(playlist instanceof HlsMediaPlaylist)) {
+            return playlist;
+        }
+        final HlsMediaPlaylist mediaPlaylist = (HlsMediaPlaylist) playlist;
+        synchronized (this) {
+            mLoads.put(uri, new Load(content, mediaPlaylist));
+        }
+        if (mListener != null) {
+            mListener.onMediaPlaylist(mediaPlaylist);
+        }
+        return mediaPlaylist;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.audio.AudioCapabilities;
+import com.google.android.exoplayer2.audio.AudioProcessor;
+import com.google.android.exoplayer2.audio.AudioRendererEventListener;
+import com.google.android.exoplayer2.audio.MediaCodecAudioRenderer;
+import com.google.android.exoplayer2.mediacodec.MediaCodecSelector;
+import com.yuriy.openradio.utils.AppLogger;
+
+/**
+ * Audio renderer that keeps its decoder configured between streams. Each station switch prepares
+ * a new media source, which disables the renderer. Instead of releasing the decoder, it is flushed
+ * and reused for the next station if the new format is compatible (e.g. MP3 to MP3 with the same
+ * sample rate and channel count), which removes codec initialization from the switch.
+ */
+final class OpenRadioAudioRenderer extends MediaCodecAudioRenderer {
+
+    /**
+     * Message type to enable or disable retaining of the decoder. Message payload is a
+     * {@link Boolean}. Disabling releases a decoder that is currently retained.
+     */
+    static final int MSG_SET_RETAIN_CODEC = C.MSG_CUSTOM_BASE;
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = OpenRadioAudioRenderer.class.getSimpleName();
+
+    /**
+     * Main constructor.
+     *
+     * @param context         Application context.
+     * @param eventHandler    A handler to use when delivering events to {@code eventListener}.
+     * @param eventListener   A listener of events.
+     * @param audioProcessors Optional {@link AudioProcessor}s that will process PCM audio before
+     *                        output.
+     */
+    OpenRadioAudioRenderer(@NonNull final Context context,
+                           @NonNull final Handler eventHandler,
+                           @NonNull final AudioRendererEventListener eventListener,
+                           @NonNull final AudioProcessor... audioProcessors) {
+        super(
+                context,
+                MediaCodecSelector.DEFAULT,
+                null,
+                true,
+                eventHandler,
+                eventListener,
+                AudioCapabilities.getCapabilities(context),
+                audioProcessors
+        );
+        setRetainCodecOnDisable(true);
+    }
+
+    @Override
+    public void handleMessage(final int messageType, final Object message) throws ExoPlaybackException {
+        if (messageType == MSG_SET_RETAIN_CODEC) {
+            final boolean retain = (Boolean) message;
+            AppLogger.d(LOG_TAG + " retain codec:" + retain);
+            setRetainCodecOnDisable(retain);
+            return;
+        }
+        super.handleMessage(messageType, message);
+    }
+}
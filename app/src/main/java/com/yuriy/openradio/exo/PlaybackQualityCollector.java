@@ -0,0 +1,277 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.analytics.DefaultAnalyticsListener;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.yuriy.openradio.business.storage.PlaybackQualityStorage;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the quality of experience of the playback sessions: time to the first audio, number
+ * and duration of the stalls, loaded bytes, decoder initialization time and cause of the errors.
+ * A session lasts from the prepare of a station to stop, re-prepares of the same station after an
+ * error continue it. Finished sessions are stored in {@link PlaybackQualityStorage}.
+ * <p>
+ * Analytics events are received on the main thread, transfer events on the loading threads.
+ */
+final class PlaybackQualityCollector extends DefaultAnalyticsListener
+        implements TransferListener<Object> {
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = PlaybackQualityCollector.class.getSimpleName();
+
+    /**
+     * Application context.
+     */
+    @NonNull
+    private final Context mContext;
+
+    /**
+     * Number of bytes loaded during the session.
+     */
+    private final AtomicLong mBytes = new AtomicLong();
+
+    /**
+     * URL of the station of the session, or {@code null} if there is no session.
+     */
+    private String mStation;
+
+    /**
+     * Type of the network the session started on.
+     */
+    private String mNetworkType;
+
+    /**
+     * Time the session started at, in milliseconds of the elapsed real time.
+     */
+    private long mStartMs;
+
+    /**
+     * Time of the first audio, or {@link C#TIME_UNSET} if there was none yet.
+     */
+    private long mFirstAudioMs;
+
+    /**
+     * Time the current playback interval started at, or {@link C#TIME_UNSET} if not playing.
+     */
+    private long mPlayingSinceMs;
+
+    /**
+     * Total duration of the finished playback intervals.
+     */
+    private long mPlayedMs;
+
+    /**
+     * Time the current stall started at, or {@link C#TIME_UNSET} if not stalled.
+     */
+    private long mStallSinceMs;
+
+    /**
+     * Number of the stalls.
+     */
+    private int mStallCount;
+
+    /**
+     * Total duration of the finished stalls.
+     */
+    private long mStallDurationMs;
+
+    /**
+     * Time the decoder took to initialize, or {@link C#TIME_UNSET} if it was reused.
+     */
+    private long mDecoderInitMs;
+
+    /**
+     * Cause of the last error, or {@code null} if there was none.
+     */
+    private String mError;
+
+    /**
+     * Main constructor.
+     *
+     * @param context Context of the callee.
+     */
+    PlaybackQualityCollector(@NonNull final Context context) {
+        super();
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Starts a session of the station, finishing the session of another station, if any.
+     *
+     * @param station URL of the station.
+     */
+    void startSession(@NonNull final String station) {
+        if (station.equals(mStation)) {
+            return;
+        }
+        endSession();
+        mStation = station;
+        mNetworkType = getNetworkType();
+        mStartMs = SystemClock.elapsedRealtime();
+        mFirstAudioMs = C.TIME_UNSET;
+        mPlayingSinceMs = C.TIME_UNSET;
+        mPlayedMs = 0;
+        mStallSinceMs = C.TIME_UNSET;
+        mStallCount = 0;
+        mStallDurationMs = 0;
+        mDecoderInitMs = C.TIME_UNSET;
+        mError = null;
+        mBytes.set(0);
+    }
+
+    /**
+     * Finishes the current session, if any, and stores it.
+     */
+    void endSession() {
+        if (mStation == null) {
+            return;
+        }
+        final long nowMs = SystemClock.elapsedRealtime();
+        if (mPlayingSinceMs != C.TIME_UNSET) {
+            mPlayedMs += nowMs - mPlayingSinceMs;
+        }
+        if (mStallSinceMs != C.TIME_UNSET) {
+            mStallDurationMs += nowMs - mStallSinceMs;
+        }
+        final long durationMs = nowMs - mStartMs;
+        final PlaybackQualityStorage.Session session = new PlaybackQualityStorage.Session(
+                System.currentTimeMillis() - durationMs,
+                mStation,
+                mNetworkType,
+                mFirstAudioMs == C.TIME_UNSET ? C.TIME_UNSET : mFirstAudioMs - mStartMs,
+                mStallCount,
+                mStallDurationMs,
+                mPlayedMs,
+                durationMs,
+                mBytes.get(),
+                mDecoderInitMs,
+                mError
+        );
+        mStation = null;
+        AppLogger.d(LOG_TAG + " session " + session);
+        PlaybackQualityStorage.add(mContext, session);
+    }
+
+    @Override
+    public void onPlayerStateChanged(final EventTime eventTime,
+                                     final boolean playWhenReady,
+                                     final int playbackState) {
+        if (mStation == null) {
+            return;
+        }
+        final long nowMs = eventTime.realtimeMs;
+        if (playWhenReady && playbackState == Player.STATE_READY) {
+            if (mFirstAudioMs == C.TIME_UNSET) {
+                mFirstAudioMs = nowMs;
+            }
+            if (mStallSinceMs != C.TIME_UNSET) {
+                mStallDurationMs += nowMs - mStallSinceMs;
+                mStallSinceMs = C.TIME_UNSET;
+            }
+            if (mPlayingSinceMs == C.TIME_UNSET) {
+                mPlayingSinceMs = nowMs;
+            }
+            return;
+        }
+        if (mPlayingSinceMs == C.TIME_UNSET) {
+            return;
+        }
+        mPlayedMs += nowMs - mPlayingSinceMs;
+        mPlayingSinceMs = C.TIME_UNSET;
+        if (playWhenReady) {
+            // Playback stopped without being asked to, including re-prepares after errors.
+            mStallCount++;
+            mStallSinceMs = nowMs;
+        }
+    }
+
+    @Override
+    public void onDecoderInitialized(final EventTime eventTime,
+                                     final int trackType,
+                                     final String decoderName,
+                                     final long initializationDurationMs) {
+        if (mStation != null && mDecoderInitMs == C.TIME_UNSET) {
+            mDecoderInitMs = initializationDurationMs;
+        }
+    }
+
+    @Override
+    public void onPlayerError(final EventTime eventTime, final ExoPlaybackException error) {
+        if (mStation == null) {
+            return;
+        }
+        final String type;
+        switch (error.type) {
+            case ExoPlaybackException.TYPE_SOURCE:
+                type = "source";
+                break;
+            case ExoPlaybackException.TYPE_RENDERER:
+                type = "renderer";
+                break;
+            default:
+                type = "unexpected";
+                break;
+        }
+        final Throwable cause = error.getCause();
+        mError = cause == null ? type : type + ":" + cause.getClass().getSimpleName();
+    }
+
+    @Override
+    public void onTransferStart(final Object source, final DataSpec dataSpec) {
+        // Do nothing.
+    }
+
+    @Override
+    public void onBytesTransferred(final Object source, final int bytesTransferred) {
+        mBytes.addAndGet(bytesTransferred);
+    }
+
+    @Override
+    public void onTransferEnd(final Object source) {
+        // Do nothing.
+    }
+
+    /**
+     * @return Name of the type of the default network, e.g. WIFI or MOBILE.
+     */
+    @NonNull
+    private String getNetworkType() {
+        final ConnectivityManager manager =
+                (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        final NetworkInfo info = manager == null ? null : manager.getActiveNetworkInfo();
+        if (info == null || !info.isConnected()) {
+            return "NONE";
+        }
+        return info.getTypeName();
+    }
+}
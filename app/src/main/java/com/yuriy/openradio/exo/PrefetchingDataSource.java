@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.hls.HlsDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.util.PriorityTaskManager;
+import com.google.android.exoplayer2.util.Util;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * {@link DataSource} for HLS media segments. Serves segments prefetched by
+ * {@link HlsSegmentPrefetcher}, complete or still loading, and loads all others from upstream.
+ * Every upstream open and read is registered with {@link C#PRIORITY_PLAYBACK}, so that prefetch
+ * loads yield to it but go on while the loaded data is demuxed. If a prefetch handed over by
+ * {@link HlsSegmentPrefetcher#take(DataSpec)} fails, the rest of the segment is loaded from
+ * upstream.
+ */
+final class PrefetchingDataSource implements DataSource {
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = PrefetchingDataSource.class.getSimpleName();
+
+    /**
+     * Factory that wraps media segment data sources into {@link PrefetchingDataSource} and loads
+     * playlists with a dedicated factory.
+     */
+    static final class Factory implements HlsDataSourceFactory {
+
+        /**
+         * Factory of the upstream data sources.
+         */
+        @NonNull
+        private final DataSource.Factory mUpstreamFactory;
+
+        /**
+         * Factory of the playlist data sources.
+         */
+        @NonNull
+        private final DataSource.Factory mPlaylistFactory;
+
+        /**
+         * Prefetcher of the segments.
+         */
+        @NonNull
+        private final HlsSegmentPrefetcher mPrefetcher;
+
+        /**
+         * Main constructor.
+         *
+         * @param upstreamFactory Factory of the upstream data sources.
+         * @param playlistFactory Factory of the playlist data sources.
+         * @param prefetcher      Prefetcher of the segments.
+         */
+        Factory(@NonNull final DataSource.Factory upstreamFactory,
+                @NonNull final DataSource.Factory playlistFactory,
+                @NonNull final HlsSegmentPrefetcher prefetcher) {
+            super();
+            mUpstreamFactory = upstreamFactory;
+            mPlaylistFactory = playlistFactory;
+            mPrefetcher = prefetcher;
+        }
+
+        @Override
+        public DataSource createDataSource(final int dataType) {
+            switch (dataType) {
+                case C.DATA_TYPE_MANIFEST:
+                    return mPlaylistFactory.createDataSource();
+                case C.DATA_TYPE_MEDIA:
+                    return new PrefetchingDataSource(
+                            mUpstreamFactory.createDataSource(), mPrefetcher
+                    );
+                default:
+                    return mUpstreamFactory.createDataSource();
+            }
+        }
+    }
+
+    /**
+     * Upstream data source.
+     */
+    @NonNull
+    private final DataSource mUpstream;
+
+    /**
+     * Prefetcher of the segments.
+     */
+    @NonNull
+    private final HlsSegmentPrefetcher mPrefetcher;
+
+    /**
+     * Data source currently opened, either upstream or prefetched segment.
+     */
+    private DataSource mDataSource;
+
+    /**
+     * Range opened.
+     */
+    private DataSpec mDataSpec;
+
+    /**
+     * Number of the bytes read since open.
+     */
+    private long mBytesRead;
+
+    /**
+     * Main constructor.
+     *
+     * @param upstream   Upstream data source.
+     * @param prefetcher Prefetcher of the segments.
+     */
+    private PrefetchingDataSource(@NonNull final DataSource upstream,
+                                  @NonNull final HlsSegmentPrefetcher prefetcher) {
+        super();
+        mUpstream = upstream;
+        mPrefetcher = prefetcher;
+    }
+
+    @Override
+    public long open(final DataSpec dataSpec) throws IOException {
+        mDataSpec = dataSpec;
+        mBytesRead = 0;
+        final DataSource prefetched = mPrefetcher.take(dataSpec);
+        if (prefetched != null) {
+            mDataSource = prefetched;
+            return prefetched.open(dataSpec);
+        }
+        return openUpstream(dataSpec);
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int readLength) throws IOException {
+        int read;
+        if (mDataSource == mUpstream) {
+            read = readUpstream(buffer, offset, readLength);
+        } else {
+            try {
+                read = mDataSource.read(buffer, offset, readLength);
+            } catch (final InterruptedIOException e) {
+                throw e;
+            } catch (final IOException e) {
+                AppLogger.w(LOG_TAG + " load rest of " + mDataSpec.uri + " from upstream:"
+                        + e.getMessage());
+                Util.closeQuietly(mDataSource);
+                openUpstream(mDataSpec.subrange(mBytesRead));
+                read = readUpstream(buffer, offset, readLength);
+            }
+        }
+        if (read > 0) {
+            mBytesRead += read;
+        }
+        return read;
+    }
+
+    @Override
+    public Uri getUri() {
+        return mDataSource == null ? null : mDataSource.getUri();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mDataSource == null) {
+            return;
+        }
+        try {
+            mDataSource.close();
+        } finally {
+            mDataSource = null;
+            mDataSpec = null;
+        }
+    }
+
+    /**
+     * Opens upstream with {@link C#PRIORITY_PLAYBACK}.
+     *
+     * @param dataSpec Range to open.
+     * @return Number of the bytes that can be read, or {@link C#LENGTH_UNSET}.
+     * @throws IOException If upstream can not be opened.
+     */
+    private long openUpstream(@NonNull final DataSpec dataSpec) throws IOException {
+        mDataSource = mUpstream;
+        final PriorityTaskManager priorityTaskManager = mPrefetcher.getPriorityTaskManager();
+        priorityTaskManager.add(C.PRIORITY_PLAYBACK);
+        try {
+            return mUpstream.open(dataSpec);
+        } finally {
+            priorityTaskManager.remove(C.PRIORITY_PLAYBACK);
+        }
+    }
+
+    /**
+     * Reads upstream with {@link C#PRIORITY_PLAYBACK}.
+     *
+     * @param buffer     Buffer to read into.
+     * @param offset     Offset in the buffer.
+     * @param readLength Max number of the bytes to read.
+     * @return Number of the bytes read or {@link C#RESULT_END_OF_INPUT}.
+     * @throws IOException If upstream can not be read.
+     */
+    private int readUpstream(final byte[] buffer, final int offset, final int readLength)
+            throws IOException {
+        final PriorityTaskManager priorityTaskManager = mPrefetcher.getPriorityTaskManager();
+        priorityTaskManager.add(C.PRIORITY_PLAYBACK);
+        try {
+            return mUpstream.read(buffer, offset, readLength);
+        } finally {
+            priorityTaskManager.remove(C.PRIORITY_PLAYBACK);
+        }
+    }
+}
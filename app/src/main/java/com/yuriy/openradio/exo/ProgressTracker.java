@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.Player;
+
+/**
+ * Reports playback progress of the player only when it changes meaningfully.
+ * <p>
+ * Observers extrapolate the playback position from the reported position and the playback state,
+ * so progress is reported on every state change and position discontinuity, and otherwise only
+ * when the buffered duration changes by more than a threshold. The buffered duration is checked
+ * periodically, but only while the player plays and loads, since it changes only then. A coarse
+ * mode, e.g. while the screen is off, checks less often with a larger threshold. Nothing runs
+ * while there is no listener.
+ * <p>
+ * All methods are to be called on the thread of the player.
+ */
+final class ProgressTracker {
+
+    /**
+     * Listener of the playback progress.
+     */
+    interface Listener {
+
+        /**
+         * @param position         Playback position in the current window, in milliseconds.
+         * @param bufferedPosition Position in the current window up to which data is buffered,
+         *                         in milliseconds.
+         * @param duration         Duration of the current window in milliseconds, or
+         *                         {@link C#TIME_UNSET} if the duration is not known.
+         */
+        void onProgress(long position, long bufferedPosition, long duration);
+    }
+
+    /**
+     * Interval of the buffered duration checks, in milliseconds.
+     */
+    private static final long CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * Interval of the buffered duration checks in the coarse mode, in milliseconds.
+     */
+    private static final long COARSE_CHECK_INTERVAL_MS = 10000;
+
+    /**
+     * Change of the buffered duration that is reported, in milliseconds.
+     */
+    private static final long BUFFERED_DURATION_THRESHOLD_MS = 1000;
+
+    /**
+     * Change of the buffered duration that is reported in the coarse mode, in milliseconds.
+     */
+    private static final long COARSE_BUFFERED_DURATION_THRESHOLD_MS = 5000;
+
+    /**
+     * Player to track.
+     */
+    @NonNull
+    private final ExoPlayer mPlayer;
+
+    /**
+     * Handler of the thread of the player.
+     */
+    @NonNull
+    private final Handler mHandler;
+
+    /**
+     * Periodic check of the buffered duration.
+     */
+    private final Runnable mCheckAction = this::check;
+
+    /**
+     * Listener of the playback progress, {@code null} if nothing observes it.
+     */
+    @Nullable
+    private Listener mListener;
+
+    /**
+     * Whether the coarse mode is on.
+     */
+    private boolean mIsCoarse;
+
+    /**
+     * Buffered duration reported last, in milliseconds.
+     */
+    private long mReportedBufferedDurationMs = C.TIME_UNSET;
+
+    /**
+     * Main constructor.
+     *
+     * @param player  Player to track.
+     * @param handler Handler of the thread of the player.
+     */
+    ProgressTracker(@NonNull final ExoPlayer player, @NonNull final Handler handler) {
+        super();
+        mPlayer = player;
+        mHandler = handler;
+    }
+
+    /**
+     * @param listener Listener of the playback progress, {@code null} to stop tracking.
+     */
+    void setListener(@Nullable final Listener listener) {
+        mListener = listener;
+        schedule();
+    }
+
+    /**
+     * @param isCoarse Whether to check and report progress at a coarse cadence.
+     */
+    void setCoarse(final boolean isCoarse) {
+        if (mIsCoarse == isCoarse) {
+            return;
+        }
+        mIsCoarse = isCoarse;
+        schedule();
+    }
+
+    /**
+     * Called when the state of the player, its loading or its position changed discontinuously.
+     */
+    void onPlayerChanged() {
+        report();
+    }
+
+    /**
+     * Stops tracking.
+     */
+    void release() {
+        mListener = null;
+        mHandler.removeCallbacks(mCheckAction);
+    }
+
+    /**
+     * Reports progress and schedules the next check.
+     */
+    private void report() {
+        if (mListener != null) {
+            final long position = mPlayer.getCurrentPosition();
+            final long bufferedPosition = mPlayer.getBufferedPosition();
+            mReportedBufferedDurationMs = bufferedPosition - position;
+            mListener.onProgress(position, bufferedPosition, mPlayer.getDuration());
+        }
+        schedule();
+    }
+
+    /**
+     * Reports progress if the buffered duration changed by more than the threshold.
+     */
+    private void check() {
+        if (mListener == null) {
+            return;
+        }
+        final long bufferedDurationMs = mPlayer.getBufferedPosition() - mPlayer.getCurrentPosition();
+        final long thresholdMs = mIsCoarse
+                ? COARSE_BUFFERED_DURATION_THRESHOLD_MS : BUFFERED_DURATION_THRESHOLD_MS;
+        if (Math.abs(bufferedDurationMs - mReportedBufferedDurationMs) >= thresholdMs) {
+            report();
+        } else {
+            schedule();
+        }
+    }
+
+    /**
+     * Schedules the next check if the buffered duration may change.
+     */
+    private void schedule() {
+        mHandler.removeCallbacks(mCheckAction);
+        if (mListener == null || !mPlayer.getPlayWhenReady() || !mPlayer.isLoading()) {
+            return;
+        }
+        final int playbackState = mPlayer.getPlaybackState();
+        if (playbackState != Player.STATE_READY && playbackState != Player.STATE_BUFFERING) {
+            return;
+        }
+        mHandler.postDelayed(mCheckAction, mIsCoarse ? COARSE_CHECK_INTERVAL_MS : CHECK_INTERVAL_MS);
+    }
+}
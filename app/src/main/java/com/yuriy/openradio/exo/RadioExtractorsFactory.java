@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
+import com.google.android.exoplayer2.extractor.Extractor;
+import com.google.android.exoplayer2.extractor.ExtractorInput;
+import com.google.android.exoplayer2.extractor.ExtractorOutput;
+import com.google.android.exoplayer2.extractor.ExtractorsFactory;
+import com.google.android.exoplayer2.extractor.PositionHolder;
+import com.google.android.exoplayer2.extractor.amr.AmrExtractor;
+import com.google.android.exoplayer2.extractor.flv.FlvExtractor;
+import com.google.android.exoplayer2.extractor.mkv.MatroskaExtractor;
+import com.google.android.exoplayer2.extractor.mp3.Mp3Extractor;
+import com.google.android.exoplayer2.extractor.mp4.FragmentedMp4Extractor;
+import com.google.android.exoplayer2.extractor.mp4.Mp4Extractor;
+import com.google.android.exoplayer2.extractor.ogg.OggExtractor;
+import com.google.android.exoplayer2.extractor.ts.Ac3Extractor;
+import com.google.android.exoplayer2.extractor.ts.AdtsExtractor;
+import com.google.android.exoplayer2.extractor.ts.DefaultTsPayloadReaderFactory;
+import com.google.android.exoplayer2.extractor.ts.PsExtractor;
+import com.google.android.exoplayer2.extractor.ts.TsExtractor;
+import com.google.android.exoplayer2.extractor.wav.WavExtractor;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extractors factory for the radio streams. Unlike {@link DefaultExtractorsFactory}, which makes
+ * the player sniff every supported container on each prepare, it provides a single extractor that
+ * tries the extractor hinted by {@link ExtractorHintCache} first and falls back to the others in
+ * the default order only when the hint is missing or wrong. Candidates are instantiated lazily.
+ * Since the player renders audio and metadata only, transport streams skip all other streams.
+ * Extractors that can resynchronize on an arbitrary position are restarted on the connection
+ * replaced by {@link ReconnectingDataSource}, continuing the same tracks.
+ */
+final class RadioExtractorsFactory implements ExtractorsFactory {
+
+    /**
+     * Creator of the extractor instance.
+     */
+    private interface Creator {
+
+        /**
+         * @return New instance of the extractor.
+         */
+        Extractor create();
+    }
+
+    /**
+     * Candidate extractors in the same order as {@link DefaultExtractorsFactory} sniffs them.
+     */
+    private static final Map<Class<? extends Extractor>, Creator> CANDIDATES = new LinkedHashMap<>();
+
+    static {
+        CANDIDATES.put(MatroskaExtractor.class, MatroskaExtractor::new);
+        CANDIDATES.put(FragmentedMp4Extractor.class, FragmentedMp4Extractor::new);
+        CANDIDATES.put(Mp4Extractor.class, Mp4Extractor::new);
+        CANDIDATES.put(Mp3Extractor.class, () -> new Mp3Extractor(Mp3Extractor.FLAG_FAST_SYNC));
+        CANDIDATES.put(AdtsExtractor.class, AdtsExtractor::new);
+        CANDIDATES.put(Ac3Extractor.class, Ac3Extractor::new);
+        CANDIDATES.put(
+                TsExtractor.class,
+                () -> new TsExtractor(DefaultTsPayloadReaderFactory.FLAG_IGNORE_NON_AUDIO_STREAMS)
+        );
+        CANDIDATES.put(FlvExtractor.class, FlvExtractor::new);
+        CANDIDATES.put(OggExtractor.class, OggExtractor::new);
+        CANDIDATES.put(PsExtractor.class, PsExtractor::new);
+        CANDIDATES.put(WavExtractor.class, WavExtractor::new);
+        CANDIDATES.put(AmrExtractor.class, AmrExtractor::new);
+    }
+
+    /**
+     * Extractors that find the next frame on their own, so that they can start reading a stream at
+     * an arbitrary position.
+     */
+    private static final Set<Class<? extends Extractor>> RESYNCHRONIZING = new HashSet<>(
+            Arrays.asList(
+                    Mp3Extractor.class, AdtsExtractor.class, Ac3Extractor.class, TsExtractor.class
+            )
+    );
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = RadioExtractorsFactory.class.getSimpleName();
+
+    /**
+     * URL of the stream to create extractors for.
+     */
+    @NonNull
+    private final String mUrl;
+
+    /**
+     * Cache of the extractor hints.
+     */
+    @NonNull
+    private final ExtractorHintCache mHintCache;
+
+    /**
+     * Splice shared with the data source of the stream.
+     */
+    @NonNull
+    private final StreamSplice mSplice;
+
+    /**
+     * Main constructor.
+     *
+     * @param url       URL of the stream to create extractors for.
+     * @param hintCache Cache of the extractor hints.
+     * @param splice    Splice shared with the data source of the stream.
+     */
+    RadioExtractorsFactory(@NonNull final String url,
+                           @NonNull final ExtractorHintCache hintCache,
+                           @NonNull final StreamSplice splice) {
+        super();
+        mUrl = url;
+        mHintCache = hintCache;
+        mSplice = splice;
+    }
+
+    @Override
+    public Extractor[] createExtractors() {
+        return new Extractor[]{new HintedExtractor(mUrl, mHintCache, mSplice)};
+    }
+
+    /**
+     * Extractor that selects the actual extractor on sniff and delegates everything else to it.
+     */
+    private static final class HintedExtractor implements Extractor {
+
+        /**
+         * URL of the stream.
+         */
+        @NonNull
+        private final String mUrl;
+
+        /**
+         * Cache of the extractor hints.
+         */
+        @NonNull
+        private final ExtractorHintCache mHintCache;
+
+        /**
+         * Splice shared with the data source of the stream.
+         */
+        @NonNull
+        private final StreamSplice mSplice;
+
+        /**
+         * Extractor selected on sniff.
+         */
+        private Extractor mExtractor;
+
+        /**
+         * Output the extractor is initialized with.
+         */
+        private SplicingExtractorOutput mOutput;
+
+        /**
+         * Main constructor.
+         *
+         * @param url       URL of the stream.
+         * @param hintCache Cache of the extractor hints.
+         * @param splice    Splice shared with the data source of the stream.
+         */
+        private HintedExtractor(@NonNull final String url,
+                                @NonNull final ExtractorHintCache hintCache,
+                                @NonNull final StreamSplice splice) {
+            super();
+            mUrl = url;
+            mHintCache = hintCache;
+            mSplice = splice;
+        }
+
+        @Override
+        public boolean sniff(final ExtractorInput input) throws IOException, InterruptedException {
+            // Hint is read at sniff time, when the Content-Type of the response is already known.
+            final Class<? extends Extractor> hint = mHintCache.getHint(mUrl);
+            if (hint != null) {
+                if (sniff(input, hint)) {
+                    AppLogger.d(LOG_TAG + " hinted " + hint.getSimpleName() + " matched");
+                    mHintCache.putPlayed(mUrl, hint);
+                    return true;
+                }
+                AppLogger.w(LOG_TAG + " hinted " + hint.getSimpleName() + " did not match");
+                mHintCache.remove(mUrl);
+            }
+            for (final Class<? extends Extractor> candidate : CANDIDATES.keySet()) {
+                if (candidate == hint) {
+                    continue;
+                }
+                if (sniff(input, candidate)) {
+                    mHintCache.putPlayed(mUrl, candidate);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void init(final ExtractorOutput output) {
+            mOutput = new SplicingExtractorOutput(output);
+            mExtractor.init(mOutput);
+            if (RESYNCHRONIZING.contains(mExtractor.getClass())) {
+                mSplice.arm();
+            }
+        }
+
+        @Override
+        public int read(final ExtractorInput input, final PositionHolder seekPosition)
+                throws IOException, InterruptedException {
+            final int result;
+            try {
+                result = mExtractor.read(input, seekPosition);
+            } catch (final EOFException e) {
+                if (!mSplice.isPending()) {
+                    throw e;
+                }
+                return splice();
+            }
+            if (result == RESULT_END_OF_INPUT && mSplice.isPending()) {
+                return splice();
+            }
+            return result;
+        }
+
+        @Override
+        public void seek(final long position, final long timeUs) {
+            if (mExtractor != null) {
+                mExtractor.seek(position, timeUs);
+            }
+        }
+
+        @Override
+        public void release() {
+            if (mExtractor != null) {
+                mExtractor.release();
+            }
+        }
+
+        /**
+         * Replaces the extractor, which stopped at the end of the dropped connection, possibly in
+         * the middle of a frame, with a new instance that resynchronizes on the new connection.
+         *
+         * @return Result of the read.
+         */
+        private int splice() {
+            AppLogger.d(LOG_TAG + " splice " + mExtractor.getClass().getSimpleName());
+            final Extractor extractor = CANDIDATES.get(mExtractor.getClass()).create();
+            mExtractor.release();
+            mExtractor = extractor;
+            mOutput.splice();
+            mExtractor.init(mOutput);
+            mSplice.acknowledge();
+            return RESULT_CONTINUE;
+        }
+
+        /**
+         * Sniffs input with a new instance of the candidate extractor and keeps it on success.
+         *
+         * @param input     Input to sniff.
+         * @param candidate Class of the candidate extractor.
+         * @return {@code true} if candidate can read the input, {@code false} otherwise.
+         */
+        private boolean sniff(final ExtractorInput input, final Class<? extends Extractor> candidate)
+                throws IOException, InterruptedException {
+            final Extractor extractor = CANDIDATES.get(candidate).create();
+            try {
+                if (extractor.sniff(input)) {
+                    mExtractor = extractor;
+                    return true;
+                }
+            } catch (final EOFException e) {
+                // Do nothing.
+            } finally {
+                input.resetPeekPosition();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * {@link DataSource} for the live radio streams that replaces a dropped connection with a new one
+ * instead of failing the load. Since a live stream can not be resumed at a byte offset, the new
+ * connection starts wherever the server is, and the switch is reported to the extractor through
+ * {@link StreamSplice}, which lets it resynchronize on the next frame. The load, the sample queue
+ * and the renderer are not affected, so a short network outage or handover does not restart
+ * playback.
+ * <p>
+ * On request of the player the stream is also migrated to a parallel connection while the current
+ * one still works, e.g. when Wi-Fi joins. The new connection is aligned to the bytes already read,
+ * using the burst of recent data servers send on connect, so that the switch is byte exact. When
+ * the bytes can not be aligned the switch falls back to a splice.
+ */
+final class ReconnectingDataSource implements DataSource {
+
+    /**
+     * Factory of the {@link ReconnectingDataSource}s of a stream.
+     */
+    static final class Factory implements DataSource.Factory {
+
+        /**
+         * Factory of the upstream data sources.
+         */
+        @NonNull
+        private final DataSource.Factory mUpstreamFactory;
+
+        /**
+         * Splice shared with the extractor of the stream.
+         */
+        @NonNull
+        private final StreamSplice mSplice;
+
+        /**
+         * Main constructor.
+         *
+         * @param upstreamFactory Factory of the upstream data sources.
+         * @param splice          Splice shared with the extractor of the stream.
+         */
+        Factory(@NonNull final DataSource.Factory upstreamFactory,
+                @NonNull final StreamSplice splice) {
+            super();
+            mUpstreamFactory = upstreamFactory;
+            mSplice = splice;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new ReconnectingDataSource(mUpstreamFactory, mSplice);
+        }
+    }
+
+    /**
+     * String tag to use in logs.
+     */
+    private static final String LOG_TAG = ReconnectingDataSource.class.getSimpleName();
+
+    /**
+     * Max number of the connection attempts to replace a dropped connection.
+     */
+    private static final int MAX_RECONNECT_ATTEMPTS = 3;
+
+    /**
+     * Delay before the second connection attempt, doubled for each next one, in milliseconds.
+     */
+    private static final long RECONNECT_DELAY_MS = 500;
+
+    /**
+     * Number of the latest bytes read that the new connection is aligned to on migration.
+     */
+    private static final int ALIGNMENT_LENGTH = 64;
+
+    /**
+     * Max number of bytes of the new connection searched for the alignment. Covers the connect
+     * burst of the common servers, the data past it arrives in real time.
+     */
+    private static final int MAX_ALIGNMENT_BYTES = 128 * 1024;
+
+    /**
+     * Max time spent on the search for the alignment, in milliseconds.
+     */
+    private static final long MAX_ALIGNMENT_TIME_MS = 2000;
+
+    /**
+     * Factory of the upstream data sources.
+     */
+    @NonNull
+    private final DataSource.Factory mUpstreamFactory;
+
+    /**
+     * Upstream data source of the current connection.
+     */
+    @NonNull
+    private DataSource mUpstream;
+
+    /**
+     * Splice shared with the extractor of the stream.
+     */
+    @NonNull
+    private final StreamSplice mSplice;
+
+    /**
+     * Data spec the data source is opened with.
+     */
+    private DataSpec mDataSpec;
+
+    /**
+     * Whether the opened stream has no known end, i.e. it is live.
+     */
+    private boolean mIsUnbounded;
+
+    /**
+     * Latest bytes read, up to {@link #ALIGNMENT_LENGTH}.
+     */
+    private final byte[] mTail = new byte[ALIGNMENT_LENGTH];
+
+    /**
+     * Number of the bytes in {@link #mTail}.
+     */
+    private int mTailLength;
+
+    /**
+     * Bytes read from the new connection while aligning it and not returned yet.
+     */
+    private byte[] mPendingBytes;
+
+    /**
+     * Position of the first byte of {@link #mPendingBytes} not returned yet.
+     */
+    private int mPendingOffset;
+
+    /**
+     * Position past the last byte of {@link #mPendingBytes}.
+     */
+    private int mPendingLimit;
+
+    /**
+     * Main constructor.
+     *
+     * @param upstreamFactory Factory of the upstream data sources.
+     * @param splice          Splice shared with the extractor of the stream.
+     */
+    private ReconnectingDataSource(@NonNull final DataSource.Factory upstreamFactory,
+                                   @NonNull final StreamSplice splice) {
+        super();
+        mUpstreamFactory = upstreamFactory;
+        mUpstream = upstreamFactory.createDataSource();
+        mSplice = splice;
+    }
+
+    @Override
+    public long open(final DataSpec dataSpec) throws IOException {
+        mSplice.acknowledge();
+        mTailLength = 0;
+        mPendingBytes = null;
+        final long length = mUpstream.open(dataSpec);
+        mDataSpec = dataSpec;
+        mIsUnbounded = length == C.LENGTH_UNSET;
+        return length;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int readLength) throws IOException {
+        if (mSplice.isPending()) {
+            // New connection is not read until the extractor is ready for it.
+            return C.RESULT_END_OF_INPUT;
+        }
+        if (mSplice.takeMigrationRequest() && mIsUnbounded && migrate() && mSplice.isPending()) {
+            return C.RESULT_END_OF_INPUT;
+        }
+        if (mPendingBytes != null) {
+            return readPendingBytes(buffer, offset, readLength);
+        }
+        final int read;
+        try {
+            read = mUpstream.read(buffer, offset, readLength);
+        } catch (final IOException e) {
+            if (!canReconnect() || Thread.currentThread().isInterrupted()) {
+                // Interrupted thread means a canceled load, there is nothing to reconnect for.
+                throw e;
+            }
+            AppLogger.w(LOG_TAG + " connection dropped:" + e.getMessage());
+            reconnect(e);
+            return C.RESULT_END_OF_INPUT;
+        }
+        if (read == C.RESULT_END_OF_INPUT && canReconnect()) {
+            AppLogger.w(LOG_TAG + " connection closed by server");
+            reconnect(new EOFException());
+            return C.RESULT_END_OF_INPUT;
+        }
+        if (read > 0) {
+            appendTail(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public Uri getUri() {
+        return mUpstream.getUri();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mDataSpec = null;
+        mPendingBytes = null;
+        mUpstream.close();
+    }
+
+    /**
+     * @return {@code true} if a dropped connection can be replaced transparently.
+     */
+    private boolean canReconnect() {
+        return mIsUnbounded && mSplice.isArmed();
+    }
+
+    /**
+     * Replaces the dropped connection with a new one and marks the splice pending.
+     *
+     * @param cause Failure of the dropped connection.
+     * @throws IOException Failure of the last connection attempt, if none succeeded.
+     */
+    private void reconnect(@NonNull final IOException cause) throws IOException {
+        IOException exception = cause;
+        for (int attempt = 0; attempt < MAX_RECONNECT_ATTEMPTS; attempt++) {
+            closeQuietly();
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS << (attempt - 1));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            try {
+                mIsUnbounded = mUpstream.open(mDataSpec) == C.LENGTH_UNSET;
+                mSplice.mark();
+                AppLogger.d(
+                        LOG_TAG + " reconnected on attempt " + (attempt + 1)
+                                + ", splices:" + mSplice.getCount()
+                );
+                return;
+            } catch (final InterruptedIOException e) {
+                throw e;
+            } catch (final IOException e) {
+                AppLogger.w(LOG_TAG + " reconnect attempt " + (attempt + 1) + " failed:" + e);
+                exception = e;
+            }
+        }
+        throw exception;
+    }
+
+    /**
+     * Moves the stream to a new connection. Keeps the current connection if the new one can not be
+     * opened, or can neither be aligned nor spliced.
+     *
+     * @return {@code true} if the stream is moved, in which case the splice is pending if the new
+     * connection is not aligned.
+     */
+    private boolean migrate() throws InterruptedIOException {
+        final DataSource candidate = mUpstreamFactory.createDataSource();
+        final byte[] bytes = new byte[MAX_ALIGNMENT_BYTES];
+        int length = 0;
+        int alignment = C.INDEX_UNSET;
+        try {
+            if (candidate.open(mDataSpec) != C.LENGTH_UNSET) {
+                closeQuietly(candidate);
+                return false;
+            }
+            final long deadlineMs = SystemClock.elapsedRealtime() + MAX_ALIGNMENT_TIME_MS;
+            while (length < bytes.length && SystemClock.elapsedRealtime() < deadlineMs) {
+                final int read = candidate.read(bytes, length, bytes.length - length);
+                if (read == C.RESULT_END_OF_INPUT) {
+                    break;
+                }
+                final int searchFrom = Math.max(0, length - mTailLength + 1);
+                length += read;
+                alignment = findTail(bytes, searchFrom, length);
+                if (alignment != C.INDEX_UNSET) {
+                    break;
+                }
+            }
+        } catch (final IOException e) {
+            closeQuietly(candidate);
+            if (e instanceof InterruptedIOException || Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            }
+            AppLogger.w(LOG_TAG + " migration failed, keep current connection:" + e);
+            return false;
+        }
+        if (alignment == C.INDEX_UNSET && !mSplice.isArmed()) {
+            AppLogger.w(LOG_TAG + " migration not aligned, keep current connection");
+            closeQuietly(candidate);
+            return false;
+        }
+        closeQuietly(mUpstream);
+        mUpstream = candidate;
+        mPendingBytes = bytes;
+        mPendingLimit = length;
+        if (alignment == C.INDEX_UNSET) {
+            mPendingOffset = 0;
+            mSplice.mark();
+            AppLogger.d(LOG_TAG + " migrated with splice, splices:" + mSplice.getCount());
+        } else {
+            mPendingOffset = alignment + mTailLength;
+            AppLogger.d(LOG_TAG + " migrated, aligned at " + alignment);
+        }
+        if (mPendingOffset == mPendingLimit) {
+            mPendingBytes = null;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the bytes pending from the migration.
+     */
+    private int readPendingBytes(final byte[] buffer, final int offset, final int readLength) {
+        final int length = Math.min(readLength, mPendingLimit - mPendingOffset);
+        System.arraycopy(mPendingBytes, mPendingOffset, buffer, offset, length);
+        mPendingOffset += length;
+        if (mPendingOffset == mPendingLimit) {
+            mPendingBytes = null;
+        }
+        appendTail(buffer, offset, length);
+        return length;
+    }
+
+    /**
+     * Keeps the latest bytes read.
+     */
+    private void appendTail(final byte[] buffer, final int offset, final int length) {
+        if (length >= ALIGNMENT_LENGTH) {
+            System.arraycopy(buffer, offset + length - ALIGNMENT_LENGTH, mTail, 0, ALIGNMENT_LENGTH);
+            mTailLength = ALIGNMENT_LENGTH;
+            return;
+        }
+        final int keep = Math.min(mTailLength, ALIGNMENT_LENGTH - length);
+        System.arraycopy(mTail, mTailLength - keep, mTail, 0, keep);
+        System.arraycopy(buffer, offset, mTail, keep, length);
+        mTailLength = keep + length;
+    }
+
+    /**
+     * @param bytes Bytes of the new connection.
+     * @param from  Position to search from.
+     * @param limit Position past the last byte to search.
+     * @return Position of the latest bytes read in the bytes of the new connection, or
+     * {@link C#INDEX_UNSET} if they are not there.
+     */
+    private int findTail(final byte[] bytes, final int from, final int limit) {
+        if (mTailLength < ALIGNMENT_LENGTH) {
+            // Too few bytes to tell a match from a coincidence.
+            return C.INDEX_UNSET;
+        }
+        for (int i = from; i <= limit - mTailLength; i++) {
+            int j = 0;
+            while (j < mTailLength && bytes[i + j] == mTail[j]) {
+                j++;
+            }
+            if (j == mTailLength) {
+                return i;
+            }
+        }
+        return C.INDEX_UNSET;
+    }
+
+    /**
+     * Closes the upstream data source, ignoring the failure of the dropped connection.
+     */
+    private void closeQuietly() {
+        closeQuietly(mUpstream);
+    }
+
+    /**
+     * Closes a data source, ignoring the failure.
+     *
+     * @param dataSource Data source to close.
+     */
+    private static void closeQuietly(@NonNull final DataSource dataSource) {
+        try {
+            dataSource.close();
+        } catch (final IOException e) {
+            // Do nothing, the connection is not used anymore.
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.extractor.ExtractorInput;
+import com.google.android.exoplayer2.extractor.ExtractorOutput;
+import com.google.android.exoplayer2.extractor.SeekMap;
+import com.google.android.exoplayer2.extractor.TrackOutput;
+import com.google.android.exoplayer2.util.ParsableByteArray;
+
+import java.io.IOException;
+
+/**
+ * {@link ExtractorOutput} that lets a new extractor continue the tracks of the previous one.
+ * <p>
+ * After {@link #splice()} the track outputs of the new extractor are the same sample queues, its
+ * tracks end and seek map are not reported again, and its timestamps are shifted so that its
+ * first sample follows the last sample of the previous extractor. Sample data written by the
+ * previous extractor for a sample it did not complete is never committed, so it is skipped.
+ */
+final class SplicingExtractorOutput implements ExtractorOutput {
+
+    /**
+     * Output of the extractor.
+     */
+    @NonNull
+    private final ExtractorOutput mOutput;
+
+    /**
+     * Track outputs, by track id.
+     */
+    private final SparseArray<SplicingTrackOutput> mTrackOutputs = new SparseArray<>();
+
+    /**
+     * Whether the tracks and the seek map are reported already.
+     */
+    private boolean mIsSpliced;
+
+    /**
+     * Whether the offset is to be computed on the next sample.
+     */
+    private boolean mIsOffsetPending;
+
+    /**
+     * Offset added to the timestamps of the samples, in microseconds.
+     */
+    private long mOffsetUs;
+
+    /**
+     * Estimated end time of the latest sample, in microseconds.
+     */
+    private long mEndTimeUs;
+
+    /**
+     * Main constructor.
+     *
+     * @param output Output of the extractor.
+     */
+    SplicingExtractorOutput(@NonNull final ExtractorOutput output) {
+        super();
+        mOutput = output;
+    }
+
+    /**
+     * Called before a new extractor is initialized with this output.
+     */
+    void splice() {
+        mIsSpliced = true;
+        mIsOffsetPending = true;
+    }
+
+    @Override
+    public TrackOutput track(final int id, final int type) {
+        SplicingTrackOutput trackOutput = mTrackOutputs.get(id);
+        if (trackOutput == null) {
+            trackOutput = new SplicingTrackOutput(mOutput.track(id, type));
+            mTrackOutputs.put(id, trackOutput);
+        }
+        return trackOutput;
+    }
+
+    @Override
+    public void endTracks() {
+        if (!mIsSpliced) {
+            mOutput.endTracks();
+        }
+    }
+
+    @Override
+    public void seekMap(final SeekMap seekMap) {
+        // Seek map of a new extractor describes positions of the new connection only.
+        if (!mIsSpliced) {
+            mOutput.seekMap(seekMap);
+        }
+    }
+
+    /**
+     * @param timeUs Timestamp of a sample as reported by the extractor, in microseconds.
+     * @return Timestamp of the sample in the output, in microseconds.
+     */
+    private long adjust(final long timeUs) {
+        if (mIsOffsetPending) {
+            mIsOffsetPending = false;
+            mOffsetUs = mEndTimeUs - timeUs;
+        }
+        return timeUs + mOffsetUs;
+    }
+
+    /**
+     * Track output that shifts the timestamps of the samples.
+     */
+    private final class SplicingTrackOutput implements TrackOutput {
+
+        /**
+         * Output of the track.
+         */
+        @NonNull
+        private final TrackOutput mTrackOutput;
+
+        /**
+         * Output timestamp of the latest sample, in microseconds.
+         */
+        private long mLastTimeUs = C.TIME_UNSET;
+
+        /**
+         * Estimated duration of the latest sample, in microseconds.
+         */
+        private long mLastDurationUs;
+
+        /**
+         * Main constructor.
+         *
+         * @param trackOutput Output of the track.
+         */
+        private SplicingTrackOutput(@NonNull final TrackOutput trackOutput) {
+            super();
+            mTrackOutput = trackOutput;
+        }
+
+        @Override
+        public void format(final Format format) {
+            mTrackOutput.format(format);
+        }
+
+        @Override
+        public int sampleData(final ExtractorInput input, final int length,
+                              final boolean allowEndOfInput)
+                throws IOException, InterruptedException {
+            return mTrackOutput.sampleData(input, length, allowEndOfInput);
+        }
+
+        @Override
+        public void sampleData(final ParsableByteArray data, final int length) {
+            mTrackOutput.sampleData(data, length);
+        }
+
+        @Override
+        public void sampleMetadata(final long timeUs, final int flags, final int size,
+                                   final int offset, final CryptoData cryptoData) {
+            final long outputTimeUs = adjust(timeUs);
+            if (mLastTimeUs != C.TIME_UNSET && outputTimeUs > mLastTimeUs) {
+                mLastDurationUs = outputTimeUs - mLastTimeUs;
+            }
+            mLastTimeUs = outputTimeUs;
+            mEndTimeUs = Math.max(mEndTimeUs, outputTimeUs + mLastDurationUs);
+            mTrackOutput.sampleMetadata(outputTimeUs, flags, size, offset, cryptoData);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handshake between {@link ReconnectingDataSource} and the extractor of the same stream.
+ * <p>
+ * The extractor arms the splice once it can resynchronize on an arbitrary position of the stream.
+ * When the data source replaces a dropped connection it marks the splice pending and reports end
+ * of input until the extractor acknowledges it, so that no byte of the new connection is consumed
+ * as a continuation of the frame the old connection was cut in.
+ * <p>
+ * The player also requests a migration of the stream to a new connection through it, see
+ * {@link #requestMigration()}.
+ * <p>
+ * Apart from the migration request, both sides run on the loading thread of the stream.
+ */
+final class StreamSplice {
+
+    /**
+     * Whether the extractor can resynchronize after a splice. Read by the player too.
+     */
+    private volatile boolean mArmed;
+
+    /**
+     * Whether a new connection waits for the extractor to acknowledge it.
+     */
+    private boolean mPending;
+
+    /**
+     * Number of the splices made.
+     */
+    private int mCount;
+
+    /**
+     * Whether the stream is to be moved to a new connection.
+     */
+    private final AtomicBoolean mIsMigrationRequested = new AtomicBoolean();
+
+    /**
+     * Main constructor.
+     */
+    StreamSplice() {
+        super();
+    }
+
+    /**
+     * Called by the extractor when it can resynchronize after a splice.
+     */
+    void arm() {
+        mArmed = true;
+    }
+
+    /**
+     * @return {@code true} if a dropped connection can be replaced transparently.
+     */
+    boolean isArmed() {
+        return mArmed;
+    }
+
+    /**
+     * Called by the data source when a new connection replaced a dropped one.
+     */
+    void mark() {
+        mPending = true;
+        mCount++;
+    }
+
+    /**
+     * @return {@code true} if a new connection waits for the extractor to acknowledge it.
+     */
+    boolean isPending() {
+        return mPending;
+    }
+
+    /**
+     * Called by the extractor when it is ready to read the new connection, and by the data source
+     * when it is opened.
+     */
+    void acknowledge() {
+        mPending = false;
+    }
+
+    /**
+     * @return Number of the splices made.
+     */
+    int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Requests the data source to move the stream to a new connection, made on the network that is
+     * the default one by then. May be called on any thread.
+     */
+    void requestMigration() {
+        mIsMigrationRequested.set(true);
+    }
+
+    /**
+     * Clears the migration request.
+     *
+     * @return {@code true} if a migration was requested.
+     */
+    boolean takeMigrationRequest() {
+        return mIsMigrationRequested.getAndSet(false);
+    }
+}
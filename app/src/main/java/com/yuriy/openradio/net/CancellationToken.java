@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.net;
+
+import android.support.annotation.NonNull;
+
+import com.yuriy.openradio.utils.AppLogger;
+
+import java.net.HttpURLConnection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cancels the work of one generation of browse requests: tasks that did not start yet are skipped
+ * and connections that are open are disconnected, so that their reads fail right away.
+ * <p>
+ * May be used on any thread.
+ */
+public final class CancellationToken {
+
+    /**
+     * String tag to use in the logs.
+     */
+    private static final String CLASS_NAME = CancellationToken.class.getSimpleName();
+
+    /**
+     * Token of the requests that are never cancelled, {@link #cancel()} has no effect on it.
+     */
+    public static final CancellationToken NEVER_CANCELLED = new CancellationToken(-1, false);
+
+    /**
+     * Generation of the requests the token belongs to.
+     */
+    private final int mGeneration;
+
+    /**
+     * Whether the requests can be cancelled.
+     */
+    private final boolean mIsCancellable;
+
+    /**
+     * Connections open on behalf of the requests.
+     */
+    private final Set<HttpURLConnection> mConnections = new HashSet<>();
+
+    /**
+     * Whether the requests are cancelled.
+     */
+    private boolean mIsCancelled;
+
+    /**
+     * Main constructor.
+     *
+     * @param generation Generation of the requests the token belongs to.
+     */
+    public CancellationToken(final int generation) {
+        this(generation, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param generation    Generation of the requests the token belongs to.
+     * @param isCancellable Whether the requests can be cancelled.
+     */
+    private CancellationToken(final int generation, final boolean isCancellable) {
+        super();
+        mGeneration = generation;
+        mIsCancellable = isCancellable;
+    }
+
+    /**
+     * @return Generation of the requests the token belongs to.
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Cancels the requests and disconnects their open connections.
+     */
+    public void cancel() {
+        final Set<HttpURLConnection> connections;
+        synchronized (this) {
+            if (mIsCancelled || !mIsCancellable) {
+                return;
+            }
+            mIsCancelled = true;
+            connections = new HashSet<>(mConnections);
+            mConnections.clear();
+        }
+        AppLogger.d(CLASS_NAME + " cancel generation " + mGeneration
+                + ", connections:" + connections.size());
+        for (final HttpURLConnection connection : connections) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @return {@code true} if the requests are cancelled.
+     */
+    public synchronized boolean isCancelled() {
+        return mIsCancelled;
+    }
+
+    /**
+     * Registers a connection to disconnect on cancel.
+     *
+     * @param connection Connection open on behalf of the requests.
+     * @return {@code false} if the requests are cancelled already, the connection is not to be
+     * used then.
+     */
+    public synchronized boolean attach(@NonNull final HttpURLConnection connection) {
+        if (mIsCancelled) {
+            return false;
+        }
+        mConnections.add(connection);
+        return true;
+    }
+
+    /**
+     * Unregisters a connection that is closed.
+     *
+     * @param connection Connection registered with {@link #attach(HttpURLConnection)}.
+     */
+    public synchronized void detach(@NonNull final HttpURLConnection connection) {
+        mConnections.remove(connection);
+    }
+
+    /**
+     * @param task Task of the requests.
+     * @return Task that runs the given one only if the requests are not cancelled by then.
+     */
+    @NonNull
+    public Runnable wrap(@NonNull final Runnable task) {
+        return () -> {
+            if (isCancelled()) {
+                AppLogger.d(CLASS_NAME + " skip task of generation " + mGeneration);
+                return;
+            }
+            task.run();
+        };
+    }
+}
@@ -24,6 +24,7 @@ package com.yuriy.openradio.net;
  */
 
 import android.net.Uri;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pair;
 
 import java.util.List;
@@ -51,4 +52,11 @@ public interface Downloader {
      * @return Downloaded data.
      */
     byte[] downloadDataFromUri(final Uri uri, final List<Pair<String, String>> parameters);
+
+    /**
+     * @return Token that cancels the downloads and the rest of the work of the same request,
+     * or {@code null} if they can not be cancelled.
+     */
+    @Nullable
+    CancellationToken getCancellationToken();
 }
@@ -18,6 +18,7 @@ package com.yuriy.openradio.net;
 
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pair;
 
 import com.yuriy.openradio.utils.AppLogger;
@@ -67,6 +68,35 @@ public final class HTTPDownloaderImpl implements Downloader {
      */
     private static final int EOF = -1;
 
+    /**
+     * Token that cancels the downloads, or {@code null} if they can not be cancelled.
+     */
+    @Nullable
+    private final CancellationToken mCancellationToken;
+
+    /**
+     * Default constructor, downloads can not be cancelled.
+     */
+    public HTTPDownloaderImpl() {
+        this(null);
+    }
+
+    /**
+     * Main constructor.
+     *
+     * @param cancellationToken Token that cancels the downloads.
+     */
+    public HTTPDownloaderImpl(@Nullable final CancellationToken cancellationToken) {
+        super();
+        mCancellationToken = cancellationToken;
+    }
+
+    @Nullable
+    @Override
+    public CancellationToken getCancellationToken() {
+        return mCancellationToken;
+    }
+
     @Override
     public byte[] downloadDataFromUri(final Uri uri) {
         return downloadDataFromUri(uri, new ArrayList<>());
@@ -112,6 +142,11 @@ public final class HTTPDownloaderImpl implements Downloader {
             return response;
         }
 
+        if (mCancellationToken != null && !mCancellationToken.attach(urlConnection)) {
+            AppLogger.d(CLASS_NAME + " Request cancelled:" + uri);
+            return response;
+        }
+
         // If there are http request parameters:
         if (!parameters.isEmpty()) {
             boolean result = false;
@@ -164,17 +199,20 @@ public final class HTTPDownloaderImpl implements Downloader {
         try {
             responseCode = urlConnection.getResponseCode();
         } catch (final IOException exception) {
-            FabricUtils.logException(
-                    new DownloaderException(
-                            createExceptionMessage(uri, parameters),
-                            exception
-                    )
-            );
+            if (!isCancelled()) {
+                FabricUtils.logException(
+                        new DownloaderException(
+                                createExceptionMessage(uri, parameters),
+                                exception
+                        )
+                );
+            }
         }
 
         AppLogger.d("Response code:" + responseCode);
         if (responseCode < 200 || responseCode > 299) {
             urlConnection.disconnect();
+            detach(urlConnection);
             return response;
         }
 
@@ -182,19 +220,40 @@ public final class HTTPDownloaderImpl implements Downloader {
             final InputStream inputStream = new BufferedInputStream(urlConnection.getInputStream());
             response = toByteArray(inputStream);
         } catch (final IOException exception) {
-            FabricUtils.logException(
-                    new DownloaderException(
-                            createExceptionMessage(uri, parameters),
-                            exception
-                    )
-            );
+            if (!isCancelled()) {
+                FabricUtils.logException(
+                        new DownloaderException(
+                                createExceptionMessage(uri, parameters),
+                                exception
+                        )
+                );
+            }
         } finally {
             urlConnection.disconnect();
+            detach(urlConnection);
         }
 
         return response;
     }
 
+    /**
+     * @return {@code true} if the downloads are cancelled.
+     */
+    private boolean isCancelled() {
+        return mCancellationToken != null && mCancellationToken.isCancelled();
+    }
+
+    /**
+     * Unregisters a closed connection from the cancellation token, if any.
+     *
+     * @param urlConnection Closed connection.
+     */
+    private void detach(@NonNull final HttpURLConnection urlConnection) {
+        if (mCancellationToken != null) {
+            mCancellationToken.detach(urlConnection);
+        }
+    }
+
     /**
      * Gets the contents of an <code>InputStream</code> as a <code>byte[]</code>.
      * <p>
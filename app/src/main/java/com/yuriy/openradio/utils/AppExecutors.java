@@ -0,0 +1,388 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named, bounded thread pools for the background work of the application.
+ * <p>
+ * Pools belong to one of three priority classes, which set the Linux priority of their threads:
+ * user-visible browsing first, then support of the playback, then background work such as
+ * prefetches, probes and storage writes. Every pool has a fixed maximum number of threads, which
+ * are created on demand and exit when idle, so that the number of threads does not grow with the
+ * number of requests.
+ * <p>
+ * Pools of work that becomes stale, such as images of the list being scrolled, have a bounded
+ * queue and drop the oldest task when it is full. Pools of probes have a bounded queue and run a
+ * task on the submitting thread when it is full, which slows down the producer. Other pools queue
+ * all the tasks, in order.
+ * <p>
+ * The pools are shared by the whole process and must not be shut down.
+ */
+public final class AppExecutors {
+
+    /**
+     * Priority class of the user-visible browsing.
+     */
+    private static final int PRIORITY_BROWSE = Process.THREAD_PRIORITY_DEFAULT;
+
+    /**
+     * Priority class of the support of the playback.
+     */
+    private static final int PRIORITY_PLAYBACK
+            = Process.THREAD_PRIORITY_DEFAULT + Process.THREAD_PRIORITY_LESS_FAVORABLE;
+
+    /**
+     * Priority class of the prefetches, probes and other background work.
+     */
+    private static final int PRIORITY_BACKGROUND = Process.THREAD_PRIORITY_BACKGROUND;
+
+    /**
+     * Time an idle thread waits for a task before it exits, in seconds.
+     */
+    private static final long KEEP_ALIVE_S = 30;
+
+    /**
+     * Requests of the browsed media items and searches. Single thread, so that the requests are
+     * handled in order.
+     */
+    private static final Pool BROWSE = new Pool(
+            "browse", PRIORITY_BROWSE, 1, Integer.MAX_VALUE, Overflow.REJECT
+    );
+
+    /**
+     * Images of the browsed media items.
+     */
+    private static final Pool IMAGES = new Pool(
+            "images", PRIORITY_BROWSE, 2, 32, Overflow.DROP_OLDEST
+    );
+
+    /**
+     * Requests needed to start or continue the playback, e.g. details of a station, playlists,
+     * location, artwork of the notification.
+     */
+    private static final Pool PLAYBACK = new Pool(
+            "playback", PRIORITY_PLAYBACK, 2, Integer.MAX_VALUE, Overflow.REJECT
+    );
+
+    /**
+     * Availability probes of the streams.
+     */
+    private static final Pool PROBE = new Pool(
+            "probe", PRIORITY_BACKGROUND, 4, 16, Overflow.CALLER_RUNS
+    );
+
+    /**
+     * Prefetches of the next pages of the browsed lists. Single thread and a single queued
+     * prefetch, only the latest one matters.
+     */
+    private static final Pool PREFETCH = new Pool(
+            "prefetch", PRIORITY_BACKGROUND, 1, 1, Overflow.DROP_OLDEST
+    );
+
+    /**
+     * Writes of the storages and caches. Single thread, so that the writes are made in order.
+     */
+    private static final Pool STORAGE = new Pool(
+            "storage", PRIORITY_BACKGROUND, 1, Integer.MAX_VALUE, Overflow.REJECT
+    );
+
+    /**
+     * All the pools, for the metrics.
+     */
+    private static final Pool[] POOLS = {BROWSE, IMAGES, PLAYBACK, PROBE, PREFETCH, STORAGE};
+
+    /**
+     * Private constructor.
+     */
+    private AppExecutors() {
+        super();
+    }
+
+    /**
+     * @return Executor of the requests of the browsed media items and searches, in order.
+     */
+    @NonNull
+    public static ExecutorService browse() {
+        return BROWSE;
+    }
+
+    /**
+     * @return Executor of the loads of images. Drops the oldest queued load when overloaded.
+     */
+    @NonNull
+    public static ExecutorService images() {
+        return IMAGES;
+    }
+
+    /**
+     * @return Executor of the requests needed to start or continue the playback.
+     */
+    @NonNull
+    public static ExecutorService playback() {
+        return PLAYBACK;
+    }
+
+    /**
+     * @return Executor of the availability probes of the streams. Runs a probe on the submitting
+     * thread when overloaded.
+     */
+    @NonNull
+    public static ExecutorService probe() {
+        return PROBE;
+    }
+
+    /**
+     * @return Executor of the prefetches of the next pages. Drops the queued prefetch when a new
+     * one comes.
+     */
+    @NonNull
+    public static ExecutorService prefetch() {
+        return PREFETCH;
+    }
+
+    /**
+     * @return Executor of the writes of the storages and caches, in order.
+     */
+    @NonNull
+    public static ExecutorService storage() {
+        return STORAGE;
+    }
+
+    /**
+     * @return Human readable state of the pools.
+     */
+    @NonNull
+    public static String getMetrics() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Pool pool : POOLS) {
+            if (builder.length() != 0) {
+                builder.append(", ");
+            }
+            builder.append(pool.getMetrics());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * What a pool does with a task its queue has no room for.
+     */
+    private enum Overflow {
+
+        /**
+         * Rejects the task.
+         */
+        REJECT,
+
+        /**
+         * Drops the oldest queued task, cancelling it, and queues the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Runs the task on the submitting thread.
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * Bounded thread pool of the application.
+     */
+    private static final class Pool extends ThreadPoolExecutor {
+
+        /**
+         * Name of the pool.
+         */
+        @NonNull
+        private final String mName;
+
+        /**
+         * Number of the tasks dropped or run on the submitting thread because the pool was full.
+         */
+        private final AtomicLong mOverflowCount;
+
+        /**
+         * Main constructor.
+         *
+         * @param name          Name of the pool, used for its threads.
+         * @param priority      Linux priority of the threads.
+         * @param maxThreads    Maximum number of the threads.
+         * @param queueCapacity Maximum number of the queued tasks.
+         * @param overflow      What to do with a task the queue has no room for.
+         */
+        private Pool(@NonNull final String name, final int priority, final int maxThreads,
+                     final int queueCapacity, @NonNull final Overflow overflow) {
+            this(
+                    name, priority, maxThreads, new LinkedBlockingQueue<>(queueCapacity), overflow,
+                    new AtomicLong()
+            );
+        }
+
+        /**
+         * Constructor that shares the overflow counter with the rejection handler.
+         */
+        private Pool(@NonNull final String name, final int priority, final int maxThreads,
+                     @NonNull final BlockingQueue<Runnable> queue, @NonNull final Overflow overflow,
+                     @NonNull final AtomicLong overflowCount) {
+            super(
+                    maxThreads, maxThreads, KEEP_ALIVE_S, TimeUnit.SECONDS, queue,
+                    new PoolThreadFactory(name, priority),
+                    new OverflowHandler(overflow, overflowCount)
+            );
+            allowCoreThreadTimeOut(true);
+            mName = name;
+            mOverflowCount = overflowCount;
+        }
+
+        @Override
+        public void shutdown() {
+            throw new UnsupportedOperationException(mName + " is shared and can not be shut down");
+        }
+
+        @NonNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            throw new UnsupportedOperationException(mName + " is shared and can not be shut down");
+        }
+
+        /**
+         * @return Human readable state of the pool.
+         */
+        @NonNull
+        private String getMetrics() {
+            return mName
+                    + "[threads:" + getPoolSize() + "/" + getMaximumPoolSize()
+                    + ", active:" + getActiveCount()
+                    + ", queued:" + getQueue().size()
+                    + ", completed:" + getCompletedTaskCount()
+                    + ", overflow:" + mOverflowCount.get()
+                    + "]";
+        }
+    }
+
+    /**
+     * Handler of the tasks a pool has no room for.
+     */
+    private static final class OverflowHandler implements RejectedExecutionHandler {
+
+        /**
+         * What to do with the task.
+         */
+        @NonNull
+        private final Overflow mOverflow;
+
+        /**
+         * Number of the tasks dropped or run on the submitting thread.
+         */
+        @NonNull
+        private final AtomicLong mOverflowCount;
+
+        /**
+         * Main constructor.
+         *
+         * @param overflow      What to do with the task.
+         * @param overflowCount Number of the tasks dropped or run on the submitting thread.
+         */
+        private OverflowHandler(@NonNull final Overflow overflow,
+                                @NonNull final AtomicLong overflowCount) {
+            super();
+            mOverflow = overflow;
+            mOverflowCount = overflowCount;
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+            switch (mOverflow) {
+                case DROP_OLDEST:
+                    mOverflowCount.incrementAndGet();
+                    final Runnable oldest = executor.getQueue().poll();
+                    if (oldest instanceof Future) {
+                        // Completes the dropped task, so that its owner does not wait for it.
+                        ((Future<?>) oldest).cancel(false);
+                    }
+                    executor.execute(runnable);
+                    break;
+                case CALLER_RUNS:
+                    mOverflowCount.incrementAndGet();
+                    runnable.run();
+                    break;
+                default:
+                    new AbortPolicy().rejectedExecution(runnable, executor);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Factory of the named threads of a pool with a given priority.
+     */
+    private static final class PoolThreadFactory implements ThreadFactory {
+
+        /**
+         * Name of the pool.
+         */
+        @NonNull
+        private final String mName;
+
+        /**
+         * Linux priority of the threads.
+         */
+        private final int mPriority;
+
+        /**
+         * Number of the threads created.
+         */
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        /**
+         * Main constructor.
+         *
+         * @param name     Name of the pool.
+         * @param priority Linux priority of the threads.
+         */
+        private PoolThreadFactory(@NonNull final String name, final int priority) {
+            super();
+            mName = name;
+            mPriority = priority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(
+                    () -> {
+                        Process.setThreadPriority(mPriority);
+                        runnable.run();
+                    },
+                    mName + "-" + mCount.incrementAndGet()
+            );
+        }
+    }
+}
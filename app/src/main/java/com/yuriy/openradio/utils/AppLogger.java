@@ -170,7 +170,14 @@ public final class AppLogger {
         return AppUtils.createFileIfNeeded(path + "/logcat.txt");
     }
 
-    public static void zip(final Context context) throws IOException {
+    /**
+     * Archives all logs, together with the given files, into the logs ZIP file.
+     *
+     * @param context     Context of the callee.
+     * @param attachments Files to add to the archive, skipped if they do not exist.
+     * @throws IOException If the archive can not be written.
+     */
+    public static void zip(final Context context, final File... attachments) throws IOException {
 
         final File logcatFile = getLogcatFile(context);
         try {
@@ -188,6 +195,11 @@ public final class AppLogger {
                 zipFile(file, zipOutputStream);
             }
         }
+        for (final File file : attachments) {
+            if (file.isFile()) {
+                zipFile(file, zipOutputStream);
+            }
+        }
         zipOutputStream.closeEntry();
         zipOutputStream.close();
     }
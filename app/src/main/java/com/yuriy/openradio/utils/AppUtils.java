@@ -41,8 +41,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Created by Yuriy Chernyshov
@@ -54,11 +52,6 @@ import java.util.concurrent.Executors;
  */
 public final class AppUtils {
 
-    /**
-     * Executor of the API requests.
-     */
-    public static final ExecutorService API_CALL_EXECUTOR = Executors.newSingleThreadExecutor();
-
     /**
      * Map of the Countries Code and Name.
      */
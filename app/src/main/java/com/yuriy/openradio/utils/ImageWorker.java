@@ -93,7 +93,7 @@ public abstract class ImageWorker {
             imageView.setImageDrawable(asyncDrawable);
 
             try {
-                task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+                task.executeOnExecutor(AppExecutors.images());
             } catch (final Exception e) {
                 /* Ignore */
             }
@@ -129,7 +129,7 @@ public abstract class ImageWorker {
                               ImageCache.ImageCacheParams cacheParams) {
         mImageCacheParams = cacheParams;
         mImageCache = ImageCache.getInstance(fragmentManager, mImageCacheParams);
-        new CacheAsyncTask(this).execute(MESSAGE_INIT_DISK_CACHE);
+        new CacheAsyncTask(this).executeOnExecutor(AppExecutors.storage(), MESSAGE_INIT_DISK_CACHE);
     }
 
     /**
@@ -143,7 +143,7 @@ public abstract class ImageWorker {
     public void addImageCache(FragmentActivity activity, String diskCacheDirectoryName) {
         mImageCacheParams = new ImageCache.ImageCacheParams(activity, diskCacheDirectoryName);
         mImageCache = ImageCache.getInstance(activity.getSupportFragmentManager(), mImageCacheParams);
-        new CacheAsyncTask(this).execute(MESSAGE_INIT_DISK_CACHE);
+        new CacheAsyncTask(this).executeOnExecutor(AppExecutors.storage(), MESSAGE_INIT_DISK_CACHE);
     }
 
     /**
@@ -502,14 +502,14 @@ public abstract class ImageWorker {
     }
 
     public void clearCache() {
-        new CacheAsyncTask(this).execute(MESSAGE_CLEAR);
+        new CacheAsyncTask(this).executeOnExecutor(AppExecutors.storage(), MESSAGE_CLEAR);
     }
 
     public void flushCache() {
-        new CacheAsyncTask(this).execute(MESSAGE_FLUSH);
+        new CacheAsyncTask(this).executeOnExecutor(AppExecutors.storage(), MESSAGE_FLUSH);
     }
 
     public void closeCache() {
-        new CacheAsyncTask(this).execute(MESSAGE_CLOSE);
+        new CacheAsyncTask(this).executeOnExecutor(AppExecutors.storage(), MESSAGE_CLOSE);
     }
 }
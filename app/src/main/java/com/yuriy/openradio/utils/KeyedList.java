@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list which finds the position of an item by its key in constant time.
+ * <p>
+ * The index is built once, when the list is created. If several items have the same key, the
+ * first of them is found, as a linear scan would find it.
+ *
+ * @param <T> Type of the items.
+ */
+final class KeyedList<T> extends AbstractList<T> implements RandomAccess {
+
+    /**
+     * Items in order.
+     */
+    @NonNull
+    private final List<T> mItems;
+
+    /**
+     * Positions of the items by their keys.
+     */
+    @NonNull
+    private final Map<String, Integer> mPositions;
+
+    /**
+     * Main constructor.
+     *
+     * @param items Items in order, not to be changed afterwards.
+     * @param key   Key of the items.
+     */
+    KeyedList(@NonNull final List<T> items, @NonNull final SnapshotList.Key<T> key) {
+        super();
+        mItems = items;
+        mPositions = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (int i = items.size() - 1; i >= 0; i--) {
+            final T item = items.get(i);
+            if (item == null) {
+                continue;
+            }
+            final String itemKey = key.of(item);
+            if (itemKey != null) {
+                mPositions.put(itemKey, i);
+            }
+        }
+    }
+
+    @Override
+    public T get(final int index) {
+        return mItems.get(index);
+    }
+
+    @Override
+    public int size() {
+        return mItems.size();
+    }
+
+    /**
+     * @param key Key of the item.
+     * @return Position of the first item with the given key, or {@link QueueHelper#UNKNOWN_INDEX}.
+     */
+    int indexOfKey(@Nullable final String key) {
+        final Integer position = mPositions.get(key);
+        return position == null ? QueueHelper.UNKNOWN_INDEX : position;
+    }
+
+    /**
+     * @param key Key of the item.
+     * @return First item with the given key, or {@code null}.
+     */
+    @Nullable
+    T getByKey(@Nullable final String key) {
+        final int position = indexOfKey(key);
+        return position == QueueHelper.UNKNOWN_INDEX ? null : mItems.get(position);
+    }
+}
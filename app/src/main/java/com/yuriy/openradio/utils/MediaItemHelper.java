@@ -55,6 +55,8 @@ public final class MediaItemHelper {
 
     private static final String KEY_CURRENT_STREAM_TITLE = "CURRENT_STREAM_TITLE";
 
+    private static final String KEY_IS_PAGE_DELTA = "KEY_IS_PAGE_DELTA";
+
     /**
      * Default constructor.
      */
@@ -153,6 +155,41 @@ public final class MediaItemHelper {
         bundle.putString(KEY_CURRENT_STREAM_TITLE, streamTitle);
     }
 
+    /**
+     * Sets key that indicates Media Item belongs to a page which is to be appended to the items
+     * already delivered to the client, rather than to replace them.
+     *
+     * @param mediaItem   {@link MediaBrowserCompat.MediaItem}.
+     * @param isPageDelta Whether Item belongs to a page to append.
+     */
+    public static void updatePageDeltaField(final MediaBrowserCompat.MediaItem mediaItem,
+                                            final boolean isPageDelta) {
+        if (mediaItem == null) {
+            return;
+        }
+        final MediaDescriptionCompat mediaDescription = mediaItem.getDescription();
+        final Bundle bundle = mediaDescription.getExtras();
+        if (bundle == null) {
+            return;
+        }
+        bundle.putBoolean(KEY_IS_PAGE_DELTA, isPageDelta);
+    }
+
+    /**
+     * Gets {@code true} if the list is a page to append to the items delivered before,
+     * {@code false} if it replaces them.
+     *
+     * @param list List of the {@link MediaBrowserCompat.MediaItem}s.
+     * @return {@code true} if the list is a page to append, {@code false} - otherwise.
+     */
+    public static boolean isPageDelta(final List<MediaBrowserCompat.MediaItem> list) {
+        if (list == null || list.isEmpty() || list.get(0) == null) {
+            return false;
+        }
+        final Bundle bundle = list.get(0).getDescription().getExtras();
+        return bundle != null && bundle.getBoolean(KEY_IS_PAGE_DELTA, false);
+    }
+
     /**
      * Gets {@code true} if Media Item is known last played, {@code false} - otherwise.
      *
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.media.MediaDescriptionCompat;
+import android.support.v4.media.MediaMetadataCompat;
+import android.support.v4.media.session.MediaSessionCompat;
+import android.text.TextUtils;
+
+import com.yuriy.openradio.vo.RadioStation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the playing queue from the Radio Stations incrementally.
+ * <p>
+ * The queue items of the Radio Stations that are at the same positions as in the previous build
+ * are reused, so that when a page of Radio Stations is appended only the items of the new page are
+ * created. Descriptions of the Radio Stations are cached by Id and rebuilt only when the fields
+ * they are made of change. The result is the same as {@link QueueHelper#getPlayingQueue}.
+ */
+public final class PlayingQueueBuilder {
+
+    /**
+     * Factory of the descriptions of the Radio Stations.
+     */
+    interface DescriptionFactory {
+
+        /**
+         * @param context      Context of the callee.
+         * @param radioStation Radio Station.
+         * @return Description of the Radio Station, or {@code null} if it can not be built.
+         */
+        @Nullable
+        MediaDescriptionCompat create(@NonNull final Context context,
+                                      @NonNull final RadioStation radioStation);
+    }
+
+    /**
+     * String tag to use in the logs.
+     */
+    private static final String CLASS_NAME = PlayingQueueBuilder.class.getSimpleName();
+
+    /**
+     * Factory of the descriptions of the Radio Stations.
+     */
+    @NonNull
+    private final DescriptionFactory mDescriptionFactory;
+
+    /**
+     * Descriptions of the Radio Stations by their Ids.
+     */
+    private final Map<String, CachedDescription> mDescriptions = new HashMap<>();
+
+    /**
+     * Radio Stations of the previous build.
+     */
+    @NonNull
+    private List<RadioStation> mRadioStations = Collections.emptyList();
+
+    /**
+     * Queue items of the previous build at the positions of their Radio Stations, {@code null}
+     * for the Radio Stations that were skipped.
+     */
+    @NonNull
+    private List<MediaSessionCompat.QueueItem> mItems = Collections.emptyList();
+
+    /**
+     * Main constructor.
+     */
+    public PlayingQueueBuilder() {
+        this(PlayingQueueBuilder::createDescription);
+    }
+
+    /**
+     * Constructor with the given factory of the descriptions.
+     *
+     * @param descriptionFactory Factory of the descriptions of the Radio Stations.
+     */
+    PlayingQueueBuilder(@NonNull final DescriptionFactory descriptionFactory) {
+        super();
+        mDescriptionFactory = descriptionFactory;
+    }
+
+    /**
+     * @param context       Context of the callee.
+     * @param radioStations Radio Stations to build the queue of.
+     * @return Playing queue.
+     */
+    @NonNull
+    public synchronized List<MediaSessionCompat.QueueItem> build(
+            @NonNull final Context context,
+            @NonNull final List<RadioStation> radioStations) {
+        final List<MediaSessionCompat.QueueItem> queue = new ArrayList<>(radioStations.size());
+        final List<MediaSessionCompat.QueueItem> items = new ArrayList<>(radioStations.size());
+        final Map<String, CachedDescription> descriptions = new HashMap<>(mDescriptions.size());
+        int reused = 0;
+        for (int i = 0; i < radioStations.size(); i++) {
+            final RadioStation radioStation = radioStations.get(i);
+            if (radioStation == null) {
+                items.add(null);
+                continue;
+            }
+            final String id = radioStation.getIdAsString();
+            CachedDescription description = mDescriptions.get(id);
+            if (description == null || !description.isOf(radioStation)) {
+                description = CachedDescription.of(context, radioStation, mDescriptionFactory);
+            }
+            if (description == null) {
+                AppLogger.w(CLASS_NAME + " Get playing queue warning, Radio Station is null");
+                items.add(null);
+                continue;
+            }
+            descriptions.put(id, description);
+
+            MediaSessionCompat.QueueItem item = null;
+            if (i < mRadioStations.size() && mRadioStations.get(i) == radioStation) {
+                item = mItems.get(i);
+            }
+            if (item != null && item.getQueueId() == queue.size()
+                    && item.getDescription() == description.mDescription) {
+                reused++;
+            } else {
+                item = new MediaSessionCompat.QueueItem(description.mDescription, queue.size());
+            }
+            queue.add(item);
+            items.add(item);
+        }
+        mDescriptions.clear();
+        mDescriptions.putAll(descriptions);
+        mRadioStations = new ArrayList<>(radioStations);
+        mItems = items;
+        AppLogger.d(CLASS_NAME + " Queue of " + queue.size() + " items, " + reused + " reused");
+        return queue;
+    }
+
+    /**
+     * @param queueA Queue.
+     * @param queueB Other queue.
+     * @return {@code true} if both queues are made of the same item instances, i.e. the second is
+     * a rebuild of the first one without changes.
+     */
+    public static boolean isSameQueue(@Nullable final List<MediaSessionCompat.QueueItem> queueA,
+                                      @Nullable final List<MediaSessionCompat.QueueItem> queueB) {
+        if (queueA == queueB) {
+            return true;
+        }
+        if (queueA == null || queueB == null || queueA.size() != queueB.size()) {
+            return false;
+        }
+        for (int i = 0; i < queueA.size(); i++) {
+            if (queueA.get(i) != queueB.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param context      Context of the callee.
+     * @param radioStation Radio Station.
+     * @return Description of the Radio Station as the session publishes it, or {@code null}.
+     */
+    @Nullable
+    private static MediaDescriptionCompat createDescription(@NonNull final Context context,
+                                                            @NonNull final RadioStation radioStation) {
+        final MediaMetadataCompat track = MediaItemHelper.buildMediaMetadataFromRadioStation(
+                context, radioStation
+        );
+        return track == null ? null : track.getDescription();
+    }
+
+    /**
+     * Description of a Radio Station together with the fields it is made of.
+     */
+    private static final class CachedDescription {
+
+        /**
+         * Description of the Radio Station.
+         */
+        @NonNull
+        private final MediaDescriptionCompat mDescription;
+
+        /**
+         * Name of the Radio Station.
+         */
+        private final String mName;
+
+        /**
+         * Country of the Radio Station.
+         */
+        private final String mCountry;
+
+        /**
+         * Genre of the Radio Station.
+         */
+        private final String mGenre;
+
+        /**
+         * Url of the image of the Radio Station.
+         */
+        private final String mImageUrl;
+
+        /**
+         * Url of the stream of the Radio Station.
+         */
+        private final String mStreamUrl;
+
+        /**
+         * Sort Id of the Radio Station, carried in the extras of the description.
+         */
+        private final int mSortId;
+
+        /**
+         * Main constructor.
+         *
+         * @param description  Description of the Radio Station.
+         * @param radioStation Radio Station.
+         */
+        private CachedDescription(@NonNull final MediaDescriptionCompat description,
+                                  @NonNull final RadioStation radioStation) {
+            super();
+            mDescription = description;
+            mName = radioStation.getName();
+            mCountry = radioStation.getCountry();
+            mGenre = radioStation.getGenre();
+            mImageUrl = radioStation.getImageUrl();
+            mStreamUrl = getStreamUrl(radioStation);
+            mSortId = radioStation.getSortId();
+        }
+
+        /**
+         * @param context            Context of the callee.
+         * @param radioStation       Radio Station.
+         * @param descriptionFactory Factory of the descriptions.
+         * @return Description of the Radio Station, or {@code null} if it can not be built.
+         */
+        @Nullable
+        private static CachedDescription of(@NonNull final Context context,
+                                            @NonNull final RadioStation radioStation,
+                                            @NonNull final DescriptionFactory descriptionFactory) {
+            final MediaDescriptionCompat description = descriptionFactory.create(
+                    context, radioStation
+            );
+            if (description == null) {
+                return null;
+            }
+            return new CachedDescription(description, radioStation);
+        }
+
+        /**
+         * @param radioStation Radio Station.
+         * @return {@code true} if the description is made of the current fields of the given
+         * Radio Station.
+         */
+        private boolean isOf(@NonNull final RadioStation radioStation) {
+            return mSortId == radioStation.getSortId()
+                    && TextUtils.equals(mName, radioStation.getName())
+                    && TextUtils.equals(mCountry, radioStation.getCountry())
+                    && TextUtils.equals(mGenre, radioStation.getGenre())
+                    && TextUtils.equals(mImageUrl, radioStation.getImageUrl())
+                    && TextUtils.equals(mStreamUrl, getStreamUrl(radioStation));
+        }
+
+        /**
+         * @param radioStation Radio Station.
+         * @return Url of the stream the description is made with, or {@code null}.
+         */
+        @Nullable
+        private static String getStreamUrl(@NonNull final RadioStation radioStation) {
+            if (radioStation.isMediaStreamEmpty()) {
+                return null;
+            }
+            return radioStation.getMediaStream().getVariant(0).getUrl();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.yuriy.openradio.vo.RadioStation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Created with Android Studio.
@@ -37,11 +38,6 @@ import java.util.List;
  */
 public final class QueueHelper {
 
-    /**
-     * Monitor object which manages access to the radio stations collection.
-     */
-    public static final Object RADIO_STATIONS_MANAGING_LOCK = new Object();
-
     public static final int UNKNOWN_INDEX = -1;
 
     @SuppressWarnings("unused")
@@ -81,6 +77,13 @@ public final class QueueHelper {
      */
     public static int getRadioStationIndexOnQueue(final Iterable<MediaSessionCompat.QueueItem> queue,
                                                   final long mediaId) {
+        // Queue Ids are assigned in order by getPlayingQueue, so they are the positions in the queue.
+        if (queue instanceof List && queue instanceof RandomAccess) {
+            final List<MediaSessionCompat.QueueItem> list = (List<MediaSessionCompat.QueueItem>) queue;
+            if (mediaId >= 0 && mediaId < list.size() && list.get((int) mediaId).getQueueId() == mediaId) {
+                return (int) mediaId;
+            }
+        }
         int index = 0;
         for (MediaSessionCompat.QueueItem item : queue) {
             if (mediaId == item.getQueueId()) {
@@ -100,6 +103,9 @@ public final class QueueHelper {
      */
     public static int getRadioStationIndexOnQueue(final Iterable<MediaSessionCompat.QueueItem> queue,
                                                   final String mediaId) {
+        if (queue instanceof KeyedList) {
+            return ((KeyedList<MediaSessionCompat.QueueItem>) queue).indexOfKey(mediaId);
+        }
         int index = 0;
         for (MediaSessionCompat.QueueItem item : queue) {
             if (mediaId.equals(item.getDescription().getMediaId())) {
@@ -129,6 +135,9 @@ public final class QueueHelper {
      */
     public static RadioStation getRadioStationById(final String id,
                                                    final List<RadioStation> radioStations) {
+        if (radioStations instanceof KeyedList) {
+            return ((KeyedList<RadioStation>) radioStations).getByKey(id);
+        }
         for (final RadioStation radioStation : radioStations) {
             if (radioStation == null) {
                 continue;
@@ -140,37 +149,6 @@ public final class QueueHelper {
         return null;
     }
 
-    /**
-     * Safely add Radio Station to collection, skip execution if Radio Station is already
-     * in collection.
-     *
-     * @param radioStation  Radio Station to add to collection.
-     * @param radioStations Collection to add Radio Station into.
-     */
-    public static void addRadioStation(final RadioStation radioStation,
-                                       final List<RadioStation> radioStations) {
-        if (radioStation == null) {
-            return;
-        }
-        if (radioStations == null) {
-            return;
-        }
-
-        boolean contains = false;
-        for (final RadioStation radioStationInt : radioStations) {
-            if (radioStationInt == null) {
-                continue;
-            }
-            if (radioStationInt.getId() == radioStation.getId()) {
-                contains = true;
-                break;
-            }
-        }
-        if (!contains) {
-            radioStations.add(radioStation);
-        }
-    }
-
     /**
      * Clear destination and copy collection from source.
      *
@@ -183,41 +161,6 @@ public final class QueueHelper {
         destination.addAll(source);
     }
 
-    /**
-     *
-     * @param radioStationVO
-     * @param radioStations
-     */
-    public static void updateRadioStationMediaStream(final RadioStation radioStationVO,
-                                                     final List<RadioStation> radioStations) {
-        for (final RadioStation radioStation : radioStations) {
-            if (radioStationVO.getId() == radioStation.getId()) {
-                radioStation.setMediaStream(radioStationVO.getMediaStream());
-                break;
-            }
-        }
-    }
-
-    /**
-     *
-     * @param mediaId
-     * @param radioStations
-     * @return
-     */
-    public static boolean removeRadioStation(final String mediaId,
-                                             final List<RadioStation> radioStations) {
-        for (final RadioStation radioStation : radioStations) {
-            if (radioStation == null) {
-                continue;
-            }
-            if (TextUtils.equals(radioStation.getIdAsString(), mediaId)) {
-                radioStations.remove(radioStation);
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      *
      * @param genreId
@@ -1,5 +1,9 @@
 package com.yuriy.openradio.utils;
 
+import android.support.annotation.Nullable;
+
+import com.yuriy.openradio.net.CancellationToken;
+
 import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -45,6 +49,11 @@ public final class RadioStationChecker implements Runnable {
      * of the items to be used.
      */
     private final Set<String> mPassedUrls;
+    /**
+     * Token that cancels the check, or {@code null} if it can not be cancelled.
+     */
+    @Nullable
+    private final CancellationToken mCancellationToken;
 
     private static final Set<String> BLACK_LIST = new HashSet<>();
 
@@ -55,17 +64,20 @@ public final class RadioStationChecker implements Runnable {
     /**
      * Constructor.
      *
-     * @param url           Url of the Radio Station to be checked.
-     * @param completeLatch Latch object to use to determine completion.
-     * @param passedUrls    Collection of the Urls with correct 200 OK response.
+     * @param url               Url of the Radio Station to be checked.
+     * @param completeLatch     Latch object to use to determine completion.
+     * @param passedUrls        Collection of the Urls with correct 200 OK response.
+     * @param cancellationToken Token that cancels the check.
      */
     public RadioStationChecker(final String url,
                                final CountDownLatch completeLatch,
-                               final Set<String> passedUrls) {
+                               final Set<String> passedUrls,
+                               @Nullable final CancellationToken cancellationToken) {
         super();
         mUrl = url;
         mCompleteLatch = completeLatch;
         mPassedUrls = passedUrls;
+        mCancellationToken = cancellationToken;
     }
 
     @Override
@@ -88,6 +100,10 @@ public final class RadioStationChecker implements Runnable {
         try {
             final URL url = new URL(mUrl);
             urlConnection = (HttpURLConnection) url.openConnection();
+            if (mCancellationToken != null && !mCancellationToken.attach(urlConnection)) {
+                AppLogger.d(CLASS_NAME + " Check cancelled, Url:" + mUrl);
+                return;
+            }
             urlConnection.setReadTimeout(TIME_OUT);
             urlConnection.setConnectTimeout(TIME_OUT);
             urlConnection.setInstanceFollowRedirects(true);
@@ -121,6 +137,9 @@ public final class RadioStationChecker implements Runnable {
         mCompleteLatch.countDown();
         if (urlConnection != null) {
             urlConnection.disconnect();
+            if (mCancellationToken != null) {
+                mCancellationToken.detach(urlConnection);
+            }
         }
         if (inputStream != null) {
             try {
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copy-on-write list which is shared between threads.
+ * <p>
+ * Readers take an immutable snapshot with {@link #get()} and work with it without locking, the
+ * snapshot does not change under them. Writers copy the current snapshot, change the copy and
+ * publish it as the new snapshot at once. Writers are serialized among themselves, readers never
+ * wait for them.
+ * <p>
+ * Only the list is copied, the items are shared between the snapshots, so they are not to be
+ * changed once published. An item is changed by publishing a changed copy of it, with
+ * {@link #replace(String, Replacement)}.
+ * <p>
+ * If the list is created with a {@link Key}, every snapshot is indexed by the keys of its items,
+ * so that an item is found by its key in constant time, with {@link #find(String)} or with the
+ * lookups of {@link QueueHelper} applied to a snapshot.
+ *
+ * @param <T> Type of the items.
+ */
+public final class SnapshotList<T> {
+
+    /**
+     * Change of a copy of the current snapshot.
+     *
+     * @param <T> Type of the items.
+     */
+    public interface Mutation<T> {
+
+        /**
+         * @param list Copy of the current snapshot to change.
+         */
+        void apply(@NonNull final List<T> list);
+    }
+
+    /**
+     * Changed copy of an item.
+     *
+     * @param <T> Type of the items.
+     */
+    public interface Replacement<T> {
+
+        /**
+         * @param item Item of the current snapshot, not to be changed.
+         * @return Changed copy of the item.
+         */
+        @NonNull
+        T replace(@NonNull final T item);
+    }
+
+    /**
+     * Key of an item.
+     *
+     * @param <T> Type of the items.
+     */
+    public interface Key<T> {
+
+        /**
+         * @param item Item.
+         * @return Key of the item, or {@code null} if the item is not to be indexed.
+         */
+        @Nullable
+        String of(@NonNull final T item);
+    }
+
+    /**
+     * Key to index the snapshots with, or {@code null} if they are not indexed.
+     */
+    @Nullable
+    private final Key<T> mKey;
+
+    /**
+     * Current snapshot.
+     */
+    @NonNull
+    private volatile List<T> mSnapshot = Collections.emptyList();
+
+    /**
+     * Constructor of the list which snapshots are not indexed.
+     */
+    public SnapshotList() {
+        this(null);
+    }
+
+    /**
+     * Main constructor.
+     *
+     * @param key Key to index the snapshots with, or {@code null} if they are not to be indexed.
+     */
+    public SnapshotList(@Nullable final Key<T> key) {
+        super();
+        mKey = key;
+    }
+
+    /**
+     * @return Current immutable snapshot.
+     */
+    @NonNull
+    public List<T> get() {
+        return mSnapshot;
+    }
+
+    /**
+     * @return Size of the current snapshot.
+     */
+    public int size() {
+        return mSnapshot.size();
+    }
+
+    /**
+     * @return {@code true} if the current snapshot is empty.
+     */
+    public boolean isEmpty() {
+        return mSnapshot.isEmpty();
+    }
+
+    /**
+     * @param key Key of the item.
+     * @return Position of the first item with the given key in the current snapshot, or
+     * {@link QueueHelper#UNKNOWN_INDEX}.
+     */
+    public int indexOf(@Nullable final String key) {
+        return indexOf(mSnapshot, key);
+    }
+
+    /**
+     * @param key Key of the item.
+     * @return First item with the given key in the current snapshot, or {@code null}.
+     */
+    @Nullable
+    public T find(@Nullable final String key) {
+        final List<T> snapshot = mSnapshot;
+        final int index = indexOf(snapshot, key);
+        return index == QueueHelper.UNKNOWN_INDEX ? null : snapshot.get(index);
+    }
+
+    /**
+     * Publishes a snapshot with the given items.
+     *
+     * @param items Items of the new snapshot.
+     * @return Published snapshot.
+     */
+    @NonNull
+    public synchronized List<T> set(@NonNull final Collection<? extends T> items) {
+        return publish(new ArrayList<>(items));
+    }
+
+    /**
+     * Publishes an empty snapshot.
+     *
+     * @return Published snapshot.
+     */
+    @NonNull
+    public synchronized List<T> clear() {
+        mSnapshot = Collections.emptyList();
+        return mSnapshot;
+    }
+
+    /**
+     * Publishes a snapshot with the given items appended to the current ones.
+     *
+     * @param items Items to append.
+     * @return Published snapshot.
+     */
+    @NonNull
+    public synchronized List<T> addAll(@NonNull final Collection<? extends T> items) {
+        final List<T> list = new ArrayList<>(mSnapshot.size() + items.size());
+        list.addAll(mSnapshot);
+        list.addAll(items);
+        return publish(list);
+    }
+
+    /**
+     * Publishes a snapshot with the given item appended, unless an item with the same key is
+     * in the current snapshot already.
+     *
+     * @param item Item to append.
+     * @return Published snapshot, or the current one if the item is there already.
+     */
+    @NonNull
+    public synchronized List<T> addIfAbsent(@NonNull final T item) {
+        if (indexOf(mSnapshot, key(item)) != QueueHelper.UNKNOWN_INDEX) {
+            return mSnapshot;
+        }
+        return addAll(Collections.singletonList(item));
+    }
+
+    /**
+     * Publishes a snapshot without the first item with the given key.
+     *
+     * @param key Key of the item.
+     * @return Published snapshot, or the current one if there is no such item.
+     */
+    @NonNull
+    public synchronized List<T> remove(@Nullable final String key) {
+        final int index = indexOf(mSnapshot, key);
+        if (index == QueueHelper.UNKNOWN_INDEX) {
+            return mSnapshot;
+        }
+        final List<T> list = new ArrayList<>(mSnapshot);
+        list.remove(index);
+        return publish(list);
+    }
+
+    /**
+     * Publishes a snapshot with the first item with the given key replaced by its changed copy.
+     * This is the way to change an item: the published items are shared with the readers of the
+     * snapshots on other threads, so they are never changed in place.
+     *
+     * @param key         Key of the item.
+     * @param replacement Changed copy of the item.
+     * @return Published item, or {@code null} if there is no such item.
+     */
+    @Nullable
+    public synchronized T replace(@Nullable final String key,
+                                  @NonNull final Replacement<T> replacement) {
+        final int index = indexOf(mSnapshot, key);
+        if (index == QueueHelper.UNKNOWN_INDEX) {
+            return null;
+        }
+        final T item = replacement.replace(mSnapshot.get(index));
+        final List<T> list = new ArrayList<>(mSnapshot);
+        list.set(index, item);
+        publish(list);
+        return item;
+    }
+
+    /**
+     * Publishes a changed copy of the current snapshot.
+     *
+     * @param mutation Change of the copy.
+     * @return Published snapshot.
+     */
+    @NonNull
+    public synchronized List<T> update(@NonNull final Mutation<T> mutation) {
+        final List<T> list = new ArrayList<>(mSnapshot);
+        mutation.apply(list);
+        return publish(list);
+    }
+
+    /**
+     * @param list List to publish, not to be changed afterwards.
+     * @return Published snapshot.
+     */
+    @NonNull
+    private List<T> publish(@NonNull final List<T> list) {
+        mSnapshot = mKey == null ? Collections.unmodifiableList(list) : new KeyedList<>(list, mKey);
+        return mSnapshot;
+    }
+
+    /**
+     * @param item Item.
+     * @return Key of the item, or {@code null}.
+     */
+    @Nullable
+    private String key(@NonNull final T item) {
+        return mKey == null ? null : mKey.of(item);
+    }
+
+    /**
+     * @param snapshot Snapshot to look in.
+     * @param key      Key of the item.
+     * @return Position of the first item with the given key, or {@link QueueHelper#UNKNOWN_INDEX}.
+     */
+    private int indexOf(@NonNull final List<T> snapshot, @Nullable final String key) {
+        if (key == null) {
+            return QueueHelper.UNKNOWN_INDEX;
+        }
+        if (snapshot instanceof KeyedList) {
+            return ((KeyedList<T>) snapshot).indexOfKey(key);
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            final T item = snapshot.get(i);
+            if (item != null && key.equals(key(item))) {
+                return i;
+            }
+        }
+        return QueueHelper.UNKNOWN_INDEX;
+    }
+}
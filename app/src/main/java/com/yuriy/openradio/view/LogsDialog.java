@@ -34,6 +34,7 @@ import android.widget.Toast;
 import com.yuriy.openradio.BuildConfig;
 import com.yuriy.openradio.R;
 import com.yuriy.openradio.business.storage.AppPreferencesManager;
+import com.yuriy.openradio.business.storage.PlaybackQualityStorage;
 import com.yuriy.openradio.utils.AppLogger;
 import com.yuriy.openradio.utils.AppUtils;
 import com.yuriy.openradio.utils.FabricUtils;
@@ -93,12 +94,19 @@ public final class LogsDialog extends BaseDialogFragment {
                 }
         );
 
+        final TextView playbackQualityView = view.findViewById(
+                R.id.settings_dialog_playback_quality_view
+        );
+        showPlaybackQuality(context, playbackQualityView);
+
         final Button clearLogsBtn = view.findViewById(R.id.settings_dialog_clear_logs_btn_view);
         clearLogsBtn.setOnClickListener(
 
                 view12 -> {
                     AppLogger.deleteZipFile(activity);
                     AppLogger.deleteLogcatFile(activity);
+                    PlaybackQualityStorage.clear(context);
+                    showPlaybackQuality(context, playbackQualityView);
                     final boolean result = AppLogger.deleteAllLogs(activity);
                     String message = result
                             ? "All logs deleted"
@@ -117,6 +125,21 @@ public final class LogsDialog extends BaseDialogFragment {
         return createAlertDialog(view);
     }
 
+    /**
+     * Displays the playback quality of the latest sessions, once loaded.
+     *
+     * @param context Context of the callee.
+     * @param view    View to display the playback quality in.
+     */
+    private static void showPlaybackQuality(final Context context, final TextView view) {
+        PlaybackQualityStorage.getSummary(
+                context,
+                summary -> view.setText(
+                        summary.isEmpty() ? context.getString(R.string.playback_quality_empty) : summary
+                )
+        );
+    }
+
     private void processEnableCheckView(final Context context, final View view, final boolean isEnable) {
         if (view == null) {
             return;
@@ -139,7 +162,7 @@ public final class LogsDialog extends BaseDialogFragment {
 
         AppLogger.deleteZipFile(getActivity());
         try {
-            AppLogger.zip(getActivity());
+            AppLogger.zip(getActivity(), PlaybackQualityStorage.getFile(getActivity()));
         } catch (final IOException e) {
             SafeToast.showAnyThread(getActivity(), "Can not ZIP Logs");
             FabricUtils.logException(e);
@@ -1381,6 +1381,14 @@ public final class MainActivity extends AppCompatActivity {
                 return;
             }
 
+            // Next page of the indexed list, append it and keep the list where it is.
+            if (MediaItemHelper.isPageDelta(children)) {
+                AppLogger.d(CLASS_NAME + " Append page of " + children.size() + " items");
+                activity.mBrowserAdapter.addAll(children);
+                activity.mBrowserAdapter.notifyDataSetChanged();
+                return;
+            }
+
             activity.mBrowserAdapter.clear();
             activity.mBrowserAdapter.notifyDataSetInvalidated();
             activity.mBrowserAdapter.addAll(children);
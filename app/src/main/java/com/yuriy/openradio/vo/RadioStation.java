@@ -226,4 +226,28 @@ public final class RadioStation implements Serializable {
     public static RadioStation makeDefaultInstance() {
         return new RadioStation();
     }
+
+    /**
+     * Factory method to create a copy of the {@link RadioStation}, which does not share any
+     * mutable state with the original one.
+     *
+     * @param radioStation {@link RadioStation} to copy.
+     * @return Copy of the {@link RadioStation}.
+     */
+    public static RadioStation makeCopyInstance(@NonNull final RadioStation radioStation) {
+        final RadioStation copy = new RadioStation();
+        copy.mId = radioStation.mId;
+        copy.mStatus = radioStation.mStatus;
+        copy.mName = radioStation.mName;
+        copy.mWebSite = radioStation.mWebSite;
+        copy.mCountry = radioStation.mCountry;
+        copy.mGenre = radioStation.mGenre;
+        copy.mImageUrl = radioStation.mImageUrl;
+        copy.mThumbUrl = radioStation.mThumbUrl;
+        copy.setMediaStream(radioStation.mMediaStream);
+        copy.mIsLocal = radioStation.mIsLocal;
+        copy.mIsLastKnown = radioStation.mIsLastKnown;
+        copy.mSortId = radioStation.mSortId;
+        return copy;
+    }
 }
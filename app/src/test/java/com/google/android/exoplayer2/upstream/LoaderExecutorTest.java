@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.exoplayer2.upstream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public final class LoaderExecutorTest {
+
+  private static final long TIMEOUT_S = 5;
+
+  @Test
+  public void playbackTasksDoNotWaitForBusyThreads() throws Exception {
+    LoaderExecutor executor = new LoaderExecutor(2, 1);
+    int loadCount = 4;
+    CountDownLatch started = new CountDownLatch(loadCount);
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < loadCount; i++) {
+      // Live loads, which never end by themselves.
+      executor
+          .newSerialExecutor("playback" + i, LoaderExecutor.PRIORITY_PLAYBACK)
+          .execute(
+              () -> {
+                started.countDown();
+                awaitQuietly(release);
+              });
+    }
+
+    assertThat(started.await(TIMEOUT_S, TimeUnit.SECONDS), is(true));
+    release.countDown();
+  }
+
+  @Test
+  public void canceledTaskDoesNotInterruptNextTaskOnReusedThread() throws Exception {
+    // Single thread, so that the second task reuses the thread of the first one.
+    LoaderExecutor executor = new LoaderExecutor(1, 0);
+    LoaderExecutor.SerialExecutor first =
+        executor.newSerialExecutor("first", LoaderExecutor.PRIORITY_PREFETCH);
+    LoaderExecutor.SerialExecutor second =
+        executor.newSerialExecutor("second", LoaderExecutor.PRIORITY_PREFETCH);
+
+    AtomicReference<Thread> firstThread = new AtomicReference<>();
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch firstFinished = new CountDownLatch(1);
+    AtomicBoolean firstInterrupted = new AtomicBoolean();
+    Runnable firstTask =
+        () -> {
+          firstThread.set(Thread.currentThread());
+          firstStarted.countDown();
+          try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT_S));
+          } catch (InterruptedException e) {
+            firstInterrupted.set(true);
+          }
+          firstFinished.countDown();
+        };
+    first.execute(firstTask);
+    assertThat(firstStarted.await(TIMEOUT_S, TimeUnit.SECONDS), is(true));
+    first.interrupt(firstTask);
+    assertThat(firstFinished.await(TIMEOUT_S, TimeUnit.SECONDS), is(true));
+    assertThat(firstInterrupted.get(), is(true));
+
+    AtomicReference<Thread> secondThread = new AtomicReference<>();
+    AtomicBoolean secondInterrupted = new AtomicBoolean();
+    CountDownLatch secondFinished = new CountDownLatch(1);
+    second.execute(
+        () -> {
+          secondThread.set(Thread.currentThread());
+          // A late cancel of the first task arrives while the thread runs the second one.
+          first.interrupt(firstTask);
+          try {
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            secondInterrupted.set(true);
+          }
+          secondInterrupted.set(secondInterrupted.get() || Thread.currentThread().isInterrupted());
+          secondFinished.countDown();
+        });
+
+    assertThat(secondFinished.await(TIMEOUT_S, TimeUnit.SECONDS), is(true));
+    assertThat(secondThread.get(), sameInstance(firstThread.get()));
+    assertThat(secondInterrupted.get(), is(false));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_S, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
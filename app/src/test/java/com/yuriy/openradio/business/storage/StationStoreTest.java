@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.business.storage;
+
+import com.yuriy.openradio.vo.RadioStation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public final class StationStoreTest {
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    public StationStoreTest() {
+        super();
+    }
+
+    @Test
+    public void radioStationsAreReloaded() throws Exception {
+        final File file = new File(mFolder.getRoot(), "Favorites.stations");
+        final StationStore store = new StationStore(file);
+        assertThat(store.exists(), is(false));
+
+        final Map<String, RadioStation> radioStations = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            radioStations.put(String.valueOf(i), makeRadioStation(i));
+        }
+        store.replaceAll(radioStations, null);
+        store.put("1000", makeRadioStation(1000));
+        store.remove("0");
+        store.close();
+
+        final StationStore reloaded = new StationStore(file);
+        assertThat(reloaded.exists(), is(true));
+        reloaded.load();
+        assertThat(reloaded.size(), is(1000));
+        assertThat(reloaded.contains("0"), is(false));
+        assertThat(reloaded.getMaxSortId(), is(1000));
+        final RadioStation radioStation = reloaded.getAll().get("1000");
+        assertThat(radioStation.getName(), is("Radio 1000"));
+        assertThat(radioStation.getWebSite(), is(""));
+        assertThat(radioStation.getMediaStream().getVariant(0).getUrl(), is("http://radio/1000"));
+        assertThat(radioStation.getMediaStream().getVariant(0).getBitrate(), is(128));
+    }
+
+    @Test
+    public void tornRecordIsDropped() throws Exception {
+        final File file = new File(mFolder.getRoot(), "Locals.stations");
+        final StationStore store = new StationStore(file);
+        store.replaceAll(new LinkedHashMap<>(), null);
+        store.put("1", makeRadioStation(1));
+        store.put("2", makeRadioStation(2));
+        store.close();
+
+        // Simulate a crash in the middle of an append.
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write(new byte[]{0, 0, 1, 0, 1, 2, 3});
+        }
+
+        final StationStore reloaded = new StationStore(file);
+        reloaded.load();
+        assertThat(reloaded.getAll().keySet(), contains("1", "2"));
+
+        // Log is rewritten without the torn record, so appends are readable again.
+        reloaded.put("3", makeRadioStation(3));
+        reloaded.close();
+        final StationStore again = new StationStore(file);
+        again.load();
+        assertThat(again.getAll().keySet(), contains("1", "2", "3"));
+    }
+
+    @Test
+    public void tornLengthPrefixIsDropped() throws Exception {
+        final File file = new File(mFolder.getRoot(), "Locals.stations");
+        final StationStore store = new StationStore(file);
+        store.replaceAll(new LinkedHashMap<>(), null);
+        store.put("1", makeRadioStation(1));
+        store.close();
+
+        // Simulate a crash in the middle of the length of an appended record.
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write(new byte[]{0, 0});
+        }
+
+        final StationStore reloaded = new StationStore(file);
+        reloaded.load();
+        assertThat(reloaded.getAll().keySet(), contains("1"));
+
+        // Log is rewritten without the torn length, so the next record is not misaligned.
+        reloaded.put("2", makeRadioStation(2));
+        reloaded.close();
+        final StationStore again = new StationStore(file);
+        again.load();
+        assertThat(again.getAll().keySet(), contains("1", "2"));
+    }
+
+    @Test
+    public void logIsCompacted() throws Exception {
+        final File file = new File(mFolder.getRoot(), "Latest.stations");
+        final StationStore store = new StationStore(file);
+        store.replaceAll(new LinkedHashMap<>(), null);
+        store.put("1", makeRadioStation(1));
+        store.close();
+        final long length = file.length();
+        for (int i = 0; i < 1000; i++) {
+            store.put("1", makeRadioStation(1));
+        }
+        store.close();
+
+        assertThat(file.length(), lessThan(length * 100));
+        final StationStore reloaded = new StationStore(file);
+        reloaded.load();
+        assertThat(reloaded.size(), is(1));
+    }
+
+    private static RadioStation makeRadioStation(final int id) {
+        final RadioStation radioStation = RadioStation.makeDefaultInstance();
+        radioStation.setId(id);
+        radioStation.setName("Radio " + id);
+        radioStation.setSortId(id);
+        radioStation.getMediaStream().setVariant(128, "http://radio/" + id);
+        return radioStation;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import com.google.android.exoplayer2.extractor.mp3.Mp3Extractor;
+import com.google.android.exoplayer2.extractor.ogg.OggExtractor;
+import com.google.android.exoplayer2.extractor.ts.AdtsExtractor;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public final class ExtractorHintCacheTest {
+
+    private static final String URL = "http://radio.com/stream";
+
+    public ExtractorHintCacheTest() {
+        super();
+    }
+
+    @Test
+    public void contentTypeWithParameters() throws Exception {
+        assertThat(
+                ExtractorHintCache.getExtractorForContentType("Audio/AACP; charset=UTF-8")
+                        == AdtsExtractor.class,
+                is(true)
+        );
+        assertThat(ExtractorHintCache.getExtractorForContentType("text/html"), nullValue());
+        assertThat(ExtractorHintCache.getExtractorForContentType(null), nullValue());
+    }
+
+    @Test
+    public void playedHintTakesPrecedence() throws Exception {
+        final ExtractorHintCache cache = new ExtractorHintCache();
+        assertThat(cache.getHint(URL), nullValue());
+
+        cache.putContentType(URL, "audio/mpeg");
+        assertThat(cache.getHint(URL) == Mp3Extractor.class, is(true));
+
+        cache.putPlayed(URL, OggExtractor.class);
+        assertThat(cache.getHint(URL) == OggExtractor.class, is(true));
+
+        cache.remove(URL);
+        assertThat(cache.getHint(URL), nullValue());
+    }
+}
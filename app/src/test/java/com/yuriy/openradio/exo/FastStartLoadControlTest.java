@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.exo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.util.Clock;
+import com.google.android.exoplayer2.util.HandlerWrapper;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public final class FastStartLoadControlTest {
+
+    private static final int MIN_BUFFER_MS = 15000;
+    private static final int MAX_BUFFER_MS = 50000;
+    private static final int PLAY_BUFFER_MS = 2500;
+    private static final int REBUFFER_MS = 5000;
+    private static final long TICK_MS = 10;
+
+    private final FakeClock mClock = new FakeClock();
+
+    public FastStartLoadControlTest() {
+        super();
+    }
+
+    @Test
+    public void fastStreamStartsEarly() throws Exception {
+        final FastStartLoadControl loadControl = newLoadControl();
+        loadControl.onPrepared();
+
+        // Stream delivers 4 s of media per second: classic policy would start after 625 ms.
+        final long timeToFirstAudioMs = timeToFirstAudio(loadControl, 4);
+        assertThat(timeToFirstAudioMs, lessThan(PLAY_BUFFER_MS / 4L));
+        assertThat(timeToFirstAudioMs, is(expectedFastStart(4)));
+
+        // Buffer keeps growing beyond the minimum buffer.
+        assertThat(loadControl.shouldContinueLoading((MIN_BUFFER_MS + 1000) * 1000L, 1), is(true));
+        assertThat(loadControl.shouldContinueLoading(MAX_BUFFER_MS * 1000L, 1), is(false));
+    }
+
+    @Test
+    public void slowStreamStartsClassic() throws Exception {
+        final FastStartLoadControl loadControl = newLoadControl();
+        loadControl.onPrepared();
+
+        // Stream delivers 1.5 s of media per second, the buffer would barely grow while playing.
+        final long timeToFirstAudioMs = timeToFirstAudio(loadControl, 1.5f);
+        assertThat(timeToFirstAudioMs, is(expectedTimeToFirstAudio(PLAY_BUFFER_MS, 1.5f)));
+    }
+
+    @Test
+    public void connectBurstDoesNotCountAsArrivalRate() throws Exception {
+        final FastStartLoadControl loadControl = newLoadControl();
+        loadControl.onPrepared();
+
+        // Server sends 900 ms of media on connect, then 1.5 s of media per second.
+        final int burstMs = 900;
+        final long timeToFirstAudioMs = timeToFirstAudio(loadControl, burstMs, 1.5f);
+        assertThat(timeToFirstAudioMs, is(expectedTimeToFirstAudio(PLAY_BUFFER_MS - burstMs, 1.5f)));
+    }
+
+    @Test
+    public void earlyUnderrunFallsBackToClassic() throws Exception {
+        final FastStartLoadControl loadControl = newLoadControl();
+        loadControl.onPrepared();
+        timeToFirstAudio(loadControl, 4);
+
+        mClock.mTimeMs += 1000;
+        assertThat(loadControl.shouldStartPlayback(0, 1, true), is(false));
+
+        // Re-prepare of the same stream keeps the classic policy.
+        loadControl.onStopped();
+        loadControl.onPrepared();
+        assertThat(timeToFirstAudio(loadControl, 4), is(expectedTimeToFirstAudio(PLAY_BUFFER_MS, 4)));
+
+        // New stream tries a fast start again.
+        loadControl.onStreamChanged();
+        loadControl.onStopped();
+        loadControl.onPrepared();
+        assertThat(timeToFirstAudio(loadControl, 4), is(expectedFastStart(4)));
+    }
+
+    private FastStartLoadControl newLoadControl() {
+        return new FastStartLoadControl(
+                new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE),
+                MIN_BUFFER_MS, MAX_BUFFER_MS, PLAY_BUFFER_MS, REBUFFER_MS,
+                mClock
+        );
+    }
+
+    /**
+     * @return Time of a fast start of a stream with the given rate, rounded up to the ticks
+     * of {@link #timeToFirstAudio(FastStartLoadControl, float)}.
+     */
+    private static long expectedFastStart(final float rate) {
+        return Math.max(
+                expectedTimeToFirstAudio(FastStartLoadControl.FAST_START_BUFFER_MS, rate),
+                FastStartLoadControl.MIN_MEASUREMENT_MS
+        );
+    }
+
+    /**
+     * @return Time the stream needs to buffer the given duration, rounded up to the ticks
+     * of {@link #timeToFirstAudio(FastStartLoadControl, float)}.
+     */
+    private static long expectedTimeToFirstAudio(final int bufferMs, final float rate) {
+        return (long) Math.ceil(bufferMs / rate / TICK_MS) * TICK_MS;
+    }
+
+    /**
+     * Feeds the load control with a stream that delivers media at a steady rate.
+     *
+     * @return Time from the first buffered media to the start of playback, in milliseconds.
+     */
+    private long timeToFirstAudio(final FastStartLoadControl loadControl, final float rate) {
+        return timeToFirstAudio(loadControl, 0, rate);
+    }
+
+    /**
+     * Feeds the load control with a stream that delivers a burst of media on connect, then media
+     * at a steady rate.
+     *
+     * @return Time from the first buffered media to the start of playback, in milliseconds.
+     */
+    private long timeToFirstAudio(final FastStartLoadControl loadControl,
+                                  final int burstMs,
+                                  final float rate) {
+        final long startMs = mClock.mTimeMs;
+        long elapsedMs = 0;
+        while (true) {
+            final long bufferedUs = burstMs * 1000L + (long) (elapsedMs * rate * 1000) + 1;
+            if (loadControl.shouldStartPlayback(bufferedUs, 1, false)) {
+                return mClock.mTimeMs - startMs;
+            }
+            elapsedMs += TICK_MS;
+            mClock.mTimeMs += TICK_MS;
+        }
+    }
+
+    private static final class FakeClock implements Clock {
+
+        private long mTimeMs = 1000;
+
+        @Override
+        public long elapsedRealtime() {
+            return mTimeMs;
+        }
+
+        @Override
+        public long uptimeMillis() {
+            return mTimeMs;
+        }
+
+        @Override
+        public void sleep(final long sleepTimeMs) {
+            mTimeMs += sleepTimeMs;
+        }
+
+        @Override
+        public HandlerWrapper createHandler(final Looper looper, final Handler.Callback callback) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import android.support.v4.media.MediaDescriptionCompat;
+import android.support.v4.media.session.MediaSessionCompat;
+
+import com.yuriy.openradio.vo.RadioStation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class PlayingQueueBuilderTest {
+
+    public PlayingQueueBuilderTest() {
+        super();
+    }
+
+    @Test
+    public void reorderRebuildsQueue() throws Exception {
+        // Sort Id is put into the title, as the session puts it into the extras.
+        final PlayingQueueBuilder builder = new PlayingQueueBuilder(
+                (context, radioStation) -> new MediaDescriptionCompat.Builder()
+                        .setMediaId(radioStation.getIdAsString())
+                        .setTitle(String.valueOf(radioStation.getSortId()))
+                        .build()
+        );
+        final List<RadioStation> radioStations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final RadioStation radioStation = RadioStation.makeDefaultInstance();
+            radioStation.setId(i);
+            radioStation.setSortId(i);
+            radioStation.getMediaStream().setVariant(128, "http://radio/" + i);
+            radioStations.add(radioStation);
+        }
+        // Descriptions are built without Context in this test.
+        final List<MediaSessionCompat.QueueItem> queue = builder.build(null, radioStations);
+
+        // Favorites are reordered, the same Radio Stations get new Sort Ids.
+        radioStations.get(0).setSortId(2);
+        radioStations.get(2).setSortId(0);
+        final List<MediaSessionCompat.QueueItem> reordered = builder.build(null, radioStations);
+
+        assertThat(PlayingQueueBuilder.isSameQueue(queue, reordered), is(false));
+        for (int i = 0; i < reordered.size(); i++) {
+            assertThat(
+                    reordered.get(i).getDescription().getTitle().toString(),
+                    is(String.valueOf(radioStations.get(i).getSortId()))
+            );
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 The "Open Radio" Project. Author: Chernyshov Yuriy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yuriy.openradio.utils;
+
+import com.yuriy.openradio.vo.RadioStation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public final class SnapshotListTest {
+
+    public SnapshotListTest() {
+        super();
+    }
+
+    @Test
+    public void snapshotDoesNotChangeOnWrite() throws Exception {
+        final SnapshotList<Integer> list = new SnapshotList<>();
+        list.set(Arrays.asList(1, 2, 3));
+
+        final List<Integer> snapshot = list.get();
+        list.addAll(Arrays.asList(4, 5));
+        list.update(copy -> copy.remove(Integer.valueOf(1)));
+
+        assertThat(snapshot, contains(1, 2, 3));
+        assertThat(list.get(), contains(2, 3, 4, 5));
+
+        list.clear();
+        assertThat(snapshot, contains(1, 2, 3));
+        assertThat(list.get(), is(empty()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsImmutable() throws Exception {
+        final SnapshotList<Integer> list = new SnapshotList<>();
+        list.set(Arrays.asList(1, 2, 3)).add(4);
+    }
+
+    @Test
+    public void keyedSnapshotFindsStationsById() throws Exception {
+        final SnapshotList<RadioStation> list = new SnapshotList<>(RadioStation::getIdAsString);
+        final List<RadioStation> radioStations = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            final RadioStation radioStation = RadioStation.makeDefaultInstance();
+            radioStation.setId(i);
+            radioStations.add(radioStation);
+        }
+        final List<RadioStation> snapshot = list.set(radioStations);
+
+        assertThat(QueueHelper.getRadioStationById("9999", snapshot), sameInstance(radioStations.get(9999)));
+        assertThat(QueueHelper.getRadioStationById("10000", snapshot), is(nullValue()));
+        assertThat(list.indexOf("5000"), is(5000));
+
+        // Same Id is not added twice.
+        final RadioStation duplicate = RadioStation.makeDefaultInstance();
+        duplicate.setId(42);
+        assertThat(list.addIfAbsent(duplicate), sameInstance(snapshot));
+        assertThat(list.find("42"), sameInstance(radioStations.get(42)));
+
+        // Order is kept and positions are re-indexed after a removal.
+        list.remove("0");
+        assertThat(list.size(), is(9999));
+        assertThat(list.indexOf("0"), is(QueueHelper.UNKNOWN_INDEX));
+        assertThat(list.indexOf("1"), is(0));
+        assertThat(list.get().get(0), sameInstance(radioStations.get(1)));
+    }
+
+    @Test
+    public void replaceDoesNotChangeSnapshotItem() throws Exception {
+        final SnapshotList<RadioStation> list = new SnapshotList<>(RadioStation::getIdAsString);
+        final RadioStation radioStation = RadioStation.makeDefaultInstance();
+        radioStation.setId(1);
+        radioStation.setSortId(10);
+        final List<RadioStation> snapshot = list.set(Arrays.asList(radioStation));
+
+        final RadioStation replaced = list.replace("1", item -> {
+            final RadioStation copy = RadioStation.makeCopyInstance(item);
+            copy.setSortId(20);
+            return copy;
+        });
+
+        assertThat(snapshot.get(0), sameInstance(radioStation));
+        assertThat(radioStation.getSortId(), is(10));
+        assertThat(list.find("1"), sameInstance(replaced));
+        assertThat(replaced.getSortId(), is(20));
+        assertThat(list.replace("2", item -> item), is(nullValue()));
+    }
+}